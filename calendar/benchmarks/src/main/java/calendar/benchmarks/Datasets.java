@@ -0,0 +1,173 @@
+package calendar.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import calendar.types.Event;
+import calendar.types.EventType;
+import calendar.types.RestCalendar;
+import calendar.types.RestUser;
+import calendar.types.UserSettings;
+import calendar.types.UserStore;
+import javafx.scene.paint.Color;
+
+/**
+ * The {@code Datasets} class generates the data the benchmarks run against.
+ *
+ * <p>
+ * Every dataset is generated from a fixed seed, so the same parameters always
+ * give the same users, calendars and events, and results from different runs
+ * can be compared. Events are spread over one year, and last between a quarter
+ * of an hour and a day, like the events of a real calendar.
+ * </p>
+ */
+public final class Datasets {
+
+    /** The seed every dataset is generated from. */
+    public static final long SEED = 2024;
+
+    /** The start of the year the events are spread over. */
+    public static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /** The number of minutes in the year the events are spread over. */
+    public static final int MINUTES = 365 * 24 * 60;
+
+    /** The longest an event lasts, in minutes. */
+    private static final int MAX_DURATION = 24 * 60;
+
+    /** The shortest an event lasts, in minutes. */
+    private static final int MIN_DURATION = 15;
+
+    /** The colors the events are given. */
+    private static final Color[] COLORS =
+            {Color.BLUE, Color.RED, Color.GREEN, Color.ORANGE, Color.PURPLE};
+
+    private Datasets() {
+    }
+
+    /**
+     * Gets the username of the user with the given number.
+     *
+     * @param  index the number of the user
+     * @return       the username of the user
+     */
+    public static String username(final int index) {
+        return "user" + index;
+    }
+
+    /**
+     * Gets the password of the user with the given number.
+     *
+     * @param  index the number of the user
+     * @return       the password of the user
+     */
+    public static String password(final int index) {
+        return "password" + index;
+    }
+
+    /**
+     * Generates a random event within the year the events are spread over.
+     *
+     * @param  random the source of randomness
+     * @return        a new {@link Event}
+     */
+    public static Event event(final Random random) {
+        LocalDateTime start = START.plusMinutes(random.nextInt(MINUTES));
+        LocalDateTime end = start.plusMinutes(MIN_DURATION
+                + random.nextInt(MAX_DURATION - MIN_DURATION));
+        return new Event("Event " + random.nextInt(1000),
+                         "Description of the event",
+                         start,
+                         end,
+                         COLORS[random.nextInt(COLORS.length)],
+                         random.nextInt(10) == 0
+                                 ? EventType.ALL_DAY
+                                 : EventType.REGULAR,
+                         uuid(random));
+    }
+
+    /**
+     * Generates a calendar with the given number of random events.
+     *
+     * @param  random the source of randomness
+     * @param  events the number of events in the calendar
+     * @return        a new {@link RestCalendar}
+     */
+    public static RestCalendar calendar(final Random random, final int events) {
+        List<Event> list = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) list.add(event(random));
+        return new RestCalendar(uuid(random),
+                                "Calendar " + random.nextInt(1000),
+                                list);
+    }
+
+    /**
+     * Generates a calendar with the given number of random events, from the
+     * fixed seed.
+     *
+     * @param  events the number of events in the calendar
+     * @return        a new {@link RestCalendar}
+     */
+    public static RestCalendar calendar(final int events) {
+        return calendar(new Random(SEED), events);
+    }
+
+    /**
+     * Generates a user with the given number of calendars, each with the
+     * given number of events.
+     *
+     * @param  random    the source of randomness
+     * @param  index     the number of the user, which decides the username
+     *                   and password
+     * @param  calendars the number of calendars the user has
+     * @param  events    the number of events in each calendar
+     * @return           a new {@link RestUser}
+     */
+    public static RestUser user(final Random random,
+            final int index,
+            final int calendars,
+            final int events) {
+        UUID userId = uuid(random);
+        List<RestCalendar> list = new ArrayList<>(calendars);
+        for (int i = 0; i < calendars; i++) list.add(calendar(random, events));
+        return new RestUser(userId,
+                            username(index),
+                            password(index),
+                            list,
+                            new UserSettings(userId));
+    }
+
+    /**
+     * Generates a store with the given number of users, from the fixed seed.
+     * The users are named with {@link #username(int)}, from 0 and up.
+     *
+     * @param  users     the number of users in the store
+     * @param  calendars the number of calendars each user has
+     * @param  events    the number of events in each calendar
+     * @return           a new {@link UserStore}
+     */
+    public static UserStore userStore(final int users,
+            final int calendars,
+            final int events) {
+        Random random = new Random(SEED);
+        UserStore store = new UserStore(new HashMap<>(), new HashMap<>());
+        for (int i = 0; i < users; i++)
+            store.addUser(user(random, i, calendars, events));
+        return store;
+    }
+
+    /**
+     * Generates a random {@link UUID} from the given source of randomness, so
+     * IDs are the same every time a dataset is generated.
+     *
+     * @param  random the source of randomness
+     * @return        a new {@code UUID}
+     */
+    private static UUID uuid(final Random random) {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+}
@@ -0,0 +1,103 @@
+package calendar.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calendar.persistence.Persistence;
+import calendar.types.Event;
+import calendar.types.EventCodec;
+
+/**
+ * Benchmarks of sending a list of events as JSON, through
+ * {@link Persistence}, and in the binary format of {@link EventCodec}, as the
+ * "/calendar" endpoint does for the events of a week or a month.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    /** The number of events in the list. */
+    @Param({"50", "1000"})
+    private int events;
+
+    /** The events that are encoded. */
+    private List<Event> list;
+
+    /** The events as JSON, which is read. */
+    private String json;
+
+    /** The events in the binary format, which is read. */
+    private byte[] binary;
+
+    /**
+     * Generates the events, and their encodings.
+     *
+     * @throws IOException if the events can't be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        list = Datasets.calendar(events).getEvents();
+        json = Persistence.toJSON(list);
+        binary = EventCodec.toBytes(list);
+    }
+
+    /**
+     * Writes the events as JSON.
+     *
+     * @return             the JSON
+     * @throws IOException if the events can't be serialized
+     */
+    @Benchmark
+    public String toJSON() throws IOException {
+        return Persistence.toJSON(list);
+    }
+
+    /**
+     * Reads the events from JSON.
+     *
+     * @return             the events
+     * @throws IOException if the JSON can't be deserialized
+     */
+    @Benchmark
+    public Event[] fromJSON() throws IOException {
+        return Persistence.fromJSON(Event[].class, json);
+    }
+
+    /**
+     * Writes the events in the binary format.
+     *
+     * @return the encoded events
+     */
+    @Benchmark
+    public byte[] toBinary() {
+        return EventCodec.toBytes(list);
+    }
+
+    /**
+     * Reads the events from the binary format.
+     *
+     * @return             the events
+     * @throws IOException if the bytes can't be read
+     */
+    @Benchmark
+    public List<Event> fromBinary() throws IOException {
+        return EventCodec.fromBytes(binary);
+    }
+}
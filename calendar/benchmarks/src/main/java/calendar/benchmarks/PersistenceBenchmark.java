@@ -0,0 +1,85 @@
+package calendar.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calendar.persistence.Persistence;
+import calendar.types.UserStore;
+
+/**
+ * Benchmarks of {@link Persistence#toJSON(Object)} and
+ * {@link Persistence#fromJSON(Class, String)} for a whole {@link UserStore},
+ * as when the user data is saved and loaded.
+ *
+ * <p>
+ * The largest dataset has 10 000 users with 100 events each, one million
+ * events in total.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+
+    /** The number of users in the store. */
+    @Param({"100", "10000"})
+    private int users;
+
+    /** The number of events in each user's calendar. */
+    @Param({"10", "100"})
+    private int events;
+
+    /** The store that is serialized. */
+    private UserStore store;
+
+    /** The store as JSON, which is deserialized. */
+    private String json;
+
+    /**
+     * Generates the store, and its JSON.
+     *
+     * @throws IOException if the store can't be serialized
+     */
+    @Setup
+    public void setUp() throws IOException {
+        store = Datasets.userStore(users, 1, events);
+        json = Persistence.toJSON(store);
+    }
+
+    /**
+     * Serializes the store.
+     *
+     * @return             the JSON
+     * @throws IOException if the store can't be serialized
+     */
+    @Benchmark
+    public String toJSON() throws IOException {
+        return Persistence.toJSON(store);
+    }
+
+    /**
+     * Deserializes the store.
+     *
+     * @return             the store
+     * @throws IOException if the JSON can't be deserialized
+     */
+    @Benchmark
+    public UserStore fromJSON() throws IOException {
+        return Persistence.fromJSON(UserStore.class, json);
+    }
+}
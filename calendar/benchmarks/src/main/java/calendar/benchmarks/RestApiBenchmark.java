@@ -0,0 +1,227 @@
+package calendar.benchmarks;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calendar.persistence.FsyncPolicy;
+import calendar.persistence.Persistence;
+import calendar.rest.ExecutionMode;
+import calendar.rest.RestAPI;
+import calendar.types.RestUser;
+import calendar.types.UserStore;
+
+/**
+ * End-to-end benchmarks of the {@link RestAPI}, measuring how many requests
+ * per second it answers over HTTP when many clients use it at once.
+ *
+ * <p>
+ * The server runs in the same process as the benchmark, on a free port, with
+ * its user data and journal in a temporary directory. Every fork starts a new
+ * server with a freshly generated store. Clients log in once and send their
+ * session token with every request.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(16)
+@Fork(1)
+public class RestApiBenchmark {
+
+    /** The number of clients, each logged in as a different user. */
+    private static final int CLIENTS = 256;
+
+    /** Status code group for {@code Successful responses}. */
+    private static final int SUCCESSFUL_RESPONSES = 200;
+
+    /** Status code group for {@code Redirection messages}. */
+    private static final int REDIRECTION_MESSAGES = 300;
+
+    /** The number of users in the store. */
+    @Param({"1000"})
+    private int users;
+
+    /** The number of events in each user's calendar. */
+    @Param({"100"})
+    private int events;
+
+    /** How requests are executed by the server. */
+    @Param({"virtual", "platform"})
+    private String executor;
+
+    /** How often the journal is synced to disk. */
+    @Param({"always", "never"})
+    private String fsync;
+
+    /** The client sending the requests. */
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /** The address of the server. */
+    private String address;
+
+    /** The session token of each client. */
+    private String[] tokens;
+
+    /** The ID of the calendar of each client. */
+    private UUID[] calendarIds;
+
+    /**
+     * The client each thread acts as next, so threads don't share a counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        /** The source of the times used in requests. */
+        private final Random random = new Random();
+
+        /** The client used next. */
+        private int next;
+
+        int next() {
+            return next++ % CLIENTS;
+        }
+    }
+
+    /**
+     * Generates the store, starts the server on it, and logs in the clients.
+     *
+     * @throws IOException          if the server can't be started
+     * @throws InterruptedException if interrupted while logging in
+     */
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("calendar-benchmark");
+        Path data = directory.resolve("userdata.json");
+        UserStore store = Datasets.userStore(users, 1, events);
+        Persistence.write(store, data.toString());
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        System.setProperty(RestAPI.PORT_PROPERTY, Integer.toString(port));
+        System.setProperty(RestAPI.DATA_PROPERTY, data.toString());
+        System.setProperty(RestAPI.JOURNAL_PROPERTY,
+                           directory.resolve("userdata.journal").toString());
+        System.setProperty(ExecutionMode.MODE_PROPERTY, executor);
+        System.setProperty(FsyncPolicy.POLICY_PROPERTY, fsync);
+        RestAPI.main(new String[0]);
+        address = "http://localhost:" + port;
+
+        tokens = new String[CLIENTS];
+        calendarIds = new UUID[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            int index = i * (users / CLIENTS) % users;
+            RestUser user = store.getUserId(Datasets.username(index))
+                    .flatMap(store::getUser).orElseThrow();
+            calendarIds[i] = user.getCalendar(0).getCalendarId();
+            tokens[i] = send(HttpRequest.newBuilder()
+                    .uri(URI.create(address + "/login/"
+                            + Datasets.username(index)))
+                    .POST(BodyPublishers.noBody())
+                    .header("password", Datasets.password(index)).build());
+        }
+    }
+
+    /**
+     * Gets the events of a calendar within a week.
+     *
+     * @param  cursor               the client to act as
+     * @return                      the response body
+     * @throws IOException          if the request fails
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              response
+     */
+    @Benchmark
+    public String getEvents(final Cursor cursor)
+            throws IOException, InterruptedException {
+        int i = cursor.next();
+        LocalDateTime after = time(cursor.random);
+        return send(HttpRequest.newBuilder()
+                .uri(URI.create(address + "/calendar/" + calendarIds[i]))
+                .GET().header("token", tokens[i])
+                .header("after", after.toString())
+                .header("before", after.plusWeeks(1).toString()).build());
+    }
+
+    /**
+     * Adds an event to a calendar, which is recorded in the journal before
+     * it is answered.
+     *
+     * @param  cursor               the client to act as
+     * @return                      the response body
+     * @throws IOException          if the request fails
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              response
+     */
+    @Benchmark
+    public String addEvent(final Cursor cursor)
+            throws IOException, InterruptedException {
+        int i = cursor.next();
+        LocalDateTime start = time(cursor.random);
+        return send(HttpRequest.newBuilder()
+                .uri(URI.create(address + "/event/" + calendarIds[i]))
+                .POST(BodyPublishers.noBody()).header("token", tokens[i])
+                .header("title", "Benchmark")
+                .header("start", start.toString())
+                .header("end", start.plusHours(1).toString()).build());
+    }
+
+    /**
+     * Gets a random time within the year the events are spread over.
+     *
+     * @param  random the source of randomness
+     * @return        the time
+     */
+    private static LocalDateTime time(final Random random) {
+        return Datasets.START.plusMinutes(random.nextInt(Datasets.MINUTES));
+    }
+
+    /**
+     * Sends a request and checks that it succeeded.
+     *
+     * @param  request              the request to send
+     * @return                      the response body
+     * @throws IOException          if the request fails, or the server
+     *                              answers with an error
+     * @throws InterruptedException if interrupted while waiting for the
+     *                              response
+     */
+    private String send(final HttpRequest request)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response =
+                client.send(request, BodyHandlers.ofString());
+        if (response.statusCode() < SUCCESSFUL_RESPONSES
+                || response.statusCode() >= REDIRECTION_MESSAGES)
+            throw new IOException("Request failed with status "
+                    + response.statusCode() + ": " + response.body());
+        return response.body();
+    }
+}
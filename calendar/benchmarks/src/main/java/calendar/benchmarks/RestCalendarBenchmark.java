@@ -0,0 +1,107 @@
+package calendar.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calendar.types.Event;
+import calendar.types.RestCalendar;
+
+/**
+ * Benchmarks of finding the events of a {@link RestCalendar} within a time
+ * range, as the "/calendar" endpoint does with its "before" and "after"
+ * headers.
+ *
+ * <p>
+ * {@link #range()} uses the calendar's index, while {@link #scan()} filters
+ * every event, as a baseline for what the index saves.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RestCalendarBenchmark {
+
+    /** The number of ranges queried, in turn. */
+    private static final int RANGES = 1024;
+
+    /** The number of events in the calendar. */
+    @Param({"1000", "100000"})
+    private int events;
+
+    /** The length of the queried ranges, in days. */
+    @Param({"1", "30"})
+    private int days;
+
+    /** The calendar that is queried. */
+    private RestCalendar calendar;
+
+    /** The start of each range. */
+    private LocalDateTime[] after;
+
+    /** The end of each range. */
+    private LocalDateTime[] before;
+
+    /** The range queried next. */
+    private int next;
+
+    /**
+     * Generates the calendar and the ranges.
+     */
+    @Setup
+    public void setUp() {
+        calendar = Datasets.calendar(events);
+
+        Random random = new Random(Datasets.SEED);
+        after = new LocalDateTime[RANGES];
+        before = new LocalDateTime[RANGES];
+        for (int i = 0; i < RANGES; i++) {
+            after[i] = Datasets.START
+                    .plusMinutes(random.nextInt(Datasets.MINUTES));
+            before[i] = after[i].plusDays(days);
+        }
+    }
+
+    /**
+     * Finds the events in the next range through the index.
+     *
+     * @return the events in the range
+     */
+    @Benchmark
+    public List<Event> range() {
+        int i = next++ & (RANGES - 1);
+        return calendar.getEvents(Optional.of(before[i]),
+                                  Optional.of(after[i]));
+    }
+
+    /**
+     * Finds the events in the next range by checking every event.
+     *
+     * @return the events in the range
+     */
+    @Benchmark
+    public List<Event> scan() {
+        int i = next++ & (RANGES - 1);
+        return calendar.getEvents().stream()
+                .filter(e -> e.getStartTime().isBefore(before[i])
+                        && e.getEndTime().isAfter(after[i]))
+                .toList();
+    }
+}
@@ -0,0 +1,117 @@
+package calendar.benchmarks;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calendar.types.RestCalendar;
+import calendar.types.RestUser;
+import calendar.types.UserStore;
+
+/**
+ * Benchmarks of the lookups every request makes in the {@link UserStore}:
+ * finding the user from the username, and the calendar from its ID. They run
+ * on several threads at once, like concurrent requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+@Fork(1)
+public class UserStoreBenchmark {
+
+    /** The number of lookups prepared, made in turn. */
+    private static final int LOOKUPS = 1024;
+
+    /** The number of users in the store. */
+    @Param({"100", "10000"})
+    private int users;
+
+    /** The number of calendars each user has. */
+    @Param({"1", "50"})
+    private int calendars;
+
+    /** The store the lookups are made in. */
+    private UserStore store;
+
+    /** The usernames that are looked up. */
+    private String[] usernames;
+
+    /** The IDs of the calendars that are looked up. */
+    private UUID[] calendarIds;
+
+    /**
+     * The lookup each thread makes next, so threads don't share a counter.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        /** The lookup made next. */
+        private int next;
+
+        int next() {
+            return next++ & (LOOKUPS - 1);
+        }
+    }
+
+    /**
+     * Generates the store, and picks the users and calendars to look up.
+     */
+    @Setup
+    public void setUp() {
+        store = Datasets.userStore(users, calendars, 0);
+
+        Random random = new Random(Datasets.SEED);
+        usernames = new String[LOOKUPS];
+        calendarIds = new UUID[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            usernames[i] = Datasets.username(random.nextInt(users));
+            RestUser user = store.getUserId(usernames[i])
+                    .flatMap(store::getUser).orElseThrow();
+            calendarIds[i] = user.getCalendar(random.nextInt(calendars))
+                    .getCalendarId();
+        }
+    }
+
+    /**
+     * Finds a user from their username.
+     *
+     * @param  cursor the lookup to make
+     * @return        the user
+     */
+    @Benchmark
+    public Optional<RestUser> user(final Cursor cursor) {
+        return store.getUserId(usernames[cursor.next()])
+                .flatMap(store::getUser);
+    }
+
+    /**
+     * Finds a user from their username, and then one of their calendars from
+     * its ID.
+     *
+     * @param  cursor the lookup to make
+     * @return        the calendar
+     */
+    @Benchmark
+    public Optional<RestCalendar> calendar(final Cursor cursor) {
+        int i = cursor.next();
+        return store.getUserId(usernames[i])
+                .flatMap(store::getUser)
+                .flatMap(user -> user.getCalendar(calendarIds[i]));
+    }
+}
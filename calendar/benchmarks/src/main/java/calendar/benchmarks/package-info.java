@@ -0,0 +1,14 @@
+/**
+ * Provides the JMH benchmarks of the calendar application.
+ *
+ * <p>
+ * The benchmarks measure saving and loading the user data, encoding lists of
+ * events, finding events within a time range, looking up users and calendars,
+ * and the throughput of the REST API as a whole. They all run against data generated by
+ * {@link calendar.benchmarks.Datasets} from a fixed seed, so results from
+ * different runs can be compared.
+ *
+ * @since   1.0
+ * @version 1.0
+ */
+package calendar.benchmarks;
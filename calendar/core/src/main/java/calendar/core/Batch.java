@@ -0,0 +1,144 @@
+package calendar.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import calendar.types.BatchOperation;
+import calendar.types.BatchResult;
+import calendar.types.Event;
+import no.gorandalum.fluentresult.Result;
+
+/**
+ * A builder of event changes that are sent to the server together, in one
+ * request, instead of one request each. Created by {@link RestHelper#batch()}.
+ *
+ * <p>
+ * The changes are made in the order they are added. The changes to each
+ * calendar are made together: if any of them fails, none of them are made.
+ * Changes that don't name a calendar are made to the calendar set with
+ * {@link RestHelper#setCaledarId(UUID)} when the batch was created.
+ * </p>
+ *
+ * <p>
+ * A builder is not thread-safe, and can be sent more than once.
+ * </p>
+ */
+public final class Batch {
+
+    /** The calendar changes are made to when none is given. */
+    private final UUID calendarId;
+
+    /** The changes, in the order they are made. */
+    private final List<BatchOperation> operations = new ArrayList<>();
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param calendarId the calendar changes are made to when none is given,
+     *                   or {@code null} if every change must name one
+     */
+    Batch(final UUID calendarId) {
+        this.calendarId = calendarId;
+    }
+
+    /**
+     * Adds an event to the calendar.
+     *
+     * @param  event the event to add.
+     * @return       this batch.
+     */
+    public Batch addEvent(final Event event) {
+        return addEvent(calendarId, event);
+    }
+
+    /**
+     * Adds an event to the given calendar.
+     *
+     * @param  calendar the ID of the calendar.
+     * @param  event    the event to add.
+     * @return          this batch.
+     */
+    public Batch addEvent(final UUID calendar, final Event event) {
+        operations.add(BatchOperation.addEvent(calendar, event));
+        return this;
+    }
+
+    /**
+     * Replaces the event in the calendar with the same ID as the given event.
+     *
+     * @param  event the new version of the event.
+     * @return       this batch.
+     */
+    public Batch editEvent(final Event event) {
+        return editEvent(calendarId, event);
+    }
+
+    /**
+     * Replaces the event in the given calendar with the same ID as the given
+     * event.
+     *
+     * @param  calendar the ID of the calendar.
+     * @param  event    the new version of the event.
+     * @return          this batch.
+     */
+    public Batch editEvent(final UUID calendar, final Event event) {
+        operations.add(BatchOperation.editEvent(calendar, event));
+        return this;
+    }
+
+    /**
+     * Removes an event from the calendar.
+     *
+     * @param  eventId the ID of the event to remove.
+     * @return         this batch.
+     */
+    public Batch removeEvent(final UUID eventId) {
+        return removeEvent(calendarId, eventId);
+    }
+
+    /**
+     * Removes an event from the given calendar.
+     *
+     * @param  calendar the ID of the calendar.
+     * @param  eventId  the ID of the event to remove.
+     * @return          this batch.
+     */
+    public Batch removeEvent(final UUID calendar, final UUID eventId) {
+        operations.add(BatchOperation.removeEvent(calendar, eventId));
+        return this;
+    }
+
+    /**
+     * Gets the number of changes in this batch.
+     *
+     * @return the number of changes.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Sends the changes to the server, and waits for the response.
+     *
+     * @return a {@link Result} containing the result of each change, in the
+     *         order they were added, or an error message if the batch could
+     *         not be sent.
+     */
+    public Result<List<BatchResult>, String> send() {
+        return RestHelper.sendBatch(List.copyOf(operations));
+    }
+
+    /**
+     * Sends the changes to the server in the background, like
+     * {@link #send()}.
+     *
+     * @return a future completed with a {@link Result} containing the result
+     *         of each change, or an error message. Cancelling it aborts the
+     *         request, though the server may already have made the changes.
+     */
+    public CompletableFuture<Result<List<BatchResult>, String>> sendAsync() {
+        return RestHelper.sendBatchAsync(List.copyOf(operations));
+    }
+}
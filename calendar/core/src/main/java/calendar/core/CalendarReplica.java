@@ -0,0 +1,193 @@
+package calendar.core;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import calendar.types.Change;
+import calendar.types.ChangeFeed;
+import calendar.types.Event;
+
+/**
+ * A local copy of the events of a calendar, kept up to date by
+ * {@link RestHelper#sync(CalendarReplica)} with only the changes made since
+ * it was last synced.
+ *
+ * <p>
+ * The replica starts out empty, and the first sync fills it with every event
+ * in the calendar. After that, each sync downloads just the events that were
+ * added, edited or removed in between, unless the server no longer knows them
+ * and sends every event again.
+ * </p>
+ * <p>
+ * The events are also kept sorted by start time, so the events of a week can
+ * be looked up without going through the whole history of the calendar.
+ * </p>
+ * <p>
+ * The replica is thread-safe. If two syncs overlap, the changes of the one
+ * that answers last are dropped, as they were asked for from a version the
+ * replica has moved past; the next sync picks them up.
+ * </p>
+ */
+public final class CalendarReplica {
+
+    /** The ID of the calendar. */
+    private final UUID calendarId;
+
+    /** The events of the calendar, by ID. */
+    private final Map<UUID, Event> events = new HashMap<>();
+
+    /** The events of the calendar, by start time and then ID. */
+    private final NavigableMap<LocalDateTime, NavigableMap<UUID, Event>>
+            byStartTime = new TreeMap<>();
+
+    /**
+     * The duration of the longest event the replica has held, which bounds
+     * how long before a range an event overlapping it can start. It never
+     * shrinks, which only makes lookups search further back than needed.
+     */
+    private Duration longest = Duration.ZERO;
+
+    /** The version the events are at, or {@code null} before the first sync. */
+    private String version;
+
+    /**
+     * Creates an empty replica of a calendar.
+     *
+     * @param  calendarId               the ID of the calendar; must not be
+     *                                  {@code null}.
+     * @throws IllegalArgumentException if {@code calendarId} is {@code null}.
+     */
+    public CalendarReplica(final UUID calendarId) {
+        if (calendarId == null)
+            throw new IllegalArgumentException("Calendar ID can't be null");
+        this.calendarId = calendarId;
+    }
+
+    /**
+     * Creates a replica of a calendar with the events it had when it was
+     * saved, so the next sync only fetches the changes since.
+     *
+     * @param calendarId the ID of the calendar
+     * @param version    the version the events are at
+     * @param events     the events of the calendar at that version
+     */
+    CalendarReplica(final UUID calendarId,
+            final String version,
+            final Collection<Event> events) {
+        this(calendarId);
+        this.version = version;
+        events.forEach(this::put);
+    }
+
+    /**
+     * Gets the ID of the calendar.
+     *
+     * @return the ID of the calendar
+     */
+    public UUID getCalendarId() {
+        return calendarId;
+    }
+
+    /**
+     * Gets the version of the calendar the events are at, as given by the
+     * server.
+     *
+     * @return an {@code Optional} containing the version, or an empty
+     *         {@code Optional} if the replica was never synced
+     */
+    public synchronized Optional<String> getVersion() {
+        return Optional.ofNullable(version);
+    }
+
+    /**
+     * Gets the events of the calendar, as of the last sync.
+     *
+     * @return a new {@link List} of the events, ordered by start time
+     */
+    public synchronized List<Event> getEvents() {
+        List<Event> sorted = new ArrayList<>(events.size());
+        byStartTime.values().forEach(ids -> sorted.addAll(ids.values()));
+        return sorted;
+    }
+
+    /**
+     * Gets the events of the calendar that overlap a range of time, as of the
+     * last sync. Events that end at the start of the range, or start at its
+     * end, count as overlapping it.
+     *
+     * @param  startTime the start of the range
+     * @param  endTime   the end of the range
+     * @return           a new {@link List} of the events, ordered by start
+     *                   time
+     */
+    public synchronized List<Event> getEvents(final LocalDateTime startTime,
+            final LocalDateTime endTime) {
+        List<Event> overlapping = new ArrayList<>();
+        if (endTime.isBefore(startTime)) return overlapping;
+
+        byStartTime.subMap(startTime.minus(longest), true, endTime, true)
+                .values().forEach(ids -> ids.values().stream()
+                        .filter(event -> !event.getEndTime()
+                                .isBefore(startTime))
+                        .forEach(overlapping::add));
+        return overlapping;
+    }
+
+    /**
+     * Applies the changes made since a version to the events.
+     *
+     * @param  since the version the changes were asked for since, or an empty
+     *               {@code Optional} if the replica had never been synced
+     * @param  feed  the changes
+     * @return       {@code true} if the changes were applied, {@code false} if
+     *               the replica is no longer at {@code since}
+     */
+    synchronized boolean apply(final Optional<String> since,
+            final ChangeFeed feed) {
+        if (!since.equals(getVersion())) return false;
+
+        if (feed.isReset()) {
+            events.clear();
+            byStartTime.clear();
+        }
+        for (Change change : feed.getChanges()) {
+            switch (change.getType()) {
+                case ADDED, EDITED -> put(change.getEvent());
+                case REMOVED -> remove(change.getEventId());
+                default -> throw new IllegalStateException(
+                        "Unknown change type " + change.getType());
+            }
+        }
+        version = feed.getVersion();
+        return true;
+    }
+
+    private void put(final Event event) {
+        remove(event.getId());
+        events.put(event.getId(), event);
+        byStartTime.computeIfAbsent(event.getStartTime(), t -> new TreeMap<>())
+                .put(event.getId(), event);
+
+        Duration duration =
+                Duration.between(event.getStartTime(), event.getEndTime());
+        if (duration.compareTo(longest) > 0) longest = duration;
+    }
+
+    private void remove(final UUID eventId) {
+        Event removed = events.remove(eventId);
+        if (removed == null) return;
+
+        NavigableMap<UUID, Event> ids = byStartTime.get(removed.getStartTime());
+        ids.remove(eventId);
+        if (ids.isEmpty()) byStartTime.remove(removed.getStartTime());
+    }
+}
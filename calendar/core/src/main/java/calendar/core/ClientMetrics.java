@@ -0,0 +1,339 @@
+package calendar.core;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Measurements of where the client spends its time, kept per operation, so a
+ * slow calendar can be traced to the network, to reading the responses or to
+ * drawing them.
+ *
+ * <p>
+ * {@link RestHelper} records every request under its endpoint, which is the
+ * method and path with IDs left out, like {@code GET /calendar/{id}}. For
+ * each endpoint it keeps a {@link LatencyHistogram} of each {@link Stage},
+ * the number of requests and errors, and the bytes sent and read. The user
+ * interface can record the time it spends drawing under names of its own.
+ * </p>
+ * <p>
+ * The metrics are thread-safe, and recording never blocks.
+ * </p>
+ */
+public final class ClientMetrics {
+
+    /** The parts of an operation that are timed. */
+    public enum Stage {
+        /**
+         * From sending a request until its body is ready to be read,
+         * including the time it waits for a session to be renewed.
+         */
+        NETWORK,
+        /**
+         * From when the body of a response is ready to be read until it has
+         * been read and parsed. Bodies are parsed as they are downloaded, so
+         * this includes the time spent waiting for the rest of a large body.
+         * The stream of changes of a calendar is read for as long as the
+         * subscription lasts.
+         */
+        PARSE,
+        /** Drawing what was read in the user interface. */
+        RENDER
+    }
+
+    /** The metrics of one endpoint, or of something else that is timed. */
+    public static final class Operation {
+        /** The name of the operation. */
+        private final String name;
+        /** The time spent in each stage. */
+        private final Map<Stage, LatencyHistogram> latencies =
+                new EnumMap<>(Stage.class);
+        /** The number of requests sent. */
+        private final LongAdder requests = new LongAdder();
+        /** The number of requests that failed. */
+        private final LongAdder errors = new LongAdder();
+        /** The number of bytes sent in the bodies of requests. */
+        private final LongAdder bytesSent = new LongAdder();
+        /** The number of bytes read from the bodies of responses. */
+        private final LongAdder bytesRead = new LongAdder();
+
+        Operation(final String name) {
+            this.name = name;
+            for (Stage stage : Stage.values())
+                latencies.put(stage, new LatencyHistogram());
+        }
+
+        /**
+         * Gets the name of the operation.
+         *
+         * @return the name, like {@code GET /calendar/{id}}
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the time spent in a stage of the operation.
+         *
+         * @param  stage the stage
+         * @return       the histogram of the time spent in the stage
+         */
+        public LatencyHistogram getLatency(final Stage stage) {
+            return latencies.get(stage);
+        }
+
+        /**
+         * Gets the number of requests sent.
+         *
+         * @return the number of requests
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        /**
+         * Gets the number of requests that failed, because the server could
+         * not be reached, answered with an error, or sent a response that
+         * could not be read.
+         *
+         * @return the number of errors
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * Gets the number of bytes sent in the bodies of requests.
+         *
+         * @return the number of bytes sent
+         */
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        /**
+         * Gets the number of bytes read from the bodies of responses, after
+         * they were decompressed. Bodies that were reused because the server
+         * answered that they were unchanged are counted too.
+         *
+         * @return the number of bytes read
+         */
+        public long getBytesRead() {
+            return bytesRead.sum();
+        }
+    }
+
+    /** A body that records how long it took to read, and its size. */
+    private static final class MeteredBody extends FilterInputStream {
+        /** The operation the body is the response of. */
+        private final Operation operation;
+        /** When the body was ready to be read. */
+        private final long start = System.nanoTime();
+        /** The number of bytes read so far. */
+        private long read;
+        /** Whether the body was closed, and recorded. */
+        private boolean closed;
+
+        MeteredBody(final Operation operation, final InputStream body) {
+            super(body);
+            this.operation = operation;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) read++;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset,
+                final int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) read += n;
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = super.skip(n);
+            read += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (closed) return;
+            closed = true;
+            operation.getLatency(Stage.PARSE)
+                    .record(System.nanoTime() - start);
+            operation.bytesRead.add(read);
+        }
+    }
+
+    /** The IDs in paths, which are left out of the endpoints. */
+    private static final Pattern ID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}"
+                    + "-[0-9a-fA-F]{12}");
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /** The number of bytes in a kilobyte. */
+    private static final double BYTES_PER_KILOBYTE = 1024;
+
+    /** The percentiles shown in the report. */
+    private static final double[] PERCENTILES = {50, 95};
+
+    /** The operations, by name. */
+    private final Map<String, Operation> operations =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Gets the metrics of an operation, starting them if it wasn't recorded
+     * before.
+     *
+     * @param  name the name of the operation
+     * @return      the metrics of the operation
+     */
+    public Operation getOperation(final String name) {
+        return operations.computeIfAbsent(name, Operation::new);
+    }
+
+    /**
+     * Gets the metrics of every operation that was recorded.
+     *
+     * @return a new {@link List} of the operations, ordered by name
+     */
+    public List<Operation> getOperations() {
+        return operations.values().stream()
+                .sorted(Comparator.comparing(Operation::getName)).toList();
+    }
+
+    /**
+     * Records the time spent in a stage of an operation.
+     *
+     * @param name  the name of the operation
+     * @param stage the stage
+     * @param nanos the time spent, in nanoseconds
+     */
+    public void record(final String name,
+            final Stage stage,
+            final long nanos) {
+        getOperation(name).getLatency(stage).record(nanos);
+    }
+
+    /**
+     * Records that an operation failed.
+     *
+     * @param name the name of the operation
+     */
+    public void recordError(final String name) {
+        getOperation(name).errors.increment();
+    }
+
+    /**
+     * Forgets every operation that was recorded.
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+    /**
+     * Describes the metrics of every operation, one operation at a time, with
+     * the median, 95th percentile and longest time spent in each stage.
+     *
+     * @return the description, over several lines
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Operation operation : getOperations()) {
+            report.append(operation.getName()).append(System.lineSeparator());
+            // Operations of the user interface are only timed
+            if (operation.getRequests() > 0)
+                report.append(String.format(
+                        "  %d requests, %d errors, %.1f kB sent,"
+                                + " %.1f kB read%n",
+                        operation.getRequests(), operation.getErrors(),
+                        operation.getBytesSent() / BYTES_PER_KILOBYTE,
+                        operation.getBytesRead() / BYTES_PER_KILOBYTE));
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram latency = operation.getLatency(stage);
+                if (latency.getCount() == 0) continue;
+                report.append(String.format("  %-7s", stage.name()
+                        .toLowerCase()));
+                for (double percentile : PERCENTILES)
+                    report.append(String.format(" p%.0f %s", percentile,
+                            millis(latency.getPercentile(percentile))));
+                report.append(String.format(" max %s%n",
+                                            millis(latency.getMax())));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Records that a request is sent.
+     *
+     * @param  request the request
+     * @return         the name of the endpoint the request is recorded under
+     */
+    String sent(final HttpRequest request) {
+        String name = endpoint(request);
+        Operation operation = getOperation(name);
+        operation.requests.increment();
+        operation.bytesSent.add(request.bodyPublisher()
+                .map(HttpRequest.BodyPublisher::contentLength)
+                .filter(length -> length > 0).orElse(0L));
+        return name;
+    }
+
+    /**
+     * Wraps the body of a response, so the time it takes to read and its size
+     * are recorded when it is closed.
+     *
+     * @param  name the name of the operation the body is the response of
+     * @param  body the body
+     * @return      the body, which must be closed once it has been read
+     */
+    InputStream meter(final String name, final InputStream body) {
+        return new MeteredBody(getOperation(name), body);
+    }
+
+    /**
+     * Records that the body of a response could not be read. Bodies that were
+     * not wrapped by {@link #meter(String, InputStream)} are ignored.
+     *
+     * @param body the body
+     */
+    void failed(final InputStream body) {
+        if (body instanceof MeteredBody metered)
+            metered.operation.errors.increment();
+    }
+
+    /**
+     * Gets the endpoint a request is recorded under, which is its method and
+     * path, with IDs replaced by {@code {id}}.
+     *
+     * @param  request the request
+     * @return         the name of the endpoint
+     */
+    static String endpoint(final HttpRequest request) {
+        return request.method() + " "
+                + ID.matcher(request.uri().getPath()).replaceAll("{id}");
+    }
+
+    private static String millis(final Duration duration) {
+        return String.format("%.1f ms", duration.toNanos() / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,108 @@
+package calendar.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A cache of the last body of responses that came with an entity tag, so the
+ * same request can be sent again with the tag in its "If-None-Match" header,
+ * and a "304 Not Modified" response answered from the cache.
+ *
+ * <p>
+ * Responses are cached by a key that identifies the request, and the least
+ * recently used response is evicted when the cache is full.
+ * </p>
+ */
+public final class ETagCache {
+
+    /** A cached response body, with the entity tag it was sent with. */
+    public static final class Entry {
+        /** The entity tag of the body, as sent by the server. */
+        private final String tag;
+        /** The body of the response, uncompressed. */
+        private final byte[] body;
+
+        Entry(final String tag, final byte[] body) {
+            this.tag = tag;
+            this.body = body;
+        }
+
+        /**
+         * Gets the entity tag the body was sent with.
+         *
+         * @return the entity tag, as sent by the server
+         */
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * Gets the cached body, as a new stream every time.
+         *
+         * @return a stream of the uncompressed body
+         */
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+    }
+
+    /** The cached responses, from least to most recently used. */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param  capacity                 the number of responses the cache
+     *                                  holds; must be positive.
+     * @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+    public ETagCache(final int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+
+        this.entries = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached response for a request.
+     *
+     * @param  key the key identifying the request
+     * @return     an {@code Optional} containing the cached response, or an
+     *             empty {@code Optional} if none is cached
+     */
+    public synchronized Optional<Entry> get(final String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    /**
+     * Caches the response for a request, replacing any earlier response.
+     *
+     * @param  key  the key identifying the request
+     * @param  tag  the entity tag the response was sent with
+     * @param  body the body of the response, uncompressed
+     * @return      the cached response
+     */
+    public synchronized Entry put(final String key,
+            final String tag,
+            final byte[] body) {
+        Entry entry = new Entry(tag, body);
+        entries.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Removes every cached response.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
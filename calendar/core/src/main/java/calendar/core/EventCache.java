@@ -0,0 +1,214 @@
+package calendar.core;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import calendar.types.Event;
+import no.gorandalum.fluentresult.Result;
+
+/**
+ * A cache of the events of calendars within time windows, so a window that
+ * was viewed recently is served from memory instead of the server.
+ *
+ * <p>
+ * The cache holds the requests for a number of windows, and evicts the least
+ * recently used window when it is full. A request is cached while it is in
+ * flight, so asking for a window that is already being fetched doesn't send
+ * the request again. Requests that fail are not cached.
+ * </p>
+ * <p>
+ * Weeks are fetched with {@link #getWeek(UUID, LocalDate)}, which also
+ * prefetches the weeks before and after in the background, so paging through
+ * weeks is served from memory. The windows of a calendar should be
+ * invalidated with {@link #invalidate(UUID)} when its events are changed.
+ * </p>
+ */
+public final class EventCache {
+
+    /** The smallest capacity, which fits a week and the weeks around it. */
+    private static final int MIN_CAPACITY = 3;
+
+    /** Loads the events of a calendar within a time window. */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Starts loading the events of a calendar within a time window.
+         *
+         * @param  calendarId the ID of the calendar
+         * @param  after      the start of the window
+         * @param  before     the end of the window
+         * @return            a future completed with the events, or an error
+         *                    message
+         */
+        CompletableFuture<Result<List<Event>, String>> load(UUID calendarId,
+                LocalDateTime after,
+                LocalDateTime before);
+    }
+
+    /** A time window of a calendar, which the requests are cached by. */
+    private static final class Window {
+        /** The ID of the calendar. */
+        private final UUID calendarId;
+        /** The start of the window. */
+        private final LocalDateTime after;
+        /** The end of the window. */
+        private final LocalDateTime before;
+
+        Window(final UUID calendarId,
+                final LocalDateTime after,
+                final LocalDateTime before) {
+            this.calendarId = calendarId;
+            this.after = after;
+            this.before = before;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Window window
+                    && calendarId.equals(window.calendarId)
+                    && after.equals(window.after)
+                    && before.equals(window.before);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(calendarId, after, before);
+        }
+    }
+
+    /** Loads the windows that are not cached. */
+    private final Loader loader;
+
+    /** The requests for each window, from least to most recently used. */
+    private final Map<Window,
+            CompletableFuture<Result<List<Event>, String>>> windows;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param  capacity                 the number of windows the cache holds;
+     *                                  must be at least 3, to fit a week and
+     *                                  the weeks around it.
+     * @param  loader                   loads the windows that are not cached;
+     *                                  must not be {@code null}.
+     * @throws IllegalArgumentException if {@code capacity} is less than 3, or
+     *                                  {@code loader} is {@code null}.
+     */
+    public EventCache(final int capacity, final Loader loader) {
+        if (capacity < MIN_CAPACITY)
+            throw new IllegalArgumentException("Capacity must be at least "
+                    + MIN_CAPACITY);
+        if (loader == null)
+            throw new IllegalArgumentException("Loader can't be null");
+
+        this.loader = loader;
+        this.windows = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Window,
+                    CompletableFuture<Result<List<Event>, String>>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the events of a calendar within a time window, from the cache if
+     * the window is cached, and otherwise from the loader.
+     *
+     * <p>
+     * Cancelling the returned future doesn't cancel the request, which is
+     * still cached when it completes.
+     * </p>
+     *
+     * @param  calendarId the ID of the calendar
+     * @param  after      the start of the window
+     * @param  before     the end of the window
+     * @return            a future completed with the events, or an error
+     *                    message
+     */
+    public CompletableFuture<Result<List<Event>, String>> get(
+            final UUID calendarId,
+            final LocalDateTime after,
+            final LocalDateTime before) {
+        return fetch(new Window(calendarId, after, before)).copy();
+    }
+
+    /**
+     * Gets the events of a calendar within the week of the given day, from
+     * Monday to Sunday, and prefetches the weeks before and after it.
+     *
+     * @param  calendarId the ID of the calendar
+     * @param  day        a day in the week
+     * @return            a future completed with the events, or an error
+     *                    message
+     * @see               #get(UUID, LocalDateTime, LocalDateTime)
+     */
+    public CompletableFuture<Result<List<Event>, String>> getWeek(
+            final UUID calendarId,
+            final LocalDate day) {
+        CompletableFuture<Result<List<Event>, String>> week =
+                fetch(week(calendarId, day));
+
+        fetch(week(calendarId, day.minusWeeks(1)));
+        fetch(week(calendarId, day.plusWeeks(1)));
+
+        return week.copy();
+    }
+
+    /**
+     * Removes every cached window of a calendar, so they are fetched again
+     * the next time they are asked for.
+     *
+     * @param calendarId the ID of the calendar
+     */
+    public synchronized void invalidate(final UUID calendarId) {
+        windows.keySet().removeIf(window -> window.calendarId
+                .equals(calendarId));
+    }
+
+    /**
+     * Removes every cached window.
+     */
+    public synchronized void clear() {
+        windows.clear();
+    }
+
+    private static Window week(final UUID calendarId, final LocalDate day) {
+        return new Window(calendarId,
+                          LocalDateTime.of(day.with(DayOfWeek.MONDAY),
+                                           LocalTime.MIN),
+                          LocalDateTime.of(day.with(DayOfWeek.SUNDAY),
+                                           LocalTime.MAX));
+    }
+
+    private synchronized CompletableFuture<Result<List<Event>, String>> fetch(
+            final Window window) {
+        CompletableFuture<Result<List<Event>, String>> cached =
+                windows.get(window);
+        if (cached != null) return cached;
+
+        CompletableFuture<Result<List<Event>, String>> request =
+                loader.load(window.calendarId, window.after, window.before);
+        windows.put(window, request);
+
+        // Failed requests are not cached, so they are tried again
+        request.whenComplete((result, e) -> {
+            if (e != null) forget(window, request);
+            else result.runIfError(() -> forget(window, request));
+        });
+        return request;
+    }
+
+    private synchronized void forget(final Window window,
+            final CompletableFuture<Result<List<Event>, String>> request) {
+        windows.remove(window, request);
+    }
+}
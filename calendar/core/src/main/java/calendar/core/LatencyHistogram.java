@@ -0,0 +1,158 @@
+package calendar.core;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of how long something took, which keeps counts in buckets
+ * instead of every measurement, so it takes the same memory however much it
+ * records.
+ *
+ * <p>
+ * Each power of two microseconds is split into four buckets, so a percentile
+ * is off by at most a quarter of its value. Durations below four microseconds
+ * are exact, and durations of more than 33 hours all land in the last bucket.
+ * </p>
+ * <p>
+ * The histogram is thread-safe, and recording never blocks.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    /** The number of bits of each duration that pick its bucket. */
+    private static final int SUB_BITS = 2;
+
+    /** The number of buckets each power of two is split into. */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** The number of buckets, which reach 33 hours in microseconds. */
+    private static final int BUCKETS = 144;
+
+    /** The number of durations in each bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** The number of durations recorded. */
+    private final AtomicLong count = new AtomicLong();
+
+    /** The sum of the durations recorded, in nanoseconds. */
+    private final AtomicLong total = new AtomicLong();
+
+    /** The longest duration recorded, in nanoseconds. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds; negative durations are
+     *              recorded as zero
+     */
+    public void record(final long nanos) {
+        long duration = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(TimeUnit.NANOSECONDS
+                .toMicros(duration)));
+        count.incrementAndGet();
+        total.addAndGet(duration);
+        max.accumulateAndGet(duration, Math::max);
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return the number of durations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the mean of the durations recorded.
+     *
+     * @return the mean, or zero if nothing was recorded
+     */
+    public Duration getMean() {
+        long n = count.get();
+        return Duration.ofNanos(n == 0 ? 0 : total.get() / n);
+    }
+
+    /**
+     * Gets the longest duration recorded.
+     *
+     * @return the longest duration, or zero if nothing was recorded
+     */
+    public Duration getMax() {
+        return Duration.ofNanos(max.get());
+    }
+
+    /**
+     * Gets a percentile of the durations recorded, as the upper bound of the
+     * bucket it falls in.
+     *
+     * @param  percentile               the percentile, from 0 to 100
+     * @return                          the duration that this share of the
+     *                                  durations took at most, or zero if
+     *                                  nothing was recorded
+     * @throws IllegalArgumentException if {@code percentile} is not between 0
+     *                                  and 100.
+     */
+    public Duration getPercentile(final double percentile) {
+        final double hundred = 100;
+        if (percentile < 0 || percentile > hundred)
+            throw new IllegalArgumentException(
+                    "Percentile must be between 0 and 100");
+
+        long n = count.get();
+        if (n == 0) return Duration.ZERO;
+
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / hundred));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long upper = TimeUnit.MICROSECONDS.toNanos(lowerBound(i + 1));
+                return Duration.ofNanos(Math.min(max.get(), upper - 1));
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Forgets every duration recorded.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Gets the bucket a duration falls in.
+     *
+     * @param  micros the duration, in microseconds
+     * @return        the index of the bucket
+     */
+    static int bucket(final long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+
+        // The highest bit picks the power of two, the next bits the bucket
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(SUB_BUCKETS * (exponent - 1) + sub, BUCKETS - 1);
+    }
+
+    /**
+     * Gets the shortest duration that falls in a bucket.
+     *
+     * @param  index the index of the bucket
+     * @return       the shortest duration, in microseconds
+     */
+    static long lowerBound(final int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int exponent = index / SUB_BUCKETS + 1;
+        long sub = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+}
@@ -0,0 +1,189 @@
+package calendar.core;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import calendar.persistence.Persistence;
+import calendar.types.Calendar;
+import calendar.types.Event;
+import calendar.types.LocalCopy;
+import calendar.types.User;
+import no.gorandalum.fluentresult.VoidResult;
+
+/**
+ * A copy of a user and the events of their calendars that is kept on disk
+ * between runs, so the calendar can be shown as soon as the application
+ * starts, before the server has answered, or even if it can't be reached.
+ *
+ * <p>
+ * The copy is only as new as the last time it was saved. The user is replaced
+ * whenever it is fetched again, and each calendar is a
+ * {@link CalendarReplica}, which {@link RestHelper#sync(CalendarReplica)}
+ * brings up to date with only the changes made since it was saved.
+ * </p>
+ * <p>
+ * Each user has their own file, named after the username, in the directory
+ * given by the {@value #DIRECTORY_PROPERTY} system property, or
+ * {@code .calendar} in the home directory of the user running the
+ * application. The file is written with {@link Persistence}, so it is never
+ * left half written.
+ * </p>
+ * <p>
+ * The replica is thread-safe.
+ * </p>
+ */
+public final class LocalReplica {
+
+    /** The system property naming the directory of the replica files. */
+    public static final String DIRECTORY_PROPERTY = "calendar.replica.dir";
+
+    /** The directory of the replica files, under the home directory. */
+    private static final String DEFAULT_DIRECTORY = ".calendar";
+
+    /** The file the replica is saved to. */
+    private final Path file;
+
+    /** The user, or {@code null} if it was never fetched. */
+    private User user;
+
+    /** The replicas of the calendars, by calendar ID. */
+    private final Map<UUID, CalendarReplica> calendars = new HashMap<>();
+
+    /**
+     * Held while the replica is saved, so saves write the file in the order
+     * they took their copies, without holding up reads of the replica.
+     */
+    private final Object saving = new Object();
+
+    /**
+     * Opens the replica saved in a file. If the file doesn't exist, or can't be
+     * read, the replica starts out empty, and is saved over it.
+     *
+     * @param  file                     the file the replica is saved to; must
+     *                                  not be {@code null}.
+     * @throws IllegalArgumentException if {@code file} is {@code null}.
+     */
+    public LocalReplica(final Path file) {
+        if (file == null)
+            throw new IllegalArgumentException("File can't be null");
+        this.file = file;
+
+        if (!Files.exists(file)) return;
+        try {
+            LocalCopy copy =
+                    Persistence.read(LocalCopy.class, file.toString());
+            user = copy.getUser();
+            copy.getVersions().forEach((calendarId, version) -> calendars
+                    .put(calendarId, new CalendarReplica(calendarId, version,
+                            copy.getEvents().getOrDefault(calendarId,
+                                                          List.of()))));
+        } catch (IOException e) {
+            // An unreadable copy is only a slower start, not an error
+            user = null;
+            calendars.clear();
+        }
+    }
+
+    /**
+     * Opens the replica of a user, saved in their file in the directory given
+     * by the {@value #DIRECTORY_PROPERTY} system property.
+     *
+     * @param  username                 the username of the user; must not be
+     *                                  {@code null}.
+     * @return                          the replica of the user
+     * @throws IllegalArgumentException if {@code username} is {@code null}.
+     */
+    public static LocalReplica forUser(final String username) {
+        if (username == null)
+            throw new IllegalArgumentException("Username can't be null");
+
+        Path directory = Path.of(System.getProperty(DIRECTORY_PROPERTY,
+                Path.of(System.getProperty("user.home"), DEFAULT_DIRECTORY)
+                        .toString()));
+        return new LocalReplica(directory.resolve(
+                URLEncoder.encode(username, StandardCharsets.UTF_8)
+                        + ".json"));
+    }
+
+    /**
+     * Gets the user, as last fetched from the server.
+     *
+     * @return an {@code Optional} containing the user, or an empty
+     *         {@code Optional} if it was never fetched
+     */
+    public synchronized Optional<User> getUser() {
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * Replaces the user with a newer one fetched from the server. The replicas
+     * of calendars the user no longer has are dropped.
+     *
+     * @param  user                     the user; must not be {@code null}.
+     * @throws IllegalArgumentException if {@code user} is {@code null}.
+     */
+    public synchronized void setUser(final User user) {
+        if (user == null)
+            throw new IllegalArgumentException("User can't be null");
+
+        this.user = user;
+        Set<UUID> kept = user.getCalendars().stream()
+                .map(Calendar::getCalendarId).collect(Collectors.toSet());
+        calendars.keySet().retainAll(kept);
+    }
+
+    /**
+     * Gets the replica of a calendar, which is empty until it is first synced.
+     *
+     * @param  calendarId the ID of the calendar
+     * @return            the replica of the calendar
+     */
+    public synchronized CalendarReplica getCalendar(final UUID calendarId) {
+        return calendars.computeIfAbsent(calendarId, CalendarReplica::new);
+    }
+
+    /**
+     * Saves the user and the events of every calendar that has been synced to
+     * the file of the replica, replacing what was saved before.
+     * <p>
+     * Only the copy of the replica is taken while it is locked; the file is
+     * written after, so the replica can be read while it is saved.
+     * </p>
+     *
+     * @return a {@link VoidResult} indicating success or an error message.
+     */
+    public VoidResult<String> save() {
+        synchronized (saving) {
+            LocalCopy copy = copy();
+            try {
+                Path directory = file.toAbsolutePath().getParent();
+                if (directory != null) Files.createDirectories(directory);
+                Persistence.write(copy, file.toString());
+                return VoidResult.success();
+            } catch (IOException e) {
+                return VoidResult.error("Could not save the local replica");
+            }
+        }
+    }
+
+    private synchronized LocalCopy copy() {
+        Map<UUID, String> versions = new HashMap<>();
+        Map<UUID, List<Event>> events = new HashMap<>();
+        calendars.values().forEach(replica -> replica.getVersion()
+                .ifPresent(version -> {
+                    versions.put(replica.getCalendarId(), version);
+                    events.put(replica.getCalendarId(), replica.getEvents());
+                }));
+        return new LocalCopy(user, versions, events);
+    }
+}
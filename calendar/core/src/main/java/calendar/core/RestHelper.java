@@ -1,21 +1,37 @@
 package calendar.core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 import calendar.persistence.Persistence;
+import calendar.types.BatchOperation;
+import calendar.types.BatchResult;
+import calendar.types.Change;
+import calendar.types.ChangeFeed;
 import calendar.types.Event;
+import calendar.types.EventCodec;
 import calendar.types.EventType;
 import calendar.types.User;
 import javafx.scene.paint.Color;
@@ -30,6 +46,60 @@ import no.gorandalum.fluentresult.VoidResult;
  * and events. This class relies on HTTP communication with the server specified
  * by {@link #serverAddress}.
  * </p>
+ * <p>
+ * After {@link #login()}, requests are authenticated with a session token
+ * instead of the password, so the server only checks the password once. If the
+ * session has expired, the helper logs in again and repeats the request.
+ * </p>
+ * <p>
+ * Every request asks for a response compressed with gzip, which is unpacked
+ * as it is read. Events are asked for in the compact binary format of
+ * {@link EventCodec}, which is smaller than JSON and faster to read.
+ * </p>
+ * <p>
+ * Each request also has an {@code Async} variant, which sends it in the
+ * background and returns a {@link CompletableFuture} instead of waiting for
+ * the response. The response is read and parsed on the threads of the
+ * {@link HttpClient}, so the variants can be called from the JavaFX
+ * application thread without blocking it. Cancelling the future aborts the
+ * request.
+ * </p>
+ * <p>
+ * The events of whole weeks are cached by {@link #getWeekAsync(LocalDate)},
+ * which also prefetches the weeks around them. The cached weeks of a calendar
+ * are dropped whenever its events are changed through this class.
+ * </p>
+ * <p>
+ * Reads of the user and of events that are made while the same read is
+ * already in flight, for instance by the user interface and a prefetch at
+ * once, wait for that request instead of sending their own. See
+ * {@link SingleFlight}.
+ * </p>
+ * <p>
+ * Responses that come with an entity tag, like the events of a calendar, are
+ * kept with their tag. The next time the same request is sent, the tag is sent
+ * along in the "If-None-Match" header, and the kept response is used if the
+ * server answers that it is unchanged.
+ * </p>
+ * <p>
+ * A whole calendar can be kept in a {@link CalendarReplica}, which
+ * {@link #sync(CalendarReplica)} keeps up to date by fetching only the events
+ * that changed since it was last synced. The calendars of the user are kept
+ * on disk between runs in a {@link #getLocalReplica() LocalReplica}.
+ * </p>
+ * <p>
+ * Instead of asking the server for changes, a client can also
+ * {@link #subscribe(Consumer, Runnable) subscribe} to the changes of a
+ * calendar, which the server then pushes as they are made.
+ * </p>
+ * <p>
+ * Many event changes can be sent in one request by collecting them in a
+ * {@link #batch()}.
+ * </p>
+ * <p>
+ * The time each request spends on the network and being read, its size, and
+ * whether it failed are recorded in the {@link #getMetrics() metrics}.
+ * </p>
  *
  * @see java.net.http.HttpClient
  */
@@ -47,18 +117,69 @@ public final class RestHelper {
     /** The password for authenticating API requests. */
     protected static String password;
 
+    /**
+     * The token of the current session, sent instead of the password once the
+     * user has logged in. It is only replaced once a new session is started,
+     * as requests on other threads read it while they are sent.
+     */
+    protected static volatile String token;
+
     /**
      * The calendar ID for identifying the specific calendar associated with
      * requests.
      */
     protected static UUID calendarId;
 
+    /**
+     * The local replica of the user's calendars, opened when it is first asked
+     * for, and dropped when the credentials change.
+     */
+    protected static LocalReplica localReplica;
+
+    /** The number of weeks of events that are cached. */
+    private static final int CACHED_WEEKS = 16;
+
+    /** The cache of the events of the weeks viewed recently. */
+    protected static final EventCache EVENT_CACHE =
+            new EventCache(CACHED_WEEKS, RestHelper::loadEvents);
+
+    /** The number of responses with entity tags that are cached. */
+    private static final int TAGGED_WINDOWS = 64;
+
+    /**
+     * The last response to each request that came with an entity tag, used
+     * to answer the request when the server says it is unchanged.
+     */
+    protected static final ETagCache TAGGED_RESPONSES =
+            new ETagCache(TAGGED_WINDOWS);
+
+    /** The reads of events in flight, shared by callers asking at once. */
+    protected static final SingleFlight<String, Result<List<Event>, String>>
+            EVENT_READS = new SingleFlight<>();
+
+    /** The reads of the user in flight, shared by callers asking at once. */
+    protected static final SingleFlight<String, Result<User, String>>
+            USER_READS = new SingleFlight<>();
+
+    /** Where the time of the requests goes, by endpoint. */
+    protected static final ClientMetrics METRICS = new ClientMetrics();
+
+    /** The formats events are asked for in, binary before JSON. */
+    private static final String EVENTS_ACCEPT =
+            EventCodec.MEDIA_TYPE + ", application/json;q=0.5";
+
     /** Status code group for {@code Successful responses}. */
     private static final int SUCCESSFUL_RESPONSES = 200;
 
     /** Status code group for {@code Redirection messages}. */
     private static final int REDIRECTION_MESSAGES = 300;
 
+    /** Status code for {@code resource not modified}. */
+    private static final int NOT_MODIFIED = 304;
+
+    /** Status code for {@code unauthenticated}. */
+    private static final int UNAUTHORIZED = 401;
+
     private RestHelper() {
     }
 
@@ -74,6 +195,10 @@ public final class RestHelper {
             throw new IllegalArgumentException("Server address can't be null");
 
         serverAddress = address;
+        EVENT_CACHE.clear();
+        TAGGED_RESPONSES.clear();
+        EVENT_READS.clear();
+        USER_READS.clear();
     }
 
     /**
@@ -93,6 +218,12 @@ public final class RestHelper {
 
         RestHelper.username = username;
         RestHelper.password = password;
+        RestHelper.token = null;
+        RestHelper.localReplica = null;
+        EVENT_CACHE.clear();
+        TAGGED_RESPONSES.clear();
+        EVENT_READS.clear();
+        USER_READS.clear();
     }
 
     /**
@@ -109,6 +240,30 @@ public final class RestHelper {
         RestHelper.calendarId = calendarId;
     }
 
+    /**
+     * Gets the local replica of the calendars of the user whose credentials
+     * are set, opening it from disk the first time it is asked for.
+     *
+     * @return a {@link Result} containing the replica, or an error message if
+     *         the credentials are not set.
+     */
+    public static synchronized Result<LocalReplica, String> getLocalReplica() {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+        if (localReplica == null)
+            localReplica = LocalReplica.forUser(username);
+        return Result.success(localReplica);
+    }
+
+    /**
+     * Gets the metrics of the requests sent by this class, with the time spent
+     * on the network and reading the responses of each endpoint.
+     *
+     * @return the metrics, which are shared by every caller
+     */
+    public static ClientMetrics getMetrics() {
+        return METRICS;
+    }
+
     private static boolean hasCredentials() {
         return username != null && password != null;
     }
@@ -117,31 +272,314 @@ public final class RestHelper {
         return calendarId != null;
     }
 
-    private static Result<String, String> fetch(final HttpRequest request) {
-        HttpResponse<String> response;
+    private static Builder authorize(final Builder requestBuilder) {
+        if (token != null) return requestBuilder.header("token", token);
+        return requestBuilder.header("username", username)
+                .header("password", password);
+    }
+
+    private static Result<InputStream, String> send(
+            final HttpRequest request) {
+        return send(request, true);
+    }
+
+    private static Result<InputStream, String> send(final HttpRequest request,
+            final boolean renewSession) {
+        Optional<ETagCache.Entry> cached = cached(request);
+        String endpoint = METRICS.sent(request);
+        long sent = System.nanoTime();
+        HttpResponse<InputStream> response;
         try {
-            response = client.send(request, BodyHandlers.ofString());
+            response = client.send(acceptGzip(revalidate(request, cached)),
+                                   BodyHandlers.ofInputStream());
         } catch (IOException | InterruptedException e) {
             System.out.println(e);
+            METRICS.recordError(endpoint);
             return Result.error("Could not reach server");
         }
 
+        // Session expired, log in again and repeat the request once
+        if (renewSession && sessionExpired(request, response)) {
+            readBody(response.body());
+            return startSession().mapError(error -> "Session expired")
+                    .flatMap(newToken -> send(withToken(request, newToken),
+                                              false));
+        }
+
+        return measure(endpoint, sent, respond(request, cached, response));
+    }
+
+    private static CompletableFuture<Result<InputStream, String>> sendAsync(
+            final HttpRequest request,
+            final boolean renewSession,
+            final CompletableFuture<?> caller) {
+        Optional<ETagCache.Entry> cached = cached(request);
+        String endpoint = METRICS.sent(request);
+        long sent = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> response = client
+                .sendAsync(acceptGzip(revalidate(request, cached)),
+                           BodyHandlers.ofInputStream());
+
+        // Cancelling the caller's future aborts the exchange
+        caller.whenComplete((value, e) -> {
+            if (caller.isCancelled()) response.cancel(true);
+        });
+
+        return response.handle((r, e) -> {
+            if (e != null && !caller.isCancelled())
+                METRICS.recordError(endpoint);
+            if (e != null)
+                return CompletableFuture.completedFuture(
+                        Result.<InputStream, String>error(
+                                "Could not reach server"));
+
+            // Session expired, log in again and repeat the request once
+            if (renewSession && sessionExpired(request, r)) {
+                readBody(r.body());
+                return startSessionAsync().thenCompose(session -> session
+                        .map(newToken -> sendAsync(withToken(request, newToken),
+                                                   false, caller))
+                        .orElse(CompletableFuture.completedFuture(
+                                Result.<InputStream, String>error(
+                                        "Session expired"))));
+            }
+
+            return CompletableFuture.completedFuture(
+                    measure(endpoint, sent, respond(request, cached, r)));
+        }).thenCompose(Function.identity());
+    }
+
+    private static Result<InputStream, String> measure(final String endpoint,
+            final long sent,
+            final Result<InputStream, String> response) {
+        METRICS.record(endpoint, ClientMetrics.Stage.NETWORK,
+                       System.nanoTime() - sent);
+        return response.map(body -> METRICS.meter(endpoint, body))
+                .mapError(error -> {
+                    METRICS.recordError(endpoint);
+                    return error;
+                });
+    }
+
+    private static boolean sessionExpired(final HttpRequest request,
+            final HttpResponse<InputStream> response) {
+        return response.statusCode() == UNAUTHORIZED
+                && request.headers().firstValue("token").isPresent();
+    }
+
+    private static HttpRequest withToken(final HttpRequest request,
+            final String newToken) {
+        return HttpRequest
+                .newBuilder(request,
+                            (name, value) -> !name.equalsIgnoreCase("token"))
+                .header("token", newToken).build();
+    }
+
+    private static Result<InputStream, String> respond(
+            final HttpRequest request,
+            final Optional<ETagCache.Entry> cached,
+            final HttpResponse<InputStream> response) {
+        // Unchanged since the cached response, which is used instead
+        if (response.statusCode() == NOT_MODIFIED && cached.isPresent()) {
+            readBody(response.body());
+            return Result.success(cached.get().getBody());
+        }
+
         if (response.statusCode() < SUCCESSFUL_RESPONSES
                 || response.statusCode() >= REDIRECTION_MESSAGES)
-            return Result.error(response.body());
+            return decode(response).flatMap(RestHelper::readBody)
+                    .flatMap(Result::error);
+
+        Optional<String> tag = response.headers().firstValue("ETag");
+        Optional<String> key = cacheKey(request);
+        if (tag.isEmpty() || key.isEmpty()) return decode(response);
+        return decode(response).flatMap(body -> remember(key.get(),
+                                                         tag.get(),
+                                                         body));
+    }
+
+    private static Optional<String> cacheKey(final HttpRequest request) {
+        if (!request.method().equals("GET")) return Optional.empty();
+
+        // The URI and the headers that select the events identify the body
+        return Optional.of(request.uri() + " "
+                + request.headers().firstValue("before").orElse("") + " "
+                + request.headers().firstValue("after").orElse(""));
+    }
+
+    private static Optional<ETagCache.Entry> cached(final HttpRequest request) {
+        return cacheKey(request).flatMap(TAGGED_RESPONSES::get);
+    }
 
-        return Result.success(response.body());
+    private static HttpRequest revalidate(final HttpRequest request,
+            final Optional<ETagCache.Entry> cached) {
+        if (cached.isEmpty()) return request;
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("If-None-Match", cached.get().getTag()).build();
+    }
+
+    private static Result<InputStream, String> remember(final String key,
+            final String tag,
+            final InputStream body) {
+        try (InputStream in = body) {
+            return Result.success(TAGGED_RESPONSES
+                    .put(key, tag, in.readAllBytes()).getBody());
+        } catch (IOException e) {
+            return Result.error("Could not read response");
+        }
     }
 
-    private static <T> Function<String, Result<T, String>> fromJSON(
+    private static HttpRequest acceptGzip(final HttpRequest request) {
+        if (request.headers().firstValue("Accept-Encoding").isPresent())
+            return request;
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Accept-Encoding", "gzip").build();
+    }
+
+    private static Result<InputStream, String> decode(
+            final HttpResponse<InputStream> response) {
+        if (response.headers().firstValue("Content-Encoding")
+                .filter("gzip"::equalsIgnoreCase).isEmpty())
+            return Result.success(response.body());
+
+        try {
+            return Result.success(new GZIPInputStream(response.body()));
+        } catch (IOException e) {
+            return Result.error("Could not read response");
+        }
+    }
+
+    private static Result<String, String> fetch(final HttpRequest request) {
+        return send(request).flatMap(RestHelper::readBody);
+    }
+
+    private static <T> Result<T, String> fetch(final HttpRequest request,
             final Class<T> objectType) {
-        return json -> {
-            try {
-                return Result.success(Persistence.fromJSON(objectType, json));
-            } catch (IOException e) {
-                return Result.error(e.getMessage());
-            }
-        };
+        return send(request).flatMap(body -> readObject(body, objectType));
+    }
+
+    private static <R> CompletableFuture<R> fetchAsync(
+            final Result<HttpRequest, String> request,
+            final Function<Result<InputStream, String>, R> reader) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+
+        // The body is read on the client's threads, never the caller's
+        request.consumeError(error -> result
+                .complete(reader.apply(Result.error(error))))
+                .consume(r -> sendAsync(r, true, result).thenApply(reader)
+                        .thenAccept(result::complete));
+
+        return result;
+    }
+
+    private static <T> CompletableFuture<Result<T, String>> coalesce(
+            final SingleFlight<String, Result<T, String>> flights,
+            final Result<HttpRequest, String> request,
+            final Function<Result<InputStream, String>, Result<T, String>>
+                    reader) {
+        // Requests that can't be made fail at once, and are never shared
+        Optional<String> key = request.map(RestHelper::flightKey)
+                .map(Optional::of).orElse(Optional.empty());
+        return key.map(k -> flights.async(k, () -> fetchAsync(request, reader)))
+                .orElseGet(() -> fetchAsync(request, reader));
+    }
+
+    private static String flightKey(final HttpRequest request) {
+        // Requests for the same body, sent as the same user
+        return cacheKey(request).orElse(request.uri().toString()) + " "
+                + request.headers().firstValue("token").orElse(username);
+    }
+
+    private static VoidResult<String> discardBody(
+            final Result<InputStream, String> response) {
+        return response.flatMap(RestHelper::readBody).toVoidResult();
+    }
+
+    private static <T> T changed(final UUID calendar, final T result) {
+        // A failed response doesn't prove the events were left unchanged
+        invalidate(calendar);
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> changedAsync(final UUID calendar,
+            final CompletableFuture<T> result) {
+        // Callers go on once the events are invalidated, not before
+        return result.whenComplete((value, e) -> invalidate(calendar));
+    }
+
+    private static void invalidate(final UUID calendar) {
+        // Reads sent before the change must not answer reads sent after it
+        EVENT_READS.clear();
+        USER_READS.clear();
+        if (calendar != null) EVENT_CACHE.invalidate(calendar);
+    }
+
+    private static <T> Result<T, String> readObject(final InputStream body,
+            final Class<T> objectType) {
+        // Parse the JSON straight from the connection
+        try (InputStream in = body) {
+            return Result.success(Persistence.readFrom(objectType, in));
+        } catch (IOException e) {
+            METRICS.failed(body);
+            return Result.error(e.getMessage());
+        }
+    }
+
+    private static Result<String, String> readBody(final InputStream body) {
+        try (InputStream in = body) {
+            return Result.success(new String(in.readAllBytes(),
+                                              StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            METRICS.failed(body);
+            return Result.error("Could not read response");
+        }
+    }
+
+    /**
+     * Logs in to the server with the set credentials, starting a session that
+     * is used to authenticate later requests.
+     *
+     * @return a {@link VoidResult} indicating success or an error message.
+     */
+    public static VoidResult<String> login() {
+        return startSession().toVoidResult();
+    }
+
+    /**
+     * Logs in to the server in the background, like {@link #login()}.
+     *
+     * @return a future completed with a {@link VoidResult} indicating success
+     *         or an error message.
+     */
+    public static CompletableFuture<VoidResult<String>> loginAsync() {
+        return startSessionAsync().thenApply(Result::toVoidResult);
+    }
+
+    private static Result<String, String> startSession() {
+        return loginRequest().flatMap(RestHelper::fetch)
+                .map(RestHelper::newSession);
+    }
+
+    private static CompletableFuture<Result<String, String>>
+            startSessionAsync() {
+        return fetchAsync(loginRequest(),
+                          response -> response.flatMap(RestHelper::readBody)
+                                  .map(RestHelper::newSession));
+    }
+
+    private static String newSession(final String newToken) {
+        // Requests sent meanwhile keep the old session until this one starts
+        token = newToken;
+        return newToken;
+    }
+
+    private static Result<HttpRequest, String> loginRequest() {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+
+        return Result.success(HttpRequest.newBuilder()
+                .uri(URI.create(serverAddress + "/login/" + username))
+                .POST(BodyPublishers.noBody()).header("password", password)
+                .build());
     }
 
     /**
@@ -151,13 +589,32 @@ public final class RestHelper {
      *         or an error message if the operation fails.
      */
     public static Result<User, String> getUser() {
-        if (!hasCredentials()) return Result.error("Credentials are not set");
+        return userRequest().flatMap(request -> USER_READS
+                .get(flightKey(request), () -> fetch(request, User.class)));
+    }
+
+    /**
+     * Fetches the details of the current user from the server in the
+     * background, like {@link #getUser()}.
+     *
+     * @return a future completed with a {@link Result} containing the
+     *         {@link User} object on success, or an error message if the
+     *         operation fails. Cancelling it aborts the request.
+     */
+    public static CompletableFuture<Result<User, String>> getUserAsync() {
+        return coalesce(USER_READS,
+                        userRequest(),
+                        response -> response
+                                .flatMap(body -> readObject(body,
+                                                            User.class)));
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(serverAddress + "/users/" + username)).GET()
-                .header("password", password).build();
+    private static Result<HttpRequest, String> userRequest() {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
 
-        return fetch(request).flatMap(fromJSON(User.class));
+        return Result.success(authorize(HttpRequest.newBuilder()
+                .uri(URI.create(serverAddress + "/users/" + username)).GET())
+                .build());
     }
 
     /**
@@ -166,15 +623,27 @@ public final class RestHelper {
      * @return a {@link VoidResult} indicating success or an error message.
      */
     public static VoidResult<String> addUser() {
-        if (!hasCredentials())
-            return VoidResult.error("Credentials are not set");
+        return addUserRequest().flatMap(RestHelper::fetch).toVoidResult();
+    }
+
+    /**
+     * Adds a new user to the server in the background, like
+     * {@link #addUser()}.
+     *
+     * @return a future completed with a {@link VoidResult} indicating success
+     *         or an error message. Cancelling it aborts the request.
+     */
+    public static CompletableFuture<VoidResult<String>> addUserAsync() {
+        return fetchAsync(addUserRequest(), RestHelper::discardBody);
+    }
+
+    private static Result<HttpRequest, String> addUserRequest() {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
 
-        HttpRequest request = HttpRequest.newBuilder()
+        return Result.success(HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/users/" + username))
                 .POST(BodyPublishers.noBody()).header("password", password)
-                .build();
-
-        return fetch(request).toVoidResult();
+                .build());
     }
 
     /**
@@ -184,17 +653,40 @@ public final class RestHelper {
      * @return      a {@link VoidResult} indicating success or an error message.
      */
     public static VoidResult<String> addCalendar(final Optional<String> name) {
-        if (!hasCredentials())
-            return VoidResult.error("Credentials are not set");
+        // No events of the new calendar are cached yet, but the user changed
+        return changed(null,
+                       addCalendarRequest(name).flatMap(RestHelper::fetch)
+                               .toVoidResult());
+    }
+
+    /**
+     * Adds a new calendar to the server in the background, like
+     * {@link #addCalendar(Optional)}.
+     *
+     * @param  name the optional name of the calendar to be added.
+     * @return      a future completed with a {@link VoidResult} indicating
+     *              success or an error message. Cancelling it aborts the
+     *              request.
+     */
+    public static CompletableFuture<VoidResult<String>> addCalendarAsync(
+            final Optional<String> name) {
+        return changedAsync(null,
+                            fetchAsync(addCalendarRequest(name),
+                                       RestHelper::discardBody));
+    }
+
+    private static Result<HttpRequest, String> addCalendarRequest(
+            final Optional<String> name) {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
 
         Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/calendar"))
-                .POST(BodyPublishers.noBody()).header("username", username)
-                .header("password", password);
+                .POST(BodyPublishers.noBody());
+        authorize(requestBuilder);
 
         name.map(calName -> requestBuilder.header("name", calName));
 
-        return fetch(requestBuilder.build()).toVoidResult();
+        return Result.success(requestBuilder.build());
     }
 
     /**
@@ -204,17 +696,34 @@ public final class RestHelper {
      * @return a {@link VoidResult} indicating success or an error message.
      */
     public static VoidResult<String> removeCalendar() {
-        if (!hasCredentials())
-            return VoidResult.error("Credentials are not set");
-        if (!hasCalendarId()) return VoidResult.error("Calendar ID is not set");
+        return changed(calendarId,
+                       removeCalendarRequest().flatMap(RestHelper::fetch)
+                               .toVoidResult());
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
+    /**
+     * Removes the calendar identified by the set {@code calendarId} from the
+     * server in the background, like {@link #removeCalendar()}.
+     *
+     * @return a future completed with a {@link VoidResult} indicating success
+     *         or an error message. Cancelling it aborts the request.
+     */
+    public static CompletableFuture<VoidResult<String>> removeCalendarAsync() {
+        return changedAsync(calendarId,
+                            fetchAsync(removeCalendarRequest(),
+                                       RestHelper::discardBody));
+    }
+
+    private static Result<HttpRequest, String> removeCalendarRequest() {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+        if (!hasCalendarId()) return Result.error("Calendar ID is not set");
+
+        Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/calendar"
                         + calendarId.toString()))
-                .DELETE().header("username", username)
-                .header("password", password).build();
+                .DELETE();
 
-        return fetch(request).toVoidResult();
+        return Result.success(authorize(requestBuilder).build());
     }
 
     /**
@@ -231,20 +740,356 @@ public final class RestHelper {
     public static Result<List<Event>, String> getEvents(
             final Optional<LocalDateTime> before,
             final Optional<LocalDateTime> after) {
+        return eventsRequest(before, after).flatMap(request -> EVENT_READS
+                .get(flightKey(request),
+                     () -> send(request).flatMap(RestHelper::readEventList)));
+    }
+
+    /**
+     * Retrieves the events for the calendar in the background, like
+     * {@link #getEvents(Optional, Optional)}.
+     *
+     * @param  before an optional date to filter events that occur before this
+     *                date.
+     * @param  after  an optional date to filter events that occur after this
+     *                date.
+     * @return        a future completed with a {@link Result} containing a
+     *                list of {@link Event} objects on success, or an error
+     *                message if the operation fails. Cancelling it aborts the
+     *                request.
+     */
+    public static CompletableFuture<Result<List<Event>, String>> getEventsAsync(
+            final Optional<LocalDateTime> before,
+            final Optional<LocalDateTime> after) {
+        return coalesce(EVENT_READS,
+                        eventsRequest(before, after),
+                        RestHelper::readEvents);
+    }
+
+    /**
+     * Retrieves the events for the calendar within the week of the given day,
+     * from Monday to Sunday, from the cache if the week was viewed recently.
+     * The weeks before and after it are fetched in the background, so they are
+     * cached when they are viewed next.
+     *
+     * @param  day a day in the week.
+     * @return     a future completed with a {@link Result} containing a list
+     *             of {@link Event} objects on success, or an error message if
+     *             the operation fails. Cancelling it doesn't abort the
+     *             request, whose response is still cached.
+     */
+    public static CompletableFuture<Result<List<Event>, String>> getWeekAsync(
+            final LocalDate day) {
+        if (!hasCredentials())
+            return CompletableFuture
+                    .completedFuture(Result.error("Credentials are not set"));
+        if (!hasCalendarId())
+            return CompletableFuture
+                    .completedFuture(Result.error("Calendar ID is not set"));
+
+        return EVENT_CACHE.getWeek(calendarId, day);
+    }
+
+    private static CompletableFuture<Result<List<Event>, String>> loadEvents(
+            final UUID calendar,
+            final LocalDateTime after,
+            final LocalDateTime before) {
+        return coalesce(EVENT_READS,
+                        Result.success(eventsRequest(calendar,
+                                                     Optional.of(before),
+                                                     Optional.of(after))),
+                        RestHelper::readEvents);
+    }
+
+    private static Result<List<Event>, String> readEvents(
+            final Result<InputStream, String> response) {
+        return response.flatMap(RestHelper::readEventList);
+    }
+
+    private static Result<List<Event>, String> readEventList(
+            final InputStream body) {
+        // Events are binary, unless the server only knows how to send JSON
+        try (InputStream in = new BufferedInputStream(body)) {
+            if (EventCodec.isEncoded(in))
+                return Result.success(EventCodec.read(in));
+            return Result.success(List.of(Persistence.readFrom(Event[].class,
+                                                               in)));
+        } catch (IOException e) {
+            METRICS.failed(body);
+            return Result.error("Could not read events");
+        }
+    }
+
+    private static Result<HttpRequest, String> eventsRequest(
+            final Optional<LocalDateTime> before,
+            final Optional<LocalDateTime> after) {
         if (!hasCredentials()) return Result.error("Credentials are not set");
         if (!hasCalendarId()) return Result.error("Calendar ID is not set");
 
+        return Result.success(eventsRequest(calendarId, before, after));
+    }
+
+    private static HttpRequest eventsRequest(final UUID calendar,
+            final Optional<LocalDateTime> before,
+            final Optional<LocalDateTime> after) {
         Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/calendar/"
-                        + calendarId.toString()))
-                .GET().header("username", username)
-                .header("password", password);
+                        + calendar.toString()))
+                .header("Accept", EVENTS_ACCEPT)
+                .GET();
+        authorize(requestBuilder);
 
         before.map(date -> requestBuilder.header("before", date.toString()));
         after.map(date -> requestBuilder.header("after", date.toString()));
 
-        return fetch(requestBuilder.build()).flatMap(fromJSON(Event[].class))
+        return requestBuilder.build();
+    }
+
+    /**
+     * Brings a replica of a calendar up to date, by fetching the events that
+     * were added, edited or removed since it was last synced. A replica that
+     * was never synced, or whose changes the server no longer knows, gets
+     * every event in the calendar.
+     *
+     * @param  replica the replica to update.
+     * @return         a {@link VoidResult} indicating success or an error
+     *                 message.
+     */
+    public static VoidResult<String> sync(final CalendarReplica replica) {
+        Optional<String> since = replica.getVersion();
+        return changesRequest(replica.getCalendarId(), since)
+                .flatMap(request -> fetch(request, ChangeFeed.class))
+                .consume(feed -> replica.apply(since, feed)).toVoidResult();
+    }
+
+    /**
+     * Brings a replica of a calendar up to date in the background, like
+     * {@link #sync(CalendarReplica)}.
+     *
+     * @param  replica the replica to update.
+     * @return         a future completed with a {@link VoidResult} indicating
+     *                 success or an error message. Cancelling it aborts the
+     *                 request, and leaves the replica as it was.
+     */
+    public static CompletableFuture<VoidResult<String>> syncAsync(
+            final CalendarReplica replica) {
+        Optional<String> since = replica.getVersion();
+        return fetchAsync(changesRequest(replica.getCalendarId(), since),
+                          response -> response
+                                  .flatMap(body -> readObject(body,
+                                                              ChangeFeed.class))
+                                  .consume(feed -> replica.apply(since, feed))
+                                  .toVoidResult());
+    }
+
+    private static Result<HttpRequest, String> changesRequest(
+            final UUID calendar,
+            final Optional<String> since) {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+
+        String query = since.map(version -> "?since="
+                + URLEncoder.encode(version, StandardCharsets.UTF_8))
+                .orElse("");
+        Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(serverAddress + "/calendar/"
+                        + calendar.toString() + "/changes" + query))
+                .GET();
+        authorize(requestBuilder);
+
+        return Result.success(requestBuilder.build());
+    }
+
+    /**
+     * Subscribes to the changes made to the calendar, which the server pushes
+     * over a long-lived connection as they are made. The cached weeks of the
+     * calendar are dropped before the listeners are called.
+     *
+     * <p>
+     * The listeners are called on a background thread, in the order the
+     * changes were made. The changes that arrive together, such as those of a
+     * batch, are passed on in one call, so a burst of changes is handled
+     * once. The subscription lasts until the connection is lost or the
+     * returned future is cancelled.
+     * </p>
+     *
+     * @param  onChange called with the changes to the calendar that arrived
+     *                  together, in the order they were made.
+     * @param  onReset  called when the server could not tell what changed,
+     *                  and the whole calendar should be fetched again.
+     * @return          a future completed with a {@link VoidResult} when the
+     *                  subscription ends, holding an error message if it ended
+     *                  because of an error. Cancelling it ends the
+     *                  subscription.
+     */
+    public static CompletableFuture<VoidResult<String>> subscribe(
+            final Consumer<List<Change>> onChange,
+            final Runnable onReset) {
+        CompletableFuture<VoidResult<String>> result =
+                new CompletableFuture<>();
+        if (!hasCredentials())
+            return CompletableFuture.completedFuture(
+                    VoidResult.error("Credentials are not set"));
+        if (!hasCalendarId())
+            return CompletableFuture.completedFuture(
+                    VoidResult.error("Calendar ID is not set"));
+
+        UUID calendar = calendarId;
+        Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(serverAddress + "/calendar/"
+                        + calendar.toString() + "/stream"))
+                .GET();
+        authorize(requestBuilder);
+
+        // The stream is read on a virtual thread, as it stays open
+        sendAsync(requestBuilder.build(), true, result)
+                .thenAccept(response -> response
+                        .consumeError(error -> result
+                                .complete(VoidResult.error(error)))
+                        .consume(body -> Thread.ofVirtual()
+                                .start(() -> result.complete(readStream(
+                                        calendar, body, onChange, onReset,
+                                        result)))));
+
+        return result;
+    }
+
+    private static VoidResult<String> readStream(final UUID calendar,
+            final InputStream body,
+            final Consumer<List<Change>> onChange,
+            final Runnable onReset,
+            final CompletableFuture<?> caller) {
+        // Cancelling the subscription closes the connection
+        caller.whenComplete((value, e) -> {
+            if (!caller.isCancelled()) return;
+            try {
+                body.close();
+            } catch (IOException closeError) {
+                // Nobody waits for the stream any more, so there is no one
+                // to tell
+            }
+        });
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String event = "";
+            StringBuilder data = new StringBuilder();
+            List<Change> changes = new ArrayList<>();
+            for (String line = reader.readLine();
+                    line != null && !caller.isDone();
+                    line = reader.readLine()) {
+                if (line.startsWith("event:")) {
+                    event = fieldValue(line);
+                } else if (line.startsWith("data:")) {
+                    if (!data.isEmpty()) data.append('\n');
+                    data.append(fieldValue(line));
+                } else if (line.isEmpty()) {
+                    // A blank line ends the event
+                    dispatch(calendar, event, data.toString(), changes,
+                             onChange, onReset);
+                    event = "";
+                    data.setLength(0);
+
+                    // Changes that arrived together are passed on together
+                    if (!reader.ready())
+                        deliver(calendar, changes, onChange);
+                }
+            }
+            if (!caller.isDone()) deliver(calendar, changes, onChange);
+            return VoidResult.success();
+        } catch (IOException e) {
+            return VoidResult.error("Lost connection to server");
+        }
+    }
+
+    private static String fieldValue(final String line) {
+        String value = line.substring(line.indexOf(':') + 1);
+        return value.startsWith(" ") ? value.substring(1) : value;
+    }
+
+    private static void dispatch(final UUID calendar,
+            final String event,
+            final String data,
+            final List<Change> changes,
+            final Consumer<List<Change>> onChange,
+            final Runnable onReset) throws IOException {
+        if (event.equals("change")) {
+            changes.add(Persistence.fromJSON(Change.class, data));
+        } else if (event.equals("reset")) {
+            // The changes before the reset are still passed on first
+            deliver(calendar, changes, onChange);
+            invalidate(calendar);
+            onReset.run();
+        }
+    }
+
+    private static void deliver(final UUID calendar,
+            final List<Change> changes,
+            final Consumer<List<Change>> onChange) {
+        if (changes.isEmpty()) return;
+        invalidate(calendar);
+        onChange.accept(List.copyOf(changes));
+        changes.clear();
+    }
+
+    /**
+     * Starts a batch of event changes, which are sent to the server together
+     * in one request. Changes that don't name a calendar are made to the
+     * calendar that is set now.
+     *
+     * @return an empty {@link Batch}.
+     */
+    public static Batch batch() {
+        return new Batch(calendarId);
+    }
+
+    static Result<List<BatchResult>, String> sendBatch(
+            final List<BatchOperation> operations) {
+        if (operations.isEmpty()) return Result.success(List.of());
+
+        Result<List<BatchResult>, String> results = batchRequest(operations)
+                .flatMap(request -> fetch(request, BatchResult[].class))
                 .map(List::of);
+        operations.forEach(operation -> changed(operation.getCalendarId(),
+                                                results));
+        return results;
+    }
+
+    static CompletableFuture<Result<List<BatchResult>, String>> sendBatchAsync(
+            final List<BatchOperation> operations) {
+        if (operations.isEmpty())
+            return CompletableFuture.completedFuture(Result.success(List.of()));
+
+        CompletableFuture<Result<List<BatchResult>, String>> results =
+                fetchAsync(batchRequest(operations),
+                           response -> response
+                                   .flatMap(body -> readObject(body,
+                                           BatchResult[].class))
+                                   .map(List::of));
+        // Callers go on once the events are invalidated, not before
+        return results.whenComplete((value, e) -> operations
+                .forEach(operation -> invalidate(operation.getCalendarId())));
+    }
+
+    private static Result<HttpRequest, String> batchRequest(
+            final List<BatchOperation> operations) {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+        if (operations.stream().anyMatch(o -> o.getCalendarId() == null))
+            return Result.error("Calendar ID is not set");
+
+        String body;
+        try {
+            body = Persistence.toJSON(operations);
+        } catch (IOException e) {
+            return Result.error("Could not write batch");
+        }
+
+        Builder requestBuilder = HttpRequest.newBuilder()
+                .uri(URI.create(serverAddress + "/batch"))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        authorize(requestBuilder);
+
+        return Result.success(requestBuilder.build());
     }
 
     /**
@@ -265,15 +1110,63 @@ public final class RestHelper {
             final Optional<LocalDateTime> endTime,
             final Optional<Color> color,
             final Optional<EventType> type) {
-        if (!hasCredentials())
-            return VoidResult.error("Credentials are not set");
-        if (!hasCalendarId()) return VoidResult.error("Calendar ID is not set");
+        return changed(calendarId,
+                       addEventRequest(title,
+                                       description,
+                                       startTime,
+                                       endTime,
+                                       color,
+                                       type)
+                               .flatMap(RestHelper::fetch).toVoidResult());
+    }
+
+    /**
+     * Adds an event to the calendar in the background, like
+     * {@link #addEvent(Optional, Optional, Optional, Optional, Optional,
+     * Optional)}.
+     *
+     * @param  title       the optional title of the event.
+     * @param  description the optional description of the event.
+     * @param  startTime   the optional start time of the event.
+     * @param  endTime     the optional end time of the event.
+     * @param  color       the optional color of the event.
+     * @param  type        the optional type of the event.
+     * @return             a future completed with a {@code VoidResult}
+     *                     indicating success or an error message. Cancelling
+     *                     it aborts the request.
+     */
+    public static CompletableFuture<VoidResult<String>> addEventAsync(
+            final Optional<String> title,
+            final Optional<String> description,
+            final Optional<LocalDateTime> startTime,
+            final Optional<LocalDateTime> endTime,
+            final Optional<Color> color,
+            final Optional<EventType> type) {
+        return changedAsync(calendarId,
+                            fetchAsync(addEventRequest(title,
+                                                       description,
+                                                       startTime,
+                                                       endTime,
+                                                       color,
+                                                       type),
+                                       RestHelper::discardBody));
+    }
+
+    private static Result<HttpRequest, String> addEventRequest(
+            final Optional<String> title,
+            final Optional<String> description,
+            final Optional<LocalDateTime> startTime,
+            final Optional<LocalDateTime> endTime,
+            final Optional<Color> color,
+            final Optional<EventType> type) {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+        if (!hasCalendarId()) return Result.error("Calendar ID is not set");
 
         Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/event/"
                         + calendarId.toString()))
-                .POST(BodyPublishers.noBody()).header("username", username)
-                .header("password", password);
+                .POST(BodyPublishers.noBody());
+        authorize(requestBuilder);
 
         title.map(t -> requestBuilder.header("title", t));
         description.map(d -> requestBuilder.header("description", d));
@@ -283,7 +1176,7 @@ public final class RestHelper {
         color.map(c -> requestBuilder.header("color", c.toString()));
         type.map(t -> requestBuilder.header("type", t.toString()));
 
-        return fetch(requestBuilder.build()).toVoidResult();
+        return Result.success(requestBuilder.build());
     }
 
     /**
@@ -294,19 +1187,40 @@ public final class RestHelper {
      *                 message.
      */
     public static VoidResult<String> removeEvent(final UUID eventId) {
-        if (!hasCredentials())
-            return VoidResult.error("Credentials are not set");
-        if (!hasCalendarId()) return VoidResult.error("Calendar ID is not set");
+        return changed(calendarId,
+                       removeEventRequest(eventId).flatMap(RestHelper::fetch)
+                               .toVoidResult());
+    }
+
+    /**
+     * Removes an event from the calendar in the background, like
+     * {@link #removeEvent(UUID)}.
+     *
+     * @param  eventId the ID of the event to be removed.
+     * @return         a future completed with a {@code VoidResult} indicating
+     *                 success or an error message. Cancelling it aborts the
+     *                 request.
+     */
+    public static CompletableFuture<VoidResult<String>> removeEventAsync(
+            final UUID eventId) {
+        return changedAsync(calendarId,
+                            fetchAsync(removeEventRequest(eventId),
+                                       RestHelper::discardBody));
+    }
+
+    private static Result<HttpRequest, String> removeEventRequest(
+            final UUID eventId) {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+        if (!hasCalendarId()) return Result.error("Calendar ID is not set");
 
-        HttpRequest request = HttpRequest.newBuilder()
+        Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/event/"
                         + calendarId.toString()
                         + "/"
                         + eventId.toString()))
-                .DELETE().header("username", username)
-                .header("password", password).build();
+                .DELETE();
 
-        return fetch(request).toVoidResult();
+        return Result.success(authorize(requestBuilder).build());
     }
 
     /**
@@ -330,17 +1244,71 @@ public final class RestHelper {
             final Optional<LocalDateTime> endTime,
             final Optional<Color> color,
             final Optional<EventType> type) {
-        if (!hasCredentials())
-            return VoidResult.error("Credentials are not set");
-        if (!hasCalendarId()) return VoidResult.error("Calendar ID is not set");
+        return changed(calendarId,
+                       editEventRequest(eventId,
+                                        title,
+                                        description,
+                                        startTime,
+                                        endTime,
+                                        color,
+                                        type)
+                               .flatMap(RestHelper::fetch).toVoidResult());
+    }
+
+    /**
+     * Edits an existing event's details in the background, like
+     * {@link #editEvent(UUID, Optional, Optional, Optional, Optional,
+     * Optional, Optional)}.
+     *
+     * @param  eventId     the ID of the event to be edited.
+     * @param  title       an optional new title for the event.
+     * @param  description an optional new description for the event.
+     * @param  startTime   an optional new start time for the event.
+     * @param  endTime     an optional new end time for the event.
+     * @param  color       an optional new color for the event.
+     * @param  type        an optional new type for the event.
+     *
+     * @return             a future completed with a {@code VoidResult}
+     *                     indicating success or an error message if the
+     *                     operation fails. Cancelling it aborts the request.
+     */
+    public static CompletableFuture<VoidResult<String>> editEventAsync(
+            final UUID eventId,
+            final Optional<String> title,
+            final Optional<String> description,
+            final Optional<LocalDateTime> startTime,
+            final Optional<LocalDateTime> endTime,
+            final Optional<Color> color,
+            final Optional<EventType> type) {
+        return changedAsync(calendarId,
+                            fetchAsync(editEventRequest(eventId,
+                                                        title,
+                                                        description,
+                                                        startTime,
+                                                        endTime,
+                                                        color,
+                                                        type),
+                                       RestHelper::discardBody));
+    }
+
+    private static Result<HttpRequest, String> editEventRequest(
+            final UUID eventId,
+            final Optional<String> title,
+            final Optional<String> description,
+            final Optional<LocalDateTime> startTime,
+            final Optional<LocalDateTime> endTime,
+            final Optional<Color> color,
+            final Optional<EventType> type) {
+        if (!hasCredentials()) return Result.error("Credentials are not set");
+        if (!hasCalendarId()) return Result.error("Calendar ID is not set");
 
         Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(serverAddress + "/event/"
                         + calendarId.toString()
                         + "/"
                         + eventId.toString()))
-                .method("PATCH", BodyPublishers.noBody())
-                .header("username", username).header("password", password);
+                .method("PATCH", BodyPublishers.noBody());
+        authorize(requestBuilder);
 
         title.map(t -> requestBuilder.header("title", t));
         description.map(d -> requestBuilder.header("description", d));
@@ -350,6 +1318,6 @@ public final class RestHelper {
         color.map(c -> requestBuilder.header("color", c.toString()));
         type.map(t -> requestBuilder.header("type", t.toString()));
 
-        return fetch(requestBuilder.build()).toVoidResult();
+        return Result.success(requestBuilder.build());
     }
 }
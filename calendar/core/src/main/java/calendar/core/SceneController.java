@@ -0,0 +1,21 @@
+package calendar.core;
+
+/**
+ * A controller of a scene that {@link SceneCore} keeps after it is loaded,
+ * and shows again instead of loading it anew.
+ * <p>
+ * As the same controller is shown every time, it must not start anything that
+ * depends on the signed in user while it is loaded, since the scene may be
+ * loaded in the background before anyone signs in. That is done in
+ * {@link #onShow()} instead, which also clears what was left from the last
+ * time the scene was shown.
+ * </p>
+ */
+public interface SceneController {
+
+    /**
+     * Called on the JavaFX application thread each time the scene is set on
+     * the stage, before it is shown.
+     */
+    void onShow();
+}
@@ -1,9 +1,14 @@
 package calendar.core;
 
 import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
@@ -12,12 +17,42 @@ import javafx.stage.Stage;
  * switching between {@link Scene} objects in a JavaFX application. It provides
  * static methods for setting a scene loader, configuring the stage, and
  * switching scenes by name.
+ * <p>
+ * Scenes that are set by name are kept with their controllers once they are
+ * loaded, so switching back to a scene doesn't parse its FXML again. A
+ * controller that implements {@link SceneController} is told each time its
+ * scene is shown again. Scenes can also be {@link #preload(String) preloaded}
+ * in the background, so the first switch to them is instant as well.
+ * </p>
  */
 public final class SceneCore {
     private SceneCore() {
 
     }
 
+    /** A scene that was loaded, and its controller. */
+    private static final class Loaded {
+        /** The root of the scene. */
+        private final Parent root;
+        /** The controller of the scene, or {@code null} if it has none. */
+        private final Object controller;
+        /** The scene, which is made the first time it is shown. */
+        private Scene scene;
+
+        Loaded(final Parent root, final Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+    }
+
+    /** Loads the scenes that are preloaded, each on a thread of its own. */
+    private static final Executor PRELOADER = runnable -> Thread.ofPlatform()
+            .name("scene-preload").daemon().start(runnable);
+
+    /** The scenes that were loaded, or are being loaded, by name. */
+    private static final Map<String, CompletableFuture<Loaded>> SCENES =
+            new ConcurrentHashMap<>();
+
     /** The loader function to load the scene provided. */
     private static Function<String, URL> loader;
 
@@ -33,6 +68,7 @@ public final class SceneCore {
      */
     public static void setLoader(final Function<String, URL> loader) {
         SceneCore.loader = loader;
+        SCENES.clear();
     }
 
     /**
@@ -69,14 +105,60 @@ public final class SceneCore {
         }
     }
 
+    /**
+     * Starts loading a scene in the background, unless it is already loaded,
+     * so it is ready when it is set. Only the nodes and the controller are
+     * loaded, as a {@link Scene} can only be made on the JavaFX application
+     * thread.
+     *
+     * @param name the name of the scene to load
+     */
+    public static void preload(final String name) {
+        SCENES.computeIfAbsent(name, key -> CompletableFuture
+                .supplyAsync(() -> load(getSceneUrl(key)), PRELOADER));
+    }
+
     /**
      * Sets the {@link Scene} of the primary {@link Stage} based on the scene
      * name.
+     * <p>
+     * The scene is loaded the first time it is set, or taken from the
+     * background if it is being preloaded, and kept for the next time. If
+     * its controller is a {@link SceneController}, it is told that the scene
+     * is shown. A scene that can't be loaded is not kept, and the stage is
+     * left without a scene.
+     * </p>
      *
      * @param name the name of the scene to set
      */
     public static void setScene(final String name) {
-        stage.setScene(getScene(getSceneUrl(name)));
+        CompletableFuture<Loaded> loading = SCENES.get(name);
+        if (loading == null) {
+            loading = CompletableFuture
+                    .completedFuture(load(getSceneUrl(name)));
+            SCENES.putIfAbsent(name, loading);
+        }
+
+        Loaded loaded = loading.join();
+        if (loaded == null) {
+            SCENES.remove(name, loading);
+            stage.setScene(null);
+            return;
+        }
+        if (loaded.scene == null) loaded.scene = new Scene(loaded.root);
+        if (loaded.controller instanceof SceneController controller)
+            controller.onShow();
+        stage.setScene(loaded.scene);
+    }
+
+    private static Loaded load(final URL location) {
+        try {
+            FXMLLoader fxmlLoader = new FXMLLoader(location);
+            Parent root = fxmlLoader.load();
+            return new Loaded(root, fxmlLoader.getController());
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     /**
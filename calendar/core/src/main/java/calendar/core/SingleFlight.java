@@ -0,0 +1,180 @@
+package calendar.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Merges identical requests made at the same time into one, so a request is
+ * only sent once however many callers wait for it.
+ *
+ * <p>
+ * Requests are identified by a key. While a request is in flight, every caller
+ * asking for the same key waits for it instead of sending its own, and gets
+ * the same result. Once the request completes, the next caller sends a new
+ * one, so results are never reused after the fact.
+ * </p>
+ *
+ * <p>
+ * Each caller of {@link #async(Object, Supplier)} gets its own future.
+ * Cancelling it only stops that caller from waiting; the request itself is
+ * cancelled once every caller waiting for it has cancelled.
+ * </p>
+ *
+ * @param <K> the type of the keys identifying the requests
+ * @param <V> the type of the results of the requests
+ */
+public final class SingleFlight<K, V> {
+
+    /** A request in flight, and the number of callers waiting for it. */
+    private static final class Flight<V> {
+        /** The result of the request, shared by every caller. */
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        /** The request, once it is sent, which is cancelled if unwanted. */
+        private CompletableFuture<V> request;
+        /** The number of callers still waiting for the result. */
+        private int waiters;
+    }
+
+    /** The requests in flight, by key. */
+    private final Map<K, Flight<V>> flights = new HashMap<>();
+
+    /**
+     * Gets the result of a request in the background, sending it only if the
+     * same request isn't already in flight.
+     *
+     * @param  key     the key identifying the request
+     * @param  request sends the request, if it has to be sent
+     * @return         a future completed with the result of the request.
+     *                 Cancelling it cancels the request if no other caller is
+     *                 waiting for it.
+     */
+    public CompletableFuture<V> async(final K key,
+            final Supplier<CompletableFuture<V>> request) {
+        Flight<V> flight;
+        boolean sent;
+        synchronized (this) {
+            flight = flights.get(key);
+            sent = flight != null;
+            if (!sent) {
+                flight = new Flight<>();
+                flights.put(key, flight);
+            }
+            flight.waiters++;
+        }
+        if (!sent) send(key, flight, request);
+        return waitFor(key, flight);
+    }
+
+    /**
+     * Gets the result of a request, sending it on the calling thread only if
+     * the same request isn't already in flight.
+     *
+     * @param  key     the key identifying the request
+     * @param  request sends the request and waits for the result, if it has
+     *                 to be sent
+     * @return         the result of the request
+     */
+    public V get(final K key, final Supplier<V> request) {
+        Flight<V> flight;
+        boolean sent;
+        synchronized (this) {
+            flight = flights.get(key);
+            sent = flight != null;
+            if (!sent) {
+                flight = new Flight<>();
+                // Never cancelled, as this caller can't stop waiting
+                flight.request = flight.result;
+                flights.put(key, flight);
+            }
+            flight.waiters++;
+        }
+
+        if (sent) {
+            try {
+                return flight.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                throw e;
+            }
+        }
+
+        try {
+            V value = request.get();
+            land(key, flight);
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            land(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops new callers from waiting for the requests in flight, so they send
+     * their own. Used when the results of those requests may be out of date.
+     * Callers already waiting still get their results.
+     */
+    public synchronized void clear() {
+        flights.clear();
+    }
+
+    private CompletableFuture<V> waitFor(final K key, final Flight<V> flight) {
+        CompletableFuture<V> waiter = new CompletableFuture<>();
+        flight.result.whenComplete((value, e) -> {
+            if (e == null) {
+                waiter.complete(value);
+            } else {
+                waiter.completeExceptionally(e);
+            }
+        });
+        waiter.whenComplete((value, e) -> {
+            if (waiter.isCancelled()) leave(key, flight);
+        });
+        return waiter;
+    }
+
+    private void send(final K key,
+            final Flight<V> flight,
+            final Supplier<CompletableFuture<V>> request) {
+        CompletableFuture<V> sent;
+        try {
+            sent = request.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+
+        synchronized (this) {
+            flight.request = sent;
+        }
+        // Callers that come after the result must send a new request
+        sent.whenComplete((value, e) -> {
+            land(key, flight);
+            if (e == null) {
+                flight.result.complete(value);
+            } else {
+                flight.result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private synchronized void land(final K key, final Flight<V> flight) {
+        flights.remove(key, flight);
+    }
+
+    private void leave(final K key, final Flight<V> flight) {
+        CompletableFuture<V> unwanted;
+        synchronized (this) {
+            flight.waiters--;
+            if (flight.waiters > 0 || flight.request == null) return;
+            flights.remove(key, flight);
+            unwanted = flight.request;
+        }
+        unwanted.cancel(true);
+        flight.result.cancel(true);
+    }
+}
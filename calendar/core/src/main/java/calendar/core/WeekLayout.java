@@ -0,0 +1,288 @@
+package calendar.core;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import calendar.types.Event;
+import calendar.types.EventType;
+
+/**
+ * Where the events of a week are drawn in a grid with a column for each day
+ * and a row for each hour, worked out ahead of drawing them.
+ *
+ * <p>
+ * Each regular event is split into a {@link Segment} for each day it covers,
+ * and events that overlap in the same day are put side by side instead of on
+ * top of each other. A day is swept once from top to bottom: each segment
+ * takes the leftmost lane that is free when it starts, and segments that
+ * overlap one another, directly or through other segments, split the width of
+ * the day into as many lanes as the busiest hour among them needs. Sorting the
+ * segments and keeping the lanes in heaps makes this take O(n log n) time.
+ * </p>
+ * <p>
+ * All-day events are given a row each, in the order they are listed, and span
+ * the days they cover.
+ * </p>
+ * <p>
+ * A layout only depends on the events it is computed from, so it can be
+ * computed away from the JavaFX application thread, and is immutable.
+ * </p>
+ *
+ * @see WeekLayoutCache
+ */
+public final class WeekLayout {
+
+    /** The number of rows of the grid of regular events. */
+    private static final int HOURS_IN_A_DAY = 24;
+
+    /** The part of an event drawn in a cell, or a span of cells. */
+    public static final class Segment {
+        /** The event. */
+        private final Event event;
+        /** The column the segment starts in. */
+        private final int column;
+        /** The row the segment starts in. */
+        private final int row;
+        /** The number of columns the segment spans. */
+        private final int columnSpan;
+        /** The number of rows the segment spans. */
+        private final int rowSpan;
+        /** The lane of the segment within its columns. */
+        private int lane;
+        /** The number of lanes its columns are split into. */
+        private int lanes = 1;
+
+        Segment(final Event event,
+                final int column,
+                final int row,
+                final int columnSpan,
+                final int rowSpan) {
+            this.event = event;
+            this.column = column;
+            this.row = row;
+            this.columnSpan = columnSpan;
+            this.rowSpan = rowSpan;
+        }
+
+        /**
+         * Gets the event the segment is a part of.
+         *
+         * @return the event
+         */
+        public Event getEvent() {
+            return event;
+        }
+
+        /**
+         * Gets the column the segment starts in, which is the day of the week
+         * counted from Monday at 0.
+         *
+         * @return the index of the column
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * Gets the row the segment starts in. For regular events this is the
+         * hour it starts at.
+         *
+         * @return the index of the row
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Gets the number of columns the segment spans.
+         *
+         * @return the number of columns, at least 1
+         */
+        public int getColumnSpan() {
+            return columnSpan;
+        }
+
+        /**
+         * Gets the number of rows the segment spans.
+         *
+         * @return the number of rows, at least 1
+         */
+        public int getRowSpan() {
+            return rowSpan;
+        }
+
+        /**
+         * Gets the lane of the segment, counted from the left at 0.
+         *
+         * @return the index of the lane, less than {@link #getLanes()}
+         */
+        public int getLane() {
+            return lane;
+        }
+
+        /**
+         * Gets the number of lanes the columns of the segment are split into
+         * while it is drawn, which is 1 unless it overlaps other segments.
+         *
+         * @return the number of lanes, at least 1
+         */
+        public int getLanes() {
+            return lanes;
+        }
+
+        private int end() {
+            return row + rowSpan;
+        }
+    }
+
+    /** The segments of the regular events. */
+    private final List<Segment> segments;
+
+    /** The segments of the all-day events. */
+    private final List<Segment> allDaySegments;
+
+    private WeekLayout(final List<Segment> segments,
+            final List<Segment> allDaySegments) {
+        this.segments = Collections.unmodifiableList(segments);
+        this.allDaySegments = Collections.unmodifiableList(allDaySegments);
+    }
+
+    /**
+     * Computes the layout of the events of a week.
+     *
+     * @param  events    the events, which may start before or end after the
+     *                   week
+     * @param  startTime the start of the week
+     * @param  endTime   the end of the week
+     * @return           the layout
+     */
+    public static WeekLayout of(final List<Event> events,
+            final LocalDateTime startTime,
+            final LocalDateTime endTime) {
+        List<Segment> segments = new ArrayList<>();
+        List<Segment> allDaySegments = new ArrayList<>();
+
+        for (Event event : events) {
+            LocalDateTime eventStartTime = event.getStartTime();
+            LocalDateTime eventEndTime = event.getEndTime();
+
+            if (eventStartTime.isBefore(startTime)) eventStartTime = startTime;
+            if (eventEndTime.isAfter(endTime)) eventEndTime = endTime;
+
+            int startDayIndex = eventStartTime.getDayOfWeek().getValue() - 1;
+            int endDayIndex = eventEndTime.getDayOfWeek().getValue() - 1;
+
+            if (event.getType().equals(EventType.ALL_DAY)) {
+                allDaySegments.add(new Segment(event, startDayIndex,
+                        allDaySegments.size(),
+                        endDayIndex - startDayIndex + 1, 1));
+                continue;
+            }
+
+            int startRowIndex = eventStartTime.getHour();
+            int endRowIndex = eventEndTime.equals(endTime)
+                    ? HOURS_IN_A_DAY
+                    : eventEndTime.getHour();
+
+            // Single day Event
+            if (startDayIndex == endDayIndex) {
+                add(segments, event, startDayIndex, startRowIndex,
+                    endRowIndex);
+                continue;
+            }
+
+            // Multi day Event
+            add(segments, event, startDayIndex, startRowIndex, HOURS_IN_A_DAY);
+            for (int day = startDayIndex + 1; day < endDayIndex; day++)
+                add(segments, event, day, 0, HOURS_IN_A_DAY);
+            add(segments, event, endDayIndex, 0, endRowIndex);
+        }
+
+        assignLanes(segments);
+        return new WeekLayout(segments, allDaySegments);
+    }
+
+    /**
+     * Gets the segments of the regular events, in the order the events were
+     * listed.
+     *
+     * @return an unmodifiable {@link List} of the segments
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Gets the segments of the all-day events, in the order the events were
+     * listed.
+     *
+     * @return an unmodifiable {@link List} of the segments
+     */
+    public List<Segment> getAllDaySegments() {
+        return allDaySegments;
+    }
+
+    private static void add(final List<Segment> segments,
+            final Event event,
+            final int column,
+            final int startRow,
+            final int endRow) {
+        // Events shorter than an hour within one hour are not drawn
+        if (endRow <= startRow) return;
+        segments.add(new Segment(event, column, startRow, 1,
+                                 endRow - startRow));
+    }
+
+    /**
+     * Sweeps each column from top to bottom, giving every segment the lowest
+     * lane that is free when it starts. A group of overlapping segments ends
+     * when no segment is left open, and every segment in it is then given the
+     * number of lanes the group used.
+     */
+    private static void assignLanes(final List<Segment> segments) {
+        List<Segment> sorted = new ArrayList<>(segments);
+        // Longer segments first, so they get the lanes to the left
+        sorted.sort(Comparator.comparingInt(Segment::getColumn)
+                .thenComparingInt(Segment::getRow)
+                .thenComparing(Comparator.comparingInt(Segment::getRowSpan)
+                        .reversed()));
+
+        PriorityQueue<Segment> open =
+                new PriorityQueue<>(Comparator.comparingInt(Segment::end));
+        PriorityQueue<Integer> freeLanes = new PriorityQueue<>();
+        Deque<Segment> group = new ArrayDeque<>();
+        int lanes = 0;
+        int column = -1;
+
+        for (Segment segment : sorted) {
+            // Segments in another column never overlap
+            if (segment.column != column) {
+                open.clear();
+                column = segment.column;
+            }
+            while (!open.isEmpty() && open.peek().end() <= segment.row)
+                freeLanes.add(open.poll().lane);
+            if (open.isEmpty()) {
+                close(group, lanes);
+                freeLanes.clear();
+                lanes = 0;
+            }
+
+            Integer lane = freeLanes.poll();
+            segment.lane = lane != null ? lane : lanes++;
+            open.add(segment);
+            group.add(segment);
+        }
+        close(group, lanes);
+    }
+
+    private static void close(final Deque<Segment> group, final int lanes) {
+        while (!group.isEmpty()) group.poll().lanes = lanes;
+    }
+}
@@ -0,0 +1,150 @@
+package calendar.core;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import calendar.types.Event;
+
+/**
+ * A cache of the {@link WeekLayout} of recently drawn weeks, which computes
+ * the layouts that are not cached on an executor, away from the thread that
+ * draws them.
+ *
+ * <p>
+ * A layout is cached by the calendar and the week it is of, along with the
+ * events it was computed from, which stand for the version of the calendar
+ * that was drawn. Asking for the same week with the same events again, which
+ * happens each time the week is redrawn while nothing changed, is served from
+ * the cache. Events count as the same if they are equal and have the same ID,
+ * so the cached layout can be clicked through to the right events. The cache
+ * evicts the least recently used week when it is full.
+ * </p>
+ */
+public final class WeekLayoutCache {
+
+    /** A week of a calendar, which the layouts are cached by. */
+    private static final class Week {
+        /** The ID of the calendar, or {@code null} if none is selected. */
+        private final UUID calendarId;
+        /** The start of the week. */
+        private final LocalDateTime startTime;
+
+        Week(final UUID calendarId, final LocalDateTime startTime) {
+            this.calendarId = calendarId;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Week week
+                    && Objects.equals(calendarId, week.calendarId)
+                    && startTime.equals(week.startTime);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(calendarId, startTime);
+        }
+    }
+
+    /** A layout, and the events it was computed from. */
+    private static final class Entry {
+        /** The events the layout was computed from. */
+        private final List<Event> events;
+        /** The layout, which may still be computed. */
+        private final CompletableFuture<WeekLayout> layout;
+
+        Entry(final List<Event> events,
+                final CompletableFuture<WeekLayout> layout) {
+            this.events = events;
+            this.layout = layout;
+        }
+    }
+
+    /** Computes the layouts that are not cached. */
+    private final Executor executor;
+
+    /** The layout of each week, from least to most recently used. */
+    private final Map<Week, Entry> weeks;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param  capacity                 the number of weeks the cache holds;
+     *                                  must be at least 1.
+     * @param  executor                 computes the layouts that are not
+     *                                  cached; must not be {@code null}.
+     * @throws IllegalArgumentException if {@code capacity} is less than 1, or
+     *                                  {@code executor} is {@code null}.
+     */
+    public WeekLayoutCache(final int capacity, final Executor executor) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        if (executor == null)
+            throw new IllegalArgumentException("Executor can't be null");
+
+        this.executor = executor;
+        this.weeks = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Week, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the layout of the events of a week, from the cache if it was
+     * computed from the same events, and otherwise computed on the executor.
+     *
+     * @param  calendarId the ID of the calendar the events are in, or
+     *                    {@code null} if none is selected
+     * @param  events     the events
+     * @param  startTime  the start of the week
+     * @param  endTime    the end of the week
+     * @return            a future completed with the layout
+     * @see               WeekLayout#of(List, LocalDateTime, LocalDateTime)
+     */
+    public synchronized CompletableFuture<WeekLayout> get(
+            final UUID calendarId,
+            final List<Event> events,
+            final LocalDateTime startTime,
+            final LocalDateTime endTime) {
+        Week week = new Week(calendarId, startTime);
+        Entry cached = weeks.get(week);
+        if (cached != null && same(cached.events, events))
+            return cached.layout.copy();
+
+        List<Event> copy = List.copyOf(events);
+        CompletableFuture<WeekLayout> layout = CompletableFuture.supplyAsync(
+                () -> WeekLayout.of(copy, startTime, endTime), executor);
+        weeks.put(week, new Entry(copy, layout));
+        return layout.copy();
+    }
+
+    /**
+     * Removes every cached layout.
+     */
+    public synchronized void clear() {
+        weeks.clear();
+    }
+
+    private static boolean same(final List<Event> cached,
+            final List<Event> events) {
+        if (cached.size() != events.size()) return false;
+        for (int i = 0; i < cached.size(); i++) {
+            Event a = cached.get(i);
+            Event b = events.get(i);
+            if (a != b && !(a.equals(b)
+                    && Objects.equals(a.getId(), b.getId())))
+                return false;
+        }
+        return true;
+    }
+}
@@ -12,8 +12,31 @@
  * following primary components:
  * <ul>
  * <li>{@link calendar.core.SceneCore} - Manages the graphical scenes and UI
- * transitions within the application.</li>
+ * transitions within the application, keeping the scenes once they are
+ * loaded.</li>
+ * <li>{@link calendar.core.SceneController} - A controller that is told when
+ * its kept scene is shown again.</li>
  * <li>{@link calendar.core.RestHelper} - Interacts with the restAPI.</li>
+ * <li>{@link calendar.core.EventCache} - Caches the events of recently viewed
+ * weeks, so they are not fetched again.</li>
+ * <li>{@link calendar.core.ETagCache} - Keeps responses with their entity tags,
+ * so unchanged responses are not sent again.</li>
+ * <li>{@link calendar.core.SingleFlight} - Merges identical requests made at
+ * the same time into one.</li>
+ * <li>{@link calendar.core.Batch} - Collects event changes that are sent to
+ * the restAPI together, in one request.</li>
+ * <li>{@link calendar.core.CalendarReplica} - Keeps a local copy of a
+ * calendar, updated with only the events that changed.</li>
+ * <li>{@link calendar.core.ClientMetrics} and
+ * {@link calendar.core.LatencyHistogram} - Record where the time of each
+ * request goes, so slow responses can be traced.</li>
+ * <li>{@link calendar.core.LocalReplica} - Keeps the user's calendars and
+ * their events on disk between runs, so they show up before the server
+ * answers.</li>
+ * <li>{@link calendar.core.WeekLayout} and
+ * {@link calendar.core.WeekLayoutCache} - Work out where the events of a week
+ * are drawn, side by side where they overlap, away from the JavaFX
+ * thread.</li>
  * </ul>
  *
  * <h2>Usage</h2> This package is intended to be used by higher-level modules in
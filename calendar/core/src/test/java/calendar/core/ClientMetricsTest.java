@@ -0,0 +1,78 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test class for the {@link ClientMetrics} class.
+ */
+public class ClientMetricsTest {
+
+    private final ClientMetrics metrics = new ClientMetrics();
+
+    /**
+     * Tests that requests are recorded under their method and path, with the
+     * IDs and query left out, and with the size of their bodies.
+     */
+    @Test
+    public void testSent() {
+        UUID id = UUID.randomUUID();
+        String name = metrics.sent(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8000/calendar/" + id
+                        + "/events/" + UUID.randomUUID() + "?since=3"))
+                .POST(BodyPublishers.ofString("body")).build());
+        metrics.sent(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8000/calendar/" + id))
+                .GET().build());
+
+        assertEquals("POST /calendar/{id}/events/{id}", name);
+        ClientMetrics.Operation operation = metrics.getOperation(name);
+        assertEquals(1, operation.getRequests());
+        assertEquals(4, operation.getBytesSent());
+        assertEquals(List.of("GET /calendar/{id}", name), metrics.getOperations()
+                .stream().map(ClientMetrics.Operation::getName).toList());
+    }
+
+    /**
+     * Tests that a metered body records its size and the time it took to read
+     * once it is closed, and failures only for metered bodies.
+     */
+    @Test
+    public void testMeter() throws IOException {
+        InputStream body = metrics.meter("GET /", new ByteArrayInputStream(
+                new byte[1000]));
+        body.read();
+        body.read(new byte[100]);
+        body.skip(99);
+        assertEquals(0, metrics.getOperation("GET /").getBytesRead());
+        body.close();
+        body.close();
+
+        ClientMetrics.Operation operation = metrics.getOperation("GET /");
+        assertEquals(200, operation.getBytesRead());
+        assertEquals(1, operation.getLatency(ClientMetrics.Stage.PARSE)
+                .getCount());
+
+        metrics.failed(body);
+        metrics.failed(new ByteArrayInputStream(new byte[0]));
+        assertEquals(1, operation.getErrors());
+
+        metrics.record("render week", ClientMetrics.Stage.RENDER, 1_500_000);
+        assertTrue(metrics.report().contains("render  p50 1.5 ms"),
+                metrics.report());
+
+        metrics.reset();
+        assertEquals(List.of(), metrics.getOperations());
+    }
+}
@@ -0,0 +1,160 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import calendar.types.Event;
+import no.gorandalum.fluentresult.Result;
+
+/**
+ * Unit test class for the {@link EventCache} class.
+ * <p>
+ * The cache is given a loader that records the windows it is asked for, and
+ * answers with futures the tests complete themselves.
+ */
+public class EventCacheTest {
+
+    private final UUID calendarId = UUID.randomUUID();
+    private final LocalDate day = LocalDate.of(2024, 5, 15);
+    private final Event event = new Event("event",
+            "description",
+            LocalDateTime.of(2024, 5, 15, 10, 0),
+            LocalDateTime.of(2024, 5, 15, 11, 0));
+
+    private List<LocalDateTime> loaded;
+    private List<CompletableFuture<Result<List<Event>, String>>> requests;
+    private EventCache cache;
+
+    /**
+     * Creates an empty cache with room for four windows before each test.
+     */
+    @BeforeEach
+    public void beforeEach() {
+        loaded = new ArrayList<>();
+        requests = new ArrayList<>();
+        cache = new EventCache(4, (calendar, after, before) -> {
+            CompletableFuture<Result<List<Event>, String>> request =
+                    new CompletableFuture<>();
+            loaded.add(after);
+            requests.add(request);
+            return request;
+        });
+    }
+
+    private LocalDateTime at(final int hour) {
+        return day.atTime(hour, 0);
+    }
+
+    /**
+     * Tests that the constructor rejects a capacity that can't fit a week and
+     * the weeks around it, and a missing loader.
+     */
+    @Test
+    public void testConstructor() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new EventCache(2, (calendar, after, before) -> null));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new EventCache(3, null));
+    }
+
+    /**
+     * Tests that a window is only loaded once, also while it is in flight.
+     */
+    @Test
+    public void testCached() {
+        CompletableFuture<Result<List<Event>, String>> first =
+                cache.get(calendarId, at(1), at(2));
+        CompletableFuture<Result<List<Event>, String>> second =
+                cache.get(calendarId, at(1), at(2));
+        assertEquals(1, loaded.size());
+
+        requests.get(0).complete(Result.success(List.of(event)));
+        assertEquals(List.of(event), first.join().orElse(null));
+        assertEquals(List.of(event), second.join().orElse(null));
+
+        cache.get(calendarId, at(1), at(2));
+        cache.get(UUID.randomUUID(), at(1), at(2));
+        assertEquals(2, loaded.size());
+    }
+
+    /**
+     * Tests that failed requests are not cached.
+     */
+    @Test
+    public void testErrorNotCached() {
+        cache.get(calendarId, at(1), at(2));
+        requests.get(0).complete(Result.error("Could not reach server"));
+
+        cache.get(calendarId, at(1), at(2));
+        assertEquals(2, loaded.size());
+    }
+
+    /**
+     * Tests that the least recently used window is evicted when the cache is
+     * full.
+     */
+    @Test
+    public void testEviction() {
+        for (int hour = 0; hour < 4; hour++)
+            cache.get(calendarId, at(hour), at(hour + 1));
+        cache.get(calendarId, at(0), at(1));
+        cache.get(calendarId, at(4), at(5));
+        assertEquals(5, loaded.size());
+
+        // The first window was used recently, so the second was evicted
+        cache.get(calendarId, at(0), at(1));
+        assertEquals(5, loaded.size());
+        cache.get(calendarId, at(1), at(2));
+        assertEquals(6, loaded.size());
+    }
+
+    /**
+     * Tests that a week is fetched with the weeks before and after it, and
+     * that the weeks are fetched again after the calendar is invalidated.
+     */
+    @Test
+    public void testWeekAndInvalidate() {
+        cache.getWeek(calendarId, day);
+        assertEquals(List.of(LocalDateTime.of(2024, 5, 13, 0, 0),
+                             LocalDateTime.of(2024, 5, 6, 0, 0),
+                             LocalDateTime.of(2024, 5, 20, 0, 0)),
+                     loaded);
+
+        cache.getWeek(calendarId, day.plusWeeks(1));
+        assertEquals(4, loaded.size());
+
+        cache.invalidate(calendarId);
+        cache.getWeek(calendarId, day);
+        assertEquals(7, loaded.size());
+
+        cache.clear();
+        cache.get(calendarId, at(1), at(2));
+        assertEquals(8, loaded.size());
+    }
+
+    /**
+     * Tests that cancelling the future returned by the cache leaves the
+     * request cached.
+     */
+    @Test
+    public void testCancel() {
+        cache.get(calendarId, at(1), at(2)).cancel(true);
+        assertFalse(requests.get(0).isCancelled());
+
+        requests.get(0).complete(Result.success(List.of(event)));
+        assertTrue(cache.get(calendarId, at(1), at(2)).isDone());
+        assertEquals(1, loaded.size());
+    }
+}
@@ -0,0 +1,66 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test class for the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests that every duration falls in the bucket that starts at or below
+     * it, and that the buckets are never wider than a quarter of their start.
+     */
+    @Test
+    public void testBuckets() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = LatencyHistogram.bucket(micros);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= micros);
+            assertTrue(LatencyHistogram.lowerBound(bucket + 1) > micros);
+        }
+        for (int bucket = 4; bucket < 143; bucket++) {
+            long width = LatencyHistogram.lowerBound(bucket + 1)
+                    - LatencyHistogram.lowerBound(bucket);
+            assertTrue(width * 4 <= LatencyHistogram.lowerBound(bucket));
+        }
+        assertEquals(143, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    /**
+     * Tests the count, mean, percentiles and maximum of the durations.
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(Duration.ZERO, histogram.getPercentile(50));
+        assertEquals(Duration.ZERO, histogram.getMean());
+
+        // 1 to 100 milliseconds
+        for (int millis = 1; millis <= 100; millis++)
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(Duration.ofNanos(50_500_000), histogram.getMean());
+        assertEquals(Duration.ofMillis(100), histogram.getMax());
+        assertEquals(Duration.ofMillis(100), histogram.getPercentile(100));
+
+        long median = histogram.getPercentile(50).toMillis();
+        assertTrue(median >= 50 && median <= 50 * 5 / 4, "median " + median);
+        long p95 = histogram.getPercentile(95).toMillis();
+        assertTrue(p95 >= 95 && p95 <= 100, "p95 " + p95);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> histogram.getPercentile(101));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(Duration.ZERO, histogram.getMax());
+    }
+}
@@ -0,0 +1,176 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import calendar.types.Calendar;
+import calendar.types.Change;
+import calendar.types.ChangeFeed;
+import calendar.types.Event;
+import calendar.types.User;
+import calendar.types.UserSettings;
+
+/**
+ * Unit test class for the {@link LocalReplica} class.
+ * <p>
+ * Every replica is saved to a file in a temporary directory, and opened again
+ * from it as on the next start of the application.
+ */
+public class LocalReplicaTest {
+
+    private Path directory;
+
+    private final UUID calendarId = UUID.randomUUID();
+    private final User user = new User(UUID.randomUUID(), "user",
+            List.of(new Calendar(calendarId, "Calendar")),
+            new UserSettings(UUID.randomUUID(), TimeZone.getDefault(), false,
+                    false));
+    private final Event event = new Event("title", "description",
+            LocalDateTime.of(2024, 10, 7, 10, 0),
+            LocalDateTime.of(2024, 10, 7, 12, 0));
+
+    /**
+     * Creates a new temporary directory for the files before each test.
+     */
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        directory = Files.createTempDirectory("replica");
+    }
+
+    /**
+     * Tests that the user and the synced events are read back from the file,
+     * at the version they were saved at.
+     */
+    @Test
+    public void testSaveAndOpen() {
+        Path file = directory.resolve("nested").resolve("user.json");
+        LocalReplica replica = new LocalReplica(file);
+        replica.setUser(user);
+        replica.getCalendar(calendarId).apply(Optional.empty(),
+                new ChangeFeed("3", true, List.of(Change.added(3, event))));
+        // A calendar that was never synced is not saved
+        replica.getCalendar(UUID.randomUUID());
+        replica.save().orElseThrow(AssertionError::new);
+
+        LocalReplica opened = new LocalReplica(file);
+        assertEquals(user.getUserId(), opened.getUser().get().getUserId());
+        assertEquals(calendarId,
+                opened.getUser().get().getCalendars().get(0).getCalendarId());
+        CalendarReplica calendar = opened.getCalendar(calendarId);
+        assertEquals(Optional.of("3"), calendar.getVersion());
+        assertEquals(List.of(event), calendar.getEvents());
+        assertEquals(event.getTitle(), calendar.getEvents().get(0).getTitle());
+    }
+
+    /**
+     * Tests that a missing or unreadable file gives an empty replica.
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        LocalReplica missing = new LocalReplica(directory.resolve("none.json"));
+        assertTrue(missing.getUser().isEmpty());
+        assertTrue(missing.getCalendar(calendarId).getVersion().isEmpty());
+
+        Path broken = directory.resolve("broken.json");
+        Files.writeString(broken, "{ not json");
+        LocalReplica unreadable = new LocalReplica(broken);
+        assertTrue(unreadable.getUser().isEmpty());
+        assertTrue(unreadable.getCalendar(calendarId).getVersion().isEmpty());
+    }
+
+    /**
+     * Tests that the replicas of calendars the user no longer has are dropped
+     * when the user is replaced.
+     */
+    @Test
+    public void testSetUser() {
+        LocalReplica replica = new LocalReplica(directory.resolve("user.json"));
+        replica.getCalendar(calendarId).apply(Optional.empty(),
+                new ChangeFeed("1", true, List.of(Change.added(1, event))));
+
+        replica.setUser(user);
+        assertEquals(List.of(event),
+                     replica.getCalendar(calendarId).getEvents());
+
+        replica.setUser(new User(user.getUserId(), "user", List.of(),
+                                 user.getSettings()));
+        assertEquals(List.of(), replica.getCalendar(calendarId).getEvents());
+    }
+
+    /**
+     * Tests that the events overlapping a range are looked up in order of
+     * start time, including a long event that starts before the range, and
+     * that edited and removed events are moved and dropped.
+     */
+    @Test
+    public void testEventsBetween() {
+        LocalDateTime monday = LocalDateTime.of(2024, 10, 7, 0, 0);
+        Event before = new Event("before", "description",
+                monday.minusDays(1), monday.minusHours(1));
+        Event longEvent = new Event("long", "description",
+                monday.minusWeeks(2), monday.plusHours(1));
+        Event touching = new Event("touching", "description",
+                monday.minusHours(2), monday);
+        Event after = new Event("after", "description",
+                monday.plusWeeks(1).plusHours(1), monday.plusWeeks(1)
+                        .plusHours(2));
+        CalendarReplica calendar = new LocalReplica(
+                directory.resolve("user.json")).getCalendar(calendarId);
+        calendar.apply(Optional.empty(), new ChangeFeed("4", true,
+                List.of(Change.added(1, event), Change.added(2, before),
+                        Change.added(3, longEvent), Change.added(4, touching),
+                        Change.added(5, after))));
+
+        assertEquals(List.of(longEvent, touching, event),
+                     calendar.getEvents(monday, monday.plusWeeks(1)));
+        assertEquals(List.of(longEvent, before, touching, event, after),
+                     calendar.getEvents());
+
+        Event moved = new Event(event.getTitle(), event.getDescription(),
+                monday.plusWeeks(1), monday.plusWeeks(1).plusHours(1),
+                event.getColor(), event.getType(), event.getId());
+        calendar.apply(Optional.of("4"), new ChangeFeed("6", false,
+                List.of(Change.edited(5, moved),
+                        Change.removed(6, longEvent.getId()))));
+        assertEquals(List.of(touching),
+                     calendar.getEvents(monday, monday.plusDays(6)));
+        assertEquals(List.of(moved, after), calendar.getEvents(
+                monday.plusWeeks(1), monday.plusWeeks(2)));
+    }
+
+    /**
+     * Tests that each user gets their own file in the configured directory.
+     */
+    @Test
+    public void testForUser() {
+        String previous = System.setProperty(LocalReplica.DIRECTORY_PROPERTY,
+                                             directory.toString());
+        try {
+            LocalReplica replica = LocalReplica.forUser("a/b");
+            replica.setUser(user);
+            replica.save();
+            assertTrue(Files.exists(directory.resolve("a%2Fb.json")));
+            assertEquals(user.getUserId(), LocalReplica.forUser("a/b")
+                    .getUser().get().getUserId());
+            assertTrue(LocalReplica.forUser("other").getUser().isEmpty());
+        } finally {
+            if (previous == null) {
+                System.clearProperty(LocalReplica.DIRECTORY_PROPERTY);
+            } else {
+                System.setProperty(LocalReplica.DIRECTORY_PROPERTY, previous);
+            }
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package calendar.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.any;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpClient.Version;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 import javax.net.ssl.SSLSession;
 
@@ -24,8 +37,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import calendar.persistence.Persistence;
+import calendar.types.BatchResult;
 import calendar.types.Calendar;
+import calendar.types.Change;
+import calendar.types.ChangeFeed;
 import calendar.types.Event;
+import calendar.types.EventCodec;
 import calendar.types.User;
 import calendar.types.UserSettings;
 import calendar.types.EventType;
@@ -77,8 +94,10 @@ public class RestHelperTest {
      */
     @BeforeEach
     public void beforeEach() {
+        RestHelper.serverAddress = "http://localhost:8000";
         RestHelper.username = null;
         RestHelper.password = null;
+        RestHelper.token = null;
         RestHelper.calendarId = null;
         RestHelper.client = mock(HttpClient.class);
     }
@@ -200,6 +219,67 @@ public class RestHelperTest {
         assertError(RestHelper.getUser());
     }
 
+    /**
+     * Tests that requests are recorded in the metrics under their endpoint,
+     * with the time spent on the network and parsing, the bytes read, and
+     * the requests that failed.
+     */
+    @Test
+    public void testMetrics() throws InterruptedException, IOException {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.getMetrics().reset();
+        String json = Persistence.toJSON(user);
+
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(200, json));
+        RestHelper.getUser().orElseThrow(s -> new IllegalStateException(s));
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(200));
+        assertError(RestHelper.getUser());
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(400));
+        assertError(RestHelper.getUser());
+        when(RestHelper.client.send(any(), any())).thenThrow(new IOException());
+        assertError(RestHelper.getUser());
+
+        ClientMetrics.Operation operation = RestHelper.getMetrics()
+                .getOperation("GET /users/username");
+        assertEquals(List.of(operation), RestHelper.getMetrics().getOperations());
+        assertEquals(4, operation.getRequests());
+        assertEquals(3, operation.getErrors());
+        assertEquals(3, operation.getLatency(ClientMetrics.Stage.NETWORK).getCount());
+        assertEquals(2, operation.getLatency(ClientMetrics.Stage.PARSE).getCount());
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length,
+                operation.getBytesRead());
+        assertTrue(RestHelper.getMetrics().report().startsWith("GET /users/username"));
+    }
+
+    /**
+     * Tests that responses compressed with gzip are unpacked, including
+     * multibyte characters.
+     */
+    @Test
+    public void testCompressedResponse() throws InterruptedException, IOException {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+        Event event = new Event("Møte på kontoret", "☕",
+                LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(Persistence.toJSON(new Event[] {event})
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(200, compressed.toByteArray(),
+                        Map.of("Content-Encoding", List.of("gzip"))));
+        List<Event> events = RestHelper.getEvents(Optional.empty(), Optional.empty())
+                .orElseThrow(s -> new IllegalStateException("Get events did not succeed"));
+        assertEquals(List.of(event), events);
+        assertEquals("Møte på kontoret", events.get(0).getTitle());
+    }
+
     /**
      * Tests {@link RestHelper#addUser()} for success and error responses.
      */
@@ -217,6 +297,55 @@ public class RestHelperTest {
         assertError(RestHelper.addUser());
     }
 
+    /**
+     * Tests {@link RestHelper#login()} for success and error responses, and
+     * that the session token is stored and cleared with the credentials.
+     */
+    @Test
+    public void testLogin() throws InterruptedException, IOException {
+        assertError(RestHelper.login());
+
+        RestHelper.setCredentials("username", "password");
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(201, "token"));
+        RestHelper.login()
+                .orElseThrow(s -> new IllegalStateException("Login did not succeed"));
+        assertEquals("token", RestHelper.token);
+
+        RestHelper.setCredentials("username", "password");
+        assertNull(RestHelper.token);
+
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(401));
+        assertError(RestHelper.login());
+        assertNull(RestHelper.token);
+    }
+
+    /**
+     * Tests that a request with an expired session logs in again and is
+     * repeated with the new session token, but only once.
+     */
+    @Test
+    public void testExpiredSession() throws InterruptedException, IOException {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.token = "expired";
+
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(401),
+                        new CustomHttpResponse(201, "renewed"),
+                        new CustomHttpResponse(200));
+        RestHelper.addCalendar(Optional.empty())
+                .orElseThrow(s -> new IllegalStateException("Add calendar did not succeed"));
+        assertEquals("renewed", RestHelper.token);
+
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(401),
+                        new CustomHttpResponse(201, "renewed again"),
+                        new CustomHttpResponse(401));
+        assertError(RestHelper.addCalendar(Optional.empty()));
+        assertEquals("renewed again", RestHelper.token);
+    }
+
     /**
      * Tests {@link RestHelper#addCalendar(Optional)} for success and error
      * responses.
@@ -303,6 +432,49 @@ public class RestHelperTest {
         assertError(RestHelper.getEvents(Optional.empty(), Optional.empty()));
     }
 
+    /**
+     * Tests that events are asked for in the binary format, and read in
+     * whichever format the server answers with.
+     */
+    @Test
+    public void testBinaryEvents() throws InterruptedException, IOException {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+
+        List<HttpRequest> requests = new ArrayList<>();
+        byte[] binary = EventCodec.toBytes(List.of(event1, event2));
+        when(RestHelper.client.send(any(), any())).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(0));
+            return new CustomHttpResponse(200, binary,
+                    Map.of("Content-Type", List.of(EventCodec.MEDIA_TYPE)));
+        });
+        List<Event> events = RestHelper
+                .getEvents(Optional.empty(), Optional.empty())
+                .orElseThrow(error -> new IllegalStateException(error));
+        assertEquals(List.of(event1, event2), events);
+        assertEquals(event2.getColor(), events.get(1).getColor());
+        assertTrue(requests.get(0).headers().firstValue("Accept").get()
+                .startsWith(EventCodec.MEDIA_TYPE));
+
+        // Compressed, and read in the background
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(binary);
+        }
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(200, compressed.toByteArray(),
+                                Map.of("Content-Encoding", List.of("gzip")))));
+        assertEquals(List.of(event1, event2), RestHelper
+                .getEventsAsync(Optional.empty(), Optional.empty()).join()
+                .orElseThrow(error -> new IllegalStateException(error)));
+
+        when(RestHelper.client.send(any(), any()))
+                .thenReturn(new CustomHttpResponse(200,
+                        Arrays.copyOf(binary, binary.length - 1), Map.of()));
+        assertError(RestHelper.getEvents(Optional.empty(), Optional.empty()));
+    }
+
     /**
      * Tests
      * {@link RestHelper#addEvent(Optional, Optional, Optional, Optional, Optional, Optional)}
@@ -384,6 +556,336 @@ public class RestHelperTest {
                 Optional.empty(),
                 Optional.empty()));
     }
+
+    /**
+     * Tests that the async methods in {@link RestHelper} complete with errors
+     * when credentials are not set, without sending a request.
+     */
+    @Test
+    public void testAsyncCredentialsNotSet() {
+        assertError(RestHelper.getUserAsync().join());
+        assertError(RestHelper.addUserAsync().join());
+        assertError(RestHelper.loginAsync().join());
+        assertError(RestHelper.addCalendarAsync(Optional.empty()).join());
+        assertError(RestHelper.getEventsAsync(Optional.empty(),
+                Optional.empty()).join());
+        assertError(RestHelper.removeEventAsync(UUID.randomUUID()).join());
+    }
+
+    /**
+     * Tests {@link RestHelper#getUserAsync()} for success, error responses and
+     * an unreachable server.
+     */
+    @Test
+    public void testGetUserAsync() throws IOException {
+        RestHelper.setCredentials("username", "password");
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(200, Persistence.toJSON(user))));
+        RestHelper.getUserAsync().join()
+                .consume(user -> assertEquals("username", user.getUsername()))
+                .orElseThrow(s -> new IllegalStateException(s));
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(400, "Bad request")));
+        RestHelper.getUserAsync().join()
+                .consumeError(error -> assertEquals("Bad request", error));
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException()));
+        RestHelper.getUserAsync().join().consumeError(
+                error -> assertEquals("Could not reach server", error));
+    }
+
+    /**
+     * Tests that the async methods in {@link RestHelper} log in again and
+     * repeat the request when the session has expired.
+     */
+    @Test
+    public void testExpiredSessionAsync() {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+        RestHelper.token = "expired";
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                                new CustomHttpResponse(401)),
+                        CompletableFuture.completedFuture(
+                                new CustomHttpResponse(201, "renewed")),
+                        CompletableFuture.completedFuture(
+                                new CustomHttpResponse(200)));
+        RestHelper.removeEventAsync(UUID.randomUUID()).join()
+                .orElseThrow(s -> new IllegalStateException(s));
+        assertEquals("renewed", RestHelper.token);
+    }
+
+    /**
+     * Tests that cancelling the future returned by an async method in
+     * {@link RestHelper} aborts the request.
+     */
+    @Test
+    public void testCancelAsync() {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+
+        CompletableFuture<HttpResponse<Object>> response =
+                new CompletableFuture<>();
+        when(RestHelper.client.sendAsync(any(), any())).thenReturn(response);
+
+        CompletableFuture<Result<List<Event>, String>> events = RestHelper
+                .getEventsAsync(Optional.empty(), Optional.empty());
+        assertFalse(events.isDone());
+
+        events.cancel(true);
+        assertTrue(response.isCancelled());
+    }
+
+    /**
+     * Tests that identical reads made at the same time share one request, and
+     * that reads made after the events are changed send a new one.
+     */
+    @Test
+    public void testCoalescedReads() throws InterruptedException, IOException {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+
+        List<CompletableFuture<HttpResponse<Object>>> responses =
+                new ArrayList<>();
+        when(RestHelper.client.sendAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<HttpResponse<Object>> response =
+                    new CompletableFuture<>();
+            responses.add(response);
+            return response;
+        });
+
+        Optional<LocalDateTime> after = Optional.of(LocalDateTime.now());
+        CompletableFuture<Result<List<Event>, String>> first =
+                RestHelper.getEventsAsync(Optional.empty(), after);
+        CompletableFuture<Result<List<Event>, String>> second =
+                RestHelper.getEventsAsync(Optional.empty(), after);
+        RestHelper.getEventsAsync(Optional.empty(), Optional.empty());
+        assertEquals(2, responses.size());
+
+        // One caller giving up doesn't abort the request for the other
+        first.cancel(true);
+        assertFalse(responses.get(0).isCancelled());
+        responses.get(0).complete(new CustomHttpResponse(200,
+                Persistence.toJSON(List.of(event1))));
+        assertEquals(List.of(event1), second.join()
+                .orElseThrow(error -> new IllegalStateException(error)));
+
+        CompletableFuture<Result<List<Event>, String>> stale =
+                RestHelper.getEventsAsync(Optional.empty(), after);
+        RestHelper.removeEventAsync(event1.getId());
+        responses.get(3).complete(new CustomHttpResponse(200));
+        RestHelper.getEventsAsync(Optional.empty(), after);
+        assertFalse(stale.isDone());
+        assertEquals(5, responses.size());
+    }
+
+    /**
+     * Tests that {@link RestHelper#getWeekAsync(LocalDate)} serves weeks from
+     * the cache, prefetches the weeks around them, and fetches them again
+     * after the events of the calendar are changed.
+     */
+    @Test
+    public void testGetWeekAsync() throws IOException {
+        LocalDate day = LocalDate.now();
+        assertError(RestHelper.getWeekAsync(day).join());
+
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(200,
+                                Persistence.toJSON(List.of(event1, event2)))));
+        assertEquals(2, RestHelper.getWeekAsync(day).join().orElse(null)
+                .size());
+
+        // The week and the weeks around it are cached
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(400)));
+        assertEquals(2, RestHelper.getWeekAsync(day).join().orElse(null)
+                .size());
+        assertEquals(2, RestHelper.getWeekAsync(day.minusWeeks(1)).join()
+                .orElse(null).size());
+
+        assertError(RestHelper.removeEventAsync(UUID.randomUUID()).join());
+        assertError(RestHelper.getWeekAsync(day).join());
+    }
+
+    /**
+     * Tests that {@link RestHelper#getEvents(Optional, Optional)} sends the
+     * entity tag of the events it got last, and uses them again when the
+     * server answers that they are unchanged.
+     */
+    @Test
+    public void testConditionalGetEvents()
+            throws InterruptedException, IOException {
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+
+        String json = Persistence.toJSON(List.of(event1, event2));
+        int[] fullResponses = {0};
+        when(RestHelper.client.send(any(), any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            if (request.headers().firstValue("If-None-Match")
+                    .filter("W/\"1\""::equals).isPresent())
+                return new CustomHttpResponse(304);
+            fullResponses[0]++;
+            return new CustomHttpResponse(200,
+                    json.getBytes(StandardCharsets.UTF_8),
+                    Map.of("ETag", List.of("W/\"1\"")));
+        });
+
+        Optional<LocalDateTime> before = Optional.of(LocalDateTime.now());
+        assertEquals(2, RestHelper.getEvents(before, Optional.empty())
+                .orElse(null).size());
+        assertEquals(2, RestHelper.getEvents(before, Optional.empty())
+                .orElse(null).size());
+        assertEquals(1, fullResponses[0]);
+
+        // Another window is a different request
+        assertEquals(2, RestHelper.getEvents(Optional.empty(), Optional.empty())
+                .orElse(null).size());
+        assertEquals(2, fullResponses[0]);
+    }
+
+    /**
+     * Tests that {@link RestHelper#sync(CalendarReplica)} fills a new replica
+     * with every event, then only applies the changes since its version.
+     */
+    @Test
+    public void testSync() throws InterruptedException, IOException {
+        CalendarReplica replica = new CalendarReplica(UUID.randomUUID());
+        assertError(RestHelper.sync(replica));
+
+        RestHelper.setCredentials("username", "password");
+        Event edited = new Event("edited", "", event2.getStartTime(),
+                event2.getEndTime(), event2.getColor(), event2.getType(),
+                event2.getId());
+        String reset = Persistence.toJSON(new ChangeFeed("e-2", true,
+                List.of(Change.added(2, event1), Change.added(2, event2))));
+        String delta = Persistence.toJSON(new ChangeFeed("e-4", false,
+                List.of(Change.removed(3, event1.getId()),
+                        Change.edited(4, edited))));
+        when(RestHelper.client.send(any(), any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            String query = request.uri().getQuery();
+            if (query == null) return new CustomHttpResponse(200, reset);
+            if (query.equals("since=e-2"))
+                return new CustomHttpResponse(200, delta);
+            return new CustomHttpResponse(400, "Wrong version for since");
+        });
+
+        RestHelper.sync(replica)
+                .orElseThrow(error -> new IllegalStateException(error));
+        assertEquals(List.of(event1, event2), replica.getEvents());
+        assertEquals(Optional.of("e-2"), replica.getVersion());
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(200, delta)));
+        RestHelper.syncAsync(replica).join()
+                .orElseThrow(error -> new IllegalStateException(error));
+        assertEquals(List.of(edited), replica.getEvents());
+        assertEquals("edited", replica.getEvents().get(0).getTitle());
+        assertEquals(Optional.of("e-4"), replica.getVersion());
+
+        // Changes asked for from a version the replica has moved past
+        assertFalse(replica.apply(Optional.of("e-2"),
+                Persistence.fromJSON(ChangeFeed.class, reset)));
+        assertEquals(List.of(edited), replica.getEvents());
+
+        when(RestHelper.client.send(any(), any())).thenReturn(
+                new CustomHttpResponse(400, "Wrong version for since"));
+        assertError(RestHelper.sync(replica));
+        assertEquals(Optional.of("e-4"), replica.getVersion());
+    }
+
+    /**
+     * Tests that a {@link Batch} sends its changes in one request, and
+     * returns the result of each change in the order they were added.
+     */
+    @Test
+    public void testBatch() throws InterruptedException, IOException {
+        assertEquals(List.of(), RestHelper.batch().send()
+                .orElseThrow(error -> new IllegalStateException(error)));
+        assertError(RestHelper.batch().addEvent(event1).send());
+
+        RestHelper.setCredentials("username", "password");
+        assertError(RestHelper.batch().addEvent(event1).send());
+
+        UUID calendarId = UUID.randomUUID();
+        RestHelper.setCaledarId(calendarId);
+        String results = Persistence.toJSON(List.of(
+                new BatchResult(201, "Event successfully created"),
+                new BatchResult(404, "Event not found")));
+        when(RestHelper.client.send(any(), any())).thenAnswer(invocation -> {
+            HttpRequest request = invocation.getArgument(0);
+            if (!request.method().equals("POST")
+                    || !request.uri().getPath().equals("/batch"))
+                return new CustomHttpResponse(404);
+            return new CustomHttpResponse(200, results);
+        });
+
+        Batch batch = RestHelper.batch()
+                .addEvent(event1)
+                .removeEvent(UUID.randomUUID(), event2.getId());
+        assertEquals(2, batch.size());
+        List<BatchResult> sent = batch.send()
+                .orElseThrow(error -> new IllegalStateException(error));
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(0).isSuccess());
+        assertFalse(sent.get(1).isSuccess());
+        assertEquals("Event not found", sent.get(1).getMessage());
+
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(401)));
+        assertError(batch.sendAsync().join());
+    }
+
+    /**
+     * Tests that {@link RestHelper#subscribe(java.util.function.Consumer,
+     * Runnable)} passes on the changes and resets pushed by the server, with
+     * the changes that arrived together in one call, and completes when the
+     * stream ends.
+     */
+    @Test
+    public void testSubscribe() throws IOException {
+        assertError(RestHelper.subscribe(changes -> { }, () -> { }).join());
+
+        RestHelper.setCredentials("username", "password");
+        RestHelper.setCaledarId(UUID.randomUUID());
+
+        // Multi-line data is split over several fields
+        StringBuilder stream = new StringBuilder(": connected\n\n");
+        stream.append("id: e-1\nevent: change\n");
+        Persistence.toJSON(Change.added(1, event1)).lines()
+                .forEach(line -> stream.append("data: " + line + "\n"));
+        stream.append("\nid: e-2\nevent: change\n");
+        Persistence.toJSON(Change.added(2, event2)).lines()
+                .forEach(line -> stream.append("data: " + line + "\n"));
+        stream.append("\n: heartbeat\n\nid: e-3\nevent: reset\ndata: {}\n\n");
+        when(RestHelper.client.sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        new CustomHttpResponse(200, stream.toString())));
+
+        List<List<Change>> changes = new ArrayList<>();
+        int[] resets = {0};
+        RestHelper.subscribe(changes::add, () -> resets[0]++).join()
+                .orElseThrow(error -> new IllegalStateException(error));
+        assertEquals(1, changes.size());
+        assertEquals(2, changes.get(0).size());
+        assertEquals(event1, changes.get(0).get(0).getEvent());
+        assertEquals(event2, changes.get(0).get(1).getEvent());
+        assertEquals(1, resets[0]);
+    }
 }
 
 /**
@@ -392,15 +894,21 @@ public class RestHelperTest {
  */
 final class CustomHttpResponse implements HttpResponse<Object> {
     private int statusCode;
-    private String body;
+    private byte[] body;
+    private HttpHeaders headers;
 
     public CustomHttpResponse(int statusCode) {
         this(statusCode, "");
     }
 
     public CustomHttpResponse(int statusCode, String body) {
+        this(statusCode, body.getBytes(StandardCharsets.UTF_8), Map.of());
+    }
+
+    public CustomHttpResponse(int statusCode, byte[] body, Map<String, List<String>> headers) {
         this.statusCode = statusCode;
         this.body = body;
+        this.headers = HttpHeaders.of(headers, (name, value) -> true);
     }
 
     @Override
@@ -425,7 +933,7 @@ final class CustomHttpResponse implements HttpResponse<Object> {
 
     @Override
     public HttpHeaders headers() {
-        return null;
+        return headers;
     }
 
     @Override
@@ -439,7 +947,7 @@ final class CustomHttpResponse implements HttpResponse<Object> {
     }
 
     @Override
-    public String body() {
-        return body;
+    public InputStream body() {
+        return new ByteArrayInputStream(body);
     }
 }
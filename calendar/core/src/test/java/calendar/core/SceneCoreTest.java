@@ -2,6 +2,7 @@ package calendar.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -99,6 +100,23 @@ public class SceneCoreTest {
         assertNull(notValidScene, "Expected null Scene for a non-valid URL.");
     }
 
+    /**
+     * Tests {@link SceneCore#setScene(String)} with a scene that can't be
+     * loaded, expecting the stage to be left without a scene, and the scene to
+     * be loaded again the next time instead of kept.
+     */
+    @Test
+    void testSetSceneNotValid() throws MalformedURLException,
+            URISyntaxException {
+        URL notValidURL = new URI("http://example.com/nonValidPath").toURL();
+        when(mockLoader.apply("Missing.fxml")).thenReturn(notValidURL);
+
+        SceneCore.setScene("Missing.fxml");
+        SceneCore.setScene("Missing.fxml");
+        verify(mockStage, times(2)).setScene(null);
+        verify(mockLoader, times(2)).apply("Missing.fxml");
+    }
+
     /**
      * Tests {@link SceneCore#showStage()} to verify that the stage's {@code show()}
      * method is called.
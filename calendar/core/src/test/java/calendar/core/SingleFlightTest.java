@@ -0,0 +1,176 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test class for the {@link SingleFlight} class.
+ * <p>
+ * The requests are futures the tests complete themselves, and every request
+ * that is sent is recorded.
+ */
+public class SingleFlightTest {
+
+    private List<CompletableFuture<String>> requests;
+    private SingleFlight<String, String> flights;
+
+    /**
+     * Creates an empty single-flight before each test.
+     */
+    @BeforeEach
+    public void beforeEach() {
+        requests = new ArrayList<>();
+        flights = new SingleFlight<>();
+    }
+
+    private CompletableFuture<String> request() {
+        CompletableFuture<String> request = new CompletableFuture<>();
+        requests.add(request);
+        return request;
+    }
+
+    /**
+     * Tests that callers asking for the same key at once share one request,
+     * and that the next caller after it completes sends a new one.
+     */
+    @Test
+    public void testShared() {
+        CompletableFuture<String> first = flights.async("a", this::request);
+        CompletableFuture<String> second = flights.async("a", this::request);
+        flights.async("b", this::request);
+        assertEquals(2, requests.size());
+
+        requests.get(0).complete("result");
+        assertEquals("result", first.join());
+        assertEquals("result", second.join());
+
+        flights.async("a", this::request);
+        assertEquals(3, requests.size());
+    }
+
+    /**
+     * Tests that a failed request fails every caller waiting for it.
+     */
+    @Test
+    public void testFailed() {
+        CompletableFuture<String> first = flights.async("a", this::request);
+        CompletableFuture<String> second = flights.async("a", this::request);
+        requests.get(0).completeExceptionally(new IllegalStateException());
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+    }
+
+    /**
+     * Tests that the request is only cancelled once every caller waiting for
+     * it has cancelled.
+     */
+    @Test
+    public void testCancel() {
+        CompletableFuture<String> first = flights.async("a", this::request);
+        CompletableFuture<String> second = flights.async("a", this::request);
+
+        first.cancel(true);
+        assertFalse(requests.get(0).isCancelled());
+        second.cancel(true);
+        assertTrue(requests.get(0).isCancelled());
+
+        // A cancelled request is not shared with later callers
+        flights.async("a", this::request);
+        assertEquals(2, requests.size());
+    }
+
+    /**
+     * Tests that callers after {@link SingleFlight#clear()} send a new
+     * request, while callers from before still get the old one.
+     */
+    @Test
+    public void testClear() {
+        CompletableFuture<String> before = flights.async("a", this::request);
+        flights.clear();
+        CompletableFuture<String> after = flights.async("a", this::request);
+        assertEquals(2, requests.size());
+
+        requests.get(0).complete("old");
+        requests.get(1).complete("new");
+        assertEquals("old", before.join());
+        assertEquals("new", after.join());
+    }
+
+    /**
+     * Tests that blocking callers share a request with each other and with
+     * callers in the background.
+     */
+    @Test
+    public void testBlocking() throws InterruptedException {
+        AtomicInteger sent = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> results = new ArrayList<>();
+
+        Thread leader = Thread.ofVirtual().start(() -> {
+            String result = flights.get("a", () -> {
+                sent.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "result";
+            });
+            synchronized (results) {
+                results.add(result);
+            }
+        });
+        started.await();
+
+        CompletableFuture<String> waiter = flights.async("a", this::request);
+        waiter.cancel(true);
+        CompletableFuture<String> background = flights.async("a",
+                this::request);
+        Thread follower = Thread.ofPlatform().start(() -> {
+            String result = flights.get("a", () -> {
+                sent.incrementAndGet();
+                return "other";
+            });
+            synchronized (results) {
+                results.add(result);
+            }
+        });
+
+        // Let the follower start waiting for the leader's request
+        while (follower.getState() != Thread.State.WAITING) Thread.onSpinWait();
+        release.countDown();
+        leader.join();
+        follower.join();
+        assertEquals(List.of("result", "result"), results);
+        assertEquals("result", background.join());
+        assertEquals(1, sent.get());
+        assertEquals(0, requests.size());
+    }
+
+    /**
+     * Tests that an exception thrown by a blocking request reaches the caller
+     * that sent it.
+     */
+    @Test
+    public void testBlockingThrows() {
+        assertThrowsExactly(IllegalStateException.class,
+                () -> flights.get("a", () -> {
+                    throw new IllegalStateException();
+                }));
+        assertEquals("result", flights.get("a", () -> "result"));
+    }
+}
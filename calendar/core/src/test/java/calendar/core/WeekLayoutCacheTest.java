@@ -0,0 +1,128 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import calendar.types.Event;
+import javafx.scene.paint.Color;
+
+/**
+ * Unit test class for the {@link WeekLayoutCache} class.
+ * <p>
+ * The cache is given an executor that keeps the layouts it is asked to
+ * compute, so the tests can count them and run them themselves.
+ */
+public class WeekLayoutCacheTest {
+
+    private final UUID calendarId = UUID.randomUUID();
+    private final LocalDateTime startTime =
+            LocalDate.of(2024, 5, 13).atStartOfDay();
+    private final LocalDateTime endTime = startTime.plusWeeks(1);
+    private final Event event = new Event("event", "description",
+            startTime.plusHours(10), startTime.plusHours(11));
+
+    private List<Runnable> computed;
+    private WeekLayoutCache cache;
+
+    /**
+     * Creates an empty cache with room for two weeks before each test.
+     */
+    @BeforeEach
+    public void beforeEach() {
+        computed = new ArrayList<>();
+        cache = new WeekLayoutCache(2, computed::add);
+    }
+
+    private CompletableFuture<WeekLayout> get(final LocalDateTime week,
+            final Event... events) {
+        return cache.get(calendarId, List.of(events), week,
+                         week.plusWeeks(1));
+    }
+
+    /**
+     * Tests that the constructor rejects an empty cache and a missing
+     * executor.
+     */
+    @Test
+    public void testConstructor() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new WeekLayoutCache(0, Runnable::run));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new WeekLayoutCache(1, null));
+    }
+
+    /**
+     * Tests that a layout is computed on the executor, and only once for the
+     * same events.
+     */
+    @Test
+    public void testCached() {
+        CompletableFuture<WeekLayout> first = get(startTime, event);
+        assertFalse(first.isDone());
+        CompletableFuture<WeekLayout> second = get(startTime, event);
+        assertEquals(1, computed.size());
+
+        computed.get(0).run();
+        assertSame(first.join(), second.join());
+        assertEquals(event, first.join().getSegments().get(0).getEvent());
+
+        // An equal event with the same ID is the same version
+        Event copy = new Event(event.getTitle(), event.getDescription(),
+                               event.getStartTime(), event.getEndTime(),
+                               event.getColor(), event.getType(),
+                               event.getId());
+        get(startTime, copy);
+        assertEquals(1, computed.size());
+    }
+
+    /**
+     * Tests that a layout is computed again when the events change.
+     */
+    @Test
+    public void testChangedEvents() {
+        get(startTime, event);
+        get(startTime);
+        get(startTime, new Event(event.getTitle(), event.getDescription(),
+                                 event.getStartTime(), event.getEndTime(),
+                                 Color.RED, event.getType(), event.getId()));
+        get(startTime, new Event(event.getTitle(), event.getDescription(),
+                                 event.getStartTime(), event.getEndTime()));
+        assertEquals(4, computed.size());
+        cache.get(UUID.randomUUID(), List.of(), startTime, endTime);
+        assertEquals(5, computed.size());
+    }
+
+    /**
+     * Tests that the least recently used week is evicted when the cache is
+     * full.
+     */
+    @Test
+    public void testEviction() {
+        get(startTime, event);
+        get(startTime.plusWeeks(1), event);
+        get(startTime, event);
+        get(startTime.plusWeeks(2), event);
+        assertEquals(3, computed.size());
+
+        get(startTime, event);
+        assertEquals(3, computed.size());
+        get(startTime.plusWeeks(1), event);
+        assertEquals(4, computed.size());
+
+        cache.clear();
+        get(startTime.plusWeeks(1), event);
+        assertEquals(5, computed.size());
+    }
+}
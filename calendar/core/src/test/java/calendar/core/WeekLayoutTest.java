@@ -0,0 +1,147 @@
+package calendar.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import calendar.types.Event;
+import calendar.types.EventType;
+import javafx.scene.paint.Color;
+
+/**
+ * Unit test class for the {@link WeekLayout} class.
+ * <p>
+ * The layouts are of the week from Monday 13 May 2024.
+ */
+public class WeekLayoutTest {
+
+    private final LocalDate monday = LocalDate.of(2024, 5, 13);
+    private final LocalDateTime startTime = monday.atStartOfDay();
+    private final LocalDateTime endTime =
+            LocalDateTime.of(monday.plusDays(6), LocalTime.MAX);
+
+    private Event event(final int day, final int from, final int to) {
+        return new Event("event", "description",
+                         monday.plusDays(day).atTime(from, 0),
+                         monday.plusDays(day).atTime(to, 0));
+    }
+
+    private WeekLayout layout(final Event... events) {
+        return WeekLayout.of(List.of(events), startTime, endTime);
+    }
+
+    private void assertLane(final int lane,
+            final int lanes,
+            final WeekLayout.Segment segment) {
+        assertEquals(lane, segment.getLane());
+        assertEquals(lanes, segment.getLanes());
+    }
+
+    /**
+     * Tests that an event is drawn from the hour it starts to the hour it
+     * ends, alone in its day.
+     */
+    @Test
+    public void testSingleEvent() {
+        WeekLayout.Segment segment = layout(event(2, 10, 12)).getSegments()
+                .get(0);
+        assertEquals(2, segment.getColumn());
+        assertEquals(10, segment.getRow());
+        assertEquals(1, segment.getColumnSpan());
+        assertEquals(2, segment.getRowSpan());
+        assertLane(0, 1, segment);
+    }
+
+    /**
+     * Tests that an event over several days is split into a part for each
+     * day, and clipped to the week.
+     */
+    @Test
+    public void testMultiDayEvent() {
+        Event event = new Event("event", "description",
+                                monday.minusDays(1).atTime(8, 0),
+                                monday.plusDays(2).atTime(3, 0));
+        List<WeekLayout.Segment> segments = layout(event).getSegments();
+        assertEquals(3, segments.size());
+        assertEquals(0, segments.get(0).getRow());
+        assertEquals(24, segments.get(0).getRowSpan());
+        assertEquals(1, segments.get(1).getColumn());
+        assertEquals(24, segments.get(1).getRowSpan());
+        assertEquals(2, segments.get(2).getColumn());
+        assertEquals(3, segments.get(2).getRowSpan());
+    }
+
+    /**
+     * Tests that overlapping events are put side by side, that a lane is
+     * reused once it is free, and that events after a group of overlapping
+     * events have their day to themselves again.
+     */
+    @Test
+    public void testOverlappingEvents() {
+        Event long1 = event(0, 8, 12);
+        Event short1 = event(0, 8, 9);
+        Event short2 = event(0, 9, 10);
+        Event middle = event(0, 10, 13);
+        Event later = event(0, 14, 15);
+        Event otherDay = event(1, 8, 12);
+        List<WeekLayout.Segment> segments =
+                layout(short1, later, middle, otherDay, short2, long1)
+                        .getSegments();
+
+        // Listed in the order of the events
+        assertEquals(short1, segments.get(0).getEvent());
+        // The longer event starting at 8 takes the lane to the left
+        assertLane(1, 2, segments.get(0));
+        assertLane(0, 1, segments.get(1));
+        assertLane(1, 2, segments.get(2));
+        assertLane(0, 1, segments.get(3));
+        assertLane(1, 2, segments.get(4));
+        assertLane(0, 2, segments.get(5));
+    }
+
+    /**
+     * Tests that events touching at an hour don't overlap, and that a group
+     * takes as many lanes as its busiest hour.
+     */
+    @Test
+    public void testLaneCount() {
+        List<WeekLayout.Segment> segments = layout(event(3, 8, 9),
+                event(3, 9, 10), event(3, 8, 11), event(3, 9, 11),
+                event(3, 10, 11)).getSegments();
+        assertLane(1, 3, segments.get(0));
+        assertLane(2, 3, segments.get(1));
+        assertLane(0, 3, segments.get(2));
+        assertLane(1, 3, segments.get(3));
+        assertLane(2, 3, segments.get(4));
+    }
+
+    /**
+     * Tests that all-day events are given a row each, spanning their days.
+     */
+    @Test
+    public void testAllDayEvents() {
+        Event first = new Event("first", "description",
+                                monday.plusDays(1).atStartOfDay(),
+                                monday.plusDays(3).atStartOfDay(),
+                                Color.RED, EventType.ALL_DAY);
+        Event second = new Event("second", "description",
+                                 monday.atStartOfDay(),
+                                 monday.atStartOfDay(),
+                                 Color.RED, EventType.ALL_DAY);
+        WeekLayout layout = layout(first, second);
+
+        assertEquals(0, layout.getSegments().size());
+        List<WeekLayout.Segment> allDay = layout.getAllDaySegments();
+        assertEquals(1, allDay.get(0).getColumn());
+        assertEquals(0, allDay.get(0).getRow());
+        assertEquals(3, allDay.get(0).getColumnSpan());
+        assertEquals(0, allDay.get(1).getColumn());
+        assertEquals(1, allDay.get(1).getRow());
+        assertEquals(1, allDay.get(1).getColumnSpan());
+    }
+}
@@ -0,0 +1,77 @@
+package calendar.persistence;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The {@code FsyncPolicy} enum decides how often a {@link Journal} forces its
+ * records from the operating system's cache down to the disk.
+ *
+ * <p>
+ * Every record is handed to the operating system before it is acknowledged, so
+ * no policy loses records when only the process dies. The policies differ in
+ * what a power failure or kernel crash can lose, and in how long each append
+ * has to wait.
+ * </p>
+ *
+ * The current policies are:
+ * <ul>
+ * <li>{@link #ALWAYS} - Sync every group of records before acknowledging them.
+ * This is the default.</li>
+ * <li>{@link #INTERVAL} - Sync at most once per interval.</li>
+ * <li>{@link #NEVER} - Leave syncing to the operating system.</li>
+ * </ul>
+ */
+public enum FsyncPolicy {
+    /**
+     * Syncs the journal before acknowledging any record, so an acknowledged
+     * record is never lost. Records that arrive together share one sync.
+     */
+    ALWAYS,
+    /**
+     * Syncs the journal at most once per interval, so a power failure loses at
+     * most the records of the last interval.
+     */
+    INTERVAL,
+    /**
+     * Never syncs the journal while it is open, and leaves it to the operating
+     * system to write the records to disk.
+     */
+    NEVER;
+
+    /** The system property used to pick the fsync policy. */
+    public static final String POLICY_PROPERTY = "calendar.fsync";
+
+    /**
+     * The system property used to set the interval of {@link #INTERVAL}, in
+     * milliseconds.
+     */
+    public static final String INTERVAL_PROPERTY = "calendar.fsync.interval";
+
+    /** The default interval of {@link #INTERVAL}, in milliseconds. */
+    public static final long DEFAULT_INTERVAL = 1000;
+
+    /**
+     * Gets the policy configured through the {@value #POLICY_PROPERTY} system
+     * property, or {@link #ALWAYS} if it is not set.
+     *
+     * @return                          the configured {@code FsyncPolicy}
+     * @throws IllegalArgumentException if the configured policy is unknown
+     */
+    public static FsyncPolicy fromSystemProperties() {
+        return valueOf(System.getProperty(POLICY_PROPERTY, ALWAYS.name())
+                .toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the interval configured through the {@value #INTERVAL_PROPERTY}
+     * system property, or {@value #DEFAULT_INTERVAL} milliseconds if it is not
+     * set.
+     *
+     * @return the configured interval
+     */
+    public static Duration intervalFromSystemProperties() {
+        return Duration.ofMillis(Long.getLong(INTERVAL_PROPERTY,
+                                              DEFAULT_INTERVAL));
+    }
+}
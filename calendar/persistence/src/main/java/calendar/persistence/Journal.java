@@ -0,0 +1,433 @@
+package calendar.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The {@code Journal} class is an append-only log of records, stored in a file
+ * as one line of compact JSON per record.
+ *
+ * <p>
+ * Records are written by a single background thread. Every record that is
+ * waiting when the thread wakes up is written, and synced according to the
+ * {@link FsyncPolicy}, as one group, so many concurrent appends share a single
+ * write and sync. {@link #append(Object)} returns straight away with a future
+ * that completes once the record is safely written.
+ * </p>
+ *
+ * <p>
+ * At startup, {@link #replay(Consumer)} reads the records back in the order
+ * they were appended. A record that was only partly written when the process
+ * died is cut off the end of the file.
+ * </p>
+ *
+ * <p>
+ * To keep the journal from growing forever, {@link #rotate()} seals the
+ * records written so far into a separate file, next to the journal, while new
+ * records keep going to the journal itself. Once the sealed records are saved
+ * somewhere else, like in a snapshot, {@link #discardSealed()} deletes them.
+ * Until then, they are replayed before the journal.
+ * </p>
+ *
+ * @param <T> the type of the records in the journal
+ */
+public final class Journal<T> implements Closeable {
+
+    /** The line separator between records. */
+    private static final byte NEWLINE = '\n';
+
+    /** A record waiting to be written, with the future to complete. */
+    private static final class Pending {
+        /** The record as a line of JSON, without the line separator. */
+        private final byte[] line;
+        /** The future completed when the record is written. */
+        private final CompletableFuture<Void> written;
+
+        Pending(final byte[] line, final CompletableFuture<Void> written) {
+            this.line = line;
+            this.written = written;
+        }
+    }
+
+    /** The marker queued by {@link #close()} to stop the writer thread. */
+    private static final Pending CLOSE = new Pending(null, null);
+
+    /** The suffix added to the path of the journal for the sealed records. */
+    private static final String SEALED_SUFFIX = ".sealed";
+
+    /** The path of the journal file. */
+    private final Path path;
+
+    /** The path of the file with the sealed records. */
+    private final Path sealedPath;
+
+    /** The class of the records in the journal. */
+    private final Class<T> type;
+
+    /** How often the journal is synced to disk. */
+    private final FsyncPolicy policy;
+
+    /** The interval between syncs for {@link FsyncPolicy#INTERVAL}. */
+    private final long interval;
+
+    /** The lock guarding the journal file against concurrent use. */
+    private final Object fileLock = new Object();
+
+    /** The open journal file. */
+    private FileChannel channel;
+
+    /** The records waiting to be written. */
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    /** The thread writing the queued records to the file. */
+    private final Thread writer;
+
+    /** Whether the journal has been closed. */
+    private boolean closed;
+
+    /** Whether records have been written since the last sync. */
+    private boolean dirty;
+
+    /** The time of the last sync, in nanoseconds. */
+    private long lastSync = System.nanoTime();
+
+    /**
+     * Opens the journal at the given path, creating the file if it does not
+     * exist. New records are appended after the records already in the file.
+     *
+     * @param  path        the path of the journal file
+     * @param  type        the class of the records in the journal
+     * @param  policy      how often the journal is synced to disk
+     * @param  interval    the interval between syncs, only used by
+     *                     {@link FsyncPolicy#INTERVAL}
+     * @throws IOException if the file can't be opened
+     */
+    public Journal(final Path path,
+            final Class<T> type,
+            final FsyncPolicy policy,
+            final Duration interval) throws IOException {
+        this.path = path;
+        this.sealedPath = Path.of(path + SEALED_SUFFIX);
+        this.type = type;
+        this.policy = policy;
+        this.interval = interval.toNanos();
+        this.channel = open(path);
+        this.writer = Thread.ofPlatform().name("journal-writer").daemon()
+                .start(this::run);
+    }
+
+    /**
+     * Reads every record in the journal, in the order they were appended, and
+     * passes them to the consumer. Sealed records that have not been discarded
+     * come first.
+     *
+     * <p>
+     * Reading a file stops at the first record that is incomplete or can't be
+     * parsed, which only happens if the process died while writing it. That
+     * record, and anything after it in the file, is cut off.
+     * </p>
+     *
+     * <p>
+     * This should be called once, before anything is appended.
+     * </p>
+     *
+     * @param  consumer    the consumer receiving the records
+     * @return             the number of records read
+     * @throws IOException if the files can't be read or truncated
+     */
+    public int replay(final Consumer<? super T> consumer) throws IOException {
+        synchronized (fileLock) {
+            int count = 0;
+            if (Files.exists(sealedPath)) {
+                try (FileChannel sealed = FileChannel.open(sealedPath,
+                        StandardOpenOption.WRITE)) {
+                    count += replay(sealedPath, sealed, consumer);
+                }
+            }
+            return count + replay(path, channel, consumer);
+        }
+    }
+
+    private int replay(final Path file,
+            final FileChannel fileChannel,
+            final Consumer<? super T> consumer) throws IOException {
+        long valid = 0;
+        long offset = 0;
+        int count = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        try (InputStream in =
+                new BufferedInputStream(Files.newInputStream(file))) {
+            int next;
+            while ((next = in.read()) != -1) {
+                offset++;
+                if (next != NEWLINE) {
+                    line.write(next);
+                    continue;
+                }
+
+                T record;
+                try {
+                    record = Persistence.readFrom(type,
+                            new ByteArrayInputStream(line.toByteArray()));
+                } catch (IOException e) {
+                    break;
+                }
+                consumer.accept(record);
+                line.reset();
+                valid = offset;
+                count++;
+            }
+        }
+
+        // Cut off the record that was being written when the process died
+        if (valid < fileChannel.size()) {
+            System.err.println("Dropping " + (fileChannel.size() - valid)
+                    + " bytes of incomplete records from " + file);
+            fileChannel.truncate(valid);
+        }
+        fileChannel.position(valid);
+        return count;
+    }
+
+    /**
+     * Appends a record to the journal.
+     *
+     * <p>
+     * The record is serialized straight away, so it can't be affected by later
+     * changes to the object, and then queued for the writer thread. Records
+     * are written in the order this method is called.
+     * </p>
+     *
+     * @param  record the record to append
+     * @return        a future that completes when the record is written and
+     *                synced according to the {@link FsyncPolicy}, or completes
+     *                exceptionally if it could not be written
+     */
+    public CompletableFuture<Void> append(final T record) {
+        byte[] line;
+        try {
+            line = Persistence.toCompactJSON(record);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        synchronized (queue) {
+            if (closed)
+                return CompletableFuture
+                        .failedFuture(new IOException("Journal is closed"));
+            queue.add(new Pending(line, written));
+        }
+        return written;
+    }
+
+    /**
+     * Seals every record written so far, so the journal itself starts out
+     * empty. Records appended after this are written to the journal, and are
+     * never sealed along with the earlier ones.
+     *
+     * <p>
+     * If the records sealed by an earlier rotation have not been discarded,
+     * the new ones are added after them.
+     * </p>
+     *
+     * @throws IOException if the records can't be sealed
+     */
+    public void rotate() throws IOException {
+        synchronized (fileLock) {
+            channel.force(false);
+
+            if (Files.exists(sealedPath)) {
+                // Keep the earlier sealed records ahead of the new ones
+                try (FileChannel sealed = FileChannel.open(sealedPath,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)) {
+                    long position = 0;
+                    while (position < channel.size())
+                        position += channel.transferTo(position,
+                                                       channel.size()
+                                                               - position,
+                                                       sealed);
+                    sealed.force(false);
+                }
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(false);
+                return;
+            }
+
+            channel.close();
+            Files.move(path, sealedPath, StandardCopyOption.ATOMIC_MOVE);
+            channel = open(path);
+        }
+    }
+
+    /**
+     * Deletes the records sealed by {@link #rotate()}. Used once they are part
+     * of a snapshot and no longer need to be replayed.
+     *
+     * @throws IOException if the sealed records can't be deleted
+     */
+    public void discardSealed() throws IOException {
+        synchronized (fileLock) {
+            Files.deleteIfExists(sealedPath);
+        }
+    }
+
+    /**
+     * Gets the size of the journal file, which holds the records appended
+     * since the last rotation.
+     *
+     * @return             the size of the file in bytes
+     * @throws IOException if the size can't be read
+     */
+    public long size() throws IOException {
+        synchronized (fileLock) {
+            return channel.size();
+        }
+    }
+
+    /**
+     * Writes and syncs every record appended so far, and closes the journal.
+     * Appending to a closed journal fails.
+     *
+     * @throws IOException if the file can't be synced or closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (queue) {
+            if (closed) return;
+            closed = true;
+            queue.add(CLOSE);
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (fileLock) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+
+    /**
+     * Opens a journal file for appending, creating it if it does not exist.
+     *
+     * @param  file        the path of the file
+     * @return             the open file, positioned at its end
+     * @throws IOException if the file can't be opened
+     */
+    private static FileChannel open(final Path file) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file,
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+        fileChannel.position(fileChannel.size());
+        return fileChannel;
+    }
+
+    /**
+     * The loop run by the writer thread, writing the queued records in groups
+     * until the journal is closed.
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            // Wait for records, but wake up in time for a pending sync
+            Pending next;
+            try {
+                next = policy == FsyncPolicy.INTERVAL && dirty
+                        ? queue.poll(lastSync + interval - System.nanoTime(),
+                                     TimeUnit.NANOSECONDS)
+                        : queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (next == null) {
+                sync(batch);
+                continue;
+            }
+
+            batch.add(next);
+            queue.drainTo(batch);
+            boolean closing = batch.remove(CLOSE);
+
+            write(batch);
+            batch.clear();
+            if (closing) return;
+        }
+    }
+
+    /**
+     * Writes a group of records to the file as a single write, syncs the file
+     * if the policy requires it, and completes the records' futures.
+     *
+     * @param batch the records to write
+     */
+    private void write(final List<Pending> batch) {
+        int length = 0;
+        for (Pending pending : batch) length += pending.line.length + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (Pending pending : batch) buffer.put(pending.line).put(NEWLINE);
+        buffer.flip();
+
+        try {
+            synchronized (fileLock) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            dirty = true;
+        } catch (IOException e) {
+            batch.forEach(pending -> pending.written.completeExceptionally(e));
+            return;
+        }
+
+        if (policy == FsyncPolicy.ALWAYS
+                || (policy == FsyncPolicy.INTERVAL
+                        && System.nanoTime() - lastSync >= interval)) {
+            sync(batch);
+        } else {
+            batch.forEach(pending -> pending.written.complete(null));
+        }
+    }
+
+    /**
+     * Syncs the file to disk, and completes the futures of the given records.
+     *
+     * @param batch the records that are complete once the file is synced
+     */
+    private void sync(final List<Pending> batch) {
+        try {
+            synchronized (fileLock) {
+                channel.force(false);
+            }
+            dirty = false;
+            lastSync = System.nanoTime();
+            batch.forEach(pending -> pending.written.complete(null));
+        } catch (IOException e) {
+            batch.forEach(pending -> pending.written.completeExceptionally(e));
+        }
+    }
+}
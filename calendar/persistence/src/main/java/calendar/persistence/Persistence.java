@@ -1,13 +1,23 @@
 package calendar.persistence;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -17,6 +27,17 @@ import calendar.persistence.internal.ColorDeserializer;
 import calendar.persistence.internal.ColorSerializer;
 import calendar.persistence.internal.UUIDDeserializer;
 
+/**
+ * The {@code Persistence} class converts objects to and from JSON, both for
+ * the save file and for the messages sent between the REST API and its
+ * clients.
+ *
+ * <p>
+ * The Jackson mapper is only configured once. The readers and writers made
+ * from it are immutable and thread-safe, so one of each is cached per type and
+ * shared by every caller, instead of paying for the setup on every call.
+ * </p>
+ */
 public final class Persistence {
     private Persistence() {
 
@@ -25,6 +46,99 @@ public final class Persistence {
     /** The default filepath for the savefile to be saved at. */
     public static final String DEAFULT_FILE_PATH = "./userdata.json";
 
+    /** The suffix of the temporary file written before replacing a file. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** The mapper every reader and writer is created from. */
+    private static final ObjectMapper MAPPER = createMapper();
+
+    /** The cached reader for each type that has been read. */
+    private static final Map<Class<?>, ObjectReader> READERS =
+            new ConcurrentHashMap<>();
+
+    /** The cached writer for each type that has been written. */
+    private static final Map<Class<?>, ObjectWriter> WRITERS =
+            new ConcurrentHashMap<>();
+
+    /** The cached single line writer for each type, used by the journal. */
+    private static final Map<Class<?>, ObjectWriter> COMPACT_WRITERS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates the mapper shared by every reader and writer.
+     *
+     * <p>
+     * It registers a {@link ColorSerializer} and {@link ColorDeserializer} for
+     * {@link Color} objects, a {@link UUIDDeserializer} for {@link UUID}
+     * objects and a {@link JavaTimeModule} for Java 8+ date/time objects, and
+     * indents its output for readability. Streams passed to it are left open,
+     * so the caller decides when they are closed.
+     * </p>
+     *
+     * @return the configured {@link ObjectMapper}
+     */
+    private static ObjectMapper createMapper() {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Color.class, new ColorSerializer());
+        module.addDeserializer(Color.class, new ColorDeserializer());
+        module.addDeserializer(UUID.class, new UUIDDeserializer());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(module);
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        mapper.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return mapper;
+    }
+
+    /**
+     * Gets the cached reader for the given type, creating it the first time.
+     *
+     * @param  objectType the class of the objects to read
+     * @return            the {@link ObjectReader} for the type
+     */
+    private static ObjectReader reader(final Class<?> objectType) {
+        return READERS.computeIfAbsent(objectType, MAPPER::readerFor);
+    }
+
+    /**
+     * Gets the cached writer for the given type, creating it the first time.
+     *
+     * @param  objectType the class of the objects to write
+     * @return            the {@link ObjectWriter} for the type
+     */
+    private static ObjectWriter writer(final Class<?> objectType) {
+        return WRITERS.computeIfAbsent(objectType, MAPPER::writerFor);
+    }
+
+    /**
+     * Gets the type a writer is picked by for an object, which is
+     * {@link Object} for {@code null}, so it is written as {@code null}.
+     *
+     * @param  object the object to write, or {@code null}
+     * @return        the class of the object
+     */
+    private static Class<?> typeOf(final Object object) {
+        return object == null ? Object.class : object.getClass();
+    }
+
+    /**
+     * Serializes an object to compact JSON on a single line, encoded as UTF-8.
+     * Used by the {@link Journal}, which stores one record per line.
+     *
+     * @param  object      the object to serialize to JSON
+     * @return             the JSON as UTF-8 bytes, without any line breaks
+     * @throws IOException if an I/O error occurs during serialization
+     */
+    static byte[] toCompactJSON(final Object object) throws IOException {
+        return COMPACT_WRITERS
+                .computeIfAbsent(typeOf(object),
+                                 type -> MAPPER.writerFor(type).without(
+                                         SerializationFeature.INDENT_OUTPUT))
+                .writeValueAsBytes(object);
+    }
+
     /**
      * Serializes the given object to a JSON file at the {@code default} file
      * path.
@@ -53,7 +167,10 @@ public final class Persistence {
      * into a JSON format and writes it to the file specified by the filepath.
      * </p>
      *
-     * The file will be overwritten if it already exists.
+     * The file will be overwritten if it already exists. The object is first
+     * written to a temporary file, which then replaces the file in one step,
+     * so the file always holds either the old or the new JSON in full, even if
+     * the process dies while writing.
      *
      * @param  <T>         the type of the object to be serialized
      * @param  object      the object to be serialized and written to the file
@@ -63,19 +180,26 @@ public final class Persistence {
      */
     public static <T> void write(final T object, final String filepath)
             throws IOException {
-        Files.writeString(Path.of(filepath), toJSON(object));
+        // Write a temporary file next to the target, and swap it in when done
+        Path target = Path.of(filepath).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(object, Channels.newOutputStream(channel));
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                   StandardCopyOption.REPLACE_EXISTING);
     }
 
     /**
-     * Serializes an object to a JSON-formatted string with specific
-     * serialization configurations.
+     * Serializes an object to a JSON-formatted string.
+     *
      * <p>
-     * This method uses the Jackson library to convert an object of type
-     * {@code T} to a JSON string. It registers custom serializers, including a
-     * {@link ColorSerializer} for {@link Color} objects and a
-     * {@link JavaTimeModule} for Java 8+ date/time objects, enabling a more
-     * specialized serialization process. The JSON output is also formatted with
-     * indentation for readability.
+     * Prefer {@link #writeTo(Object, OutputStream)} when the JSON is going to
+     * be written somewhere anyway, as it skips building the string.
      * </p>
      *
      * @param  <T>         the type of the object to be serialized
@@ -85,17 +209,25 @@ public final class Persistence {
      * @throws IOException if an I/O error occurs during serialization
      */
     public static <T> String toJSON(final T object) throws IOException {
-        SimpleModule module = new SimpleModule();
-        module.addSerializer(Color.class, new ColorSerializer());
-
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.registerModule(module);
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        return writer(typeOf(object)).writeValueAsString(object);
+    }
 
-        OutputStream outputStream = new ByteArrayOutputStream();
-        mapper.writeValue(outputStream, object);
-        return outputStream.toString();
+    /**
+     * Serializes an object as JSON straight into the given stream.
+     *
+     * <p>
+     * The JSON is encoded as UTF-8 and written as it is generated, so the whole
+     * payload is never held in memory. The stream is flushed, but not closed.
+     * </p>
+     *
+     * @param  <T>          the type of the object to be serialized
+     * @param  object       the object to serialize to JSON
+     * @param  outputStream the stream to write the JSON to
+     * @throws IOException  if an I/O error occurs during serialization
+     */
+    public static <T> void writeTo(final T object,
+            final OutputStream outputStream) throws IOException {
+        writer(typeOf(object)).writeValue(outputStream, object);
     }
 
     /**
@@ -147,21 +279,15 @@ public final class Persistence {
      */
     public static <T> T read(final Class<T> objectType, final String filepath)
             throws IOException {
-        return fromJSON(objectType, Files.readString(Path.of(filepath)));
+        try (InputStream inputStream =
+                Files.newInputStream(Path.of(filepath))) {
+            return readFrom(objectType, inputStream);
+        }
     }
 
     /**
      * Deserializes a JSON-formatted string into an object of the specified
      * type.
-     * <p>
-     * This method uses the Jackson library to convert a JSON string into an
-     * instance of the given class type {@code T}. It registers custom
-     * deserializers, including a {@link ColorDeserializer} for {@link Color}
-     * objects and a {@link UUIDDeserializer} for {@link UUID} objects, to
-     * handle specialized deserialization requirements. Additionally, a
-     * {@link JavaTimeModule} is registered to support Java 8+ date/time
-     * classes.
-     * </p>
      *
      * @param  <T>         the type of the object to be deserialized
      * @param  objectType  the {@link Class} of the object to deserialize to
@@ -173,17 +299,28 @@ public final class Persistence {
      */
     public static <T> T fromJSON(final Class<T> objectType, final String json)
             throws IOException {
-        SimpleModule module = new SimpleModule();
-        module.addDeserializer(Color.class, new ColorDeserializer());
-        module.addDeserializer(UUID.class, new UUIDDeserializer());
-
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.enable(SerializationFeature.INDENT_OUTPUT);
-        mapper.registerModule(module);
-
-        T object = mapper.readValue(json, objectType);
+        return reader(objectType).readValue(json);
+    }
 
-        return object;
+    /**
+     * Deserializes JSON read straight from the given stream into an object of
+     * the specified type.
+     *
+     * <p>
+     * The JSON is parsed as it is read, so the whole payload is never held in
+     * memory. The stream is left open.
+     * </p>
+     *
+     * @param  <T>         the type of the object to be deserialized
+     * @param  objectType  the {@link Class} of the object to deserialize to
+     * @param  inputStream the stream to read the JSON from
+     * @return             an instance of {@code T} populated with data from the
+     *                     stream
+     * @throws IOException if an I/O error occurs during deserialization or if
+     *                     the JSON is invalid
+     */
+    public static <T> T readFrom(final Class<T> objectType,
+            final InputStream inputStream) throws IOException {
+        return reader(objectType).readValue(inputStream);
     }
 }
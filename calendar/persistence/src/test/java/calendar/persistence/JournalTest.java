@@ -0,0 +1,183 @@
+package calendar.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import calendar.types.Event;
+
+/**
+ * Test class for the {@link Journal} class, verifying that appended records
+ * are replayed in order, that concurrent appends are all written, and that a
+ * partly written record at the end of the file is dropped.
+ */
+public class JournalTest {
+
+    private static final Path TEST_FILE_PATH = Path.of("test.journal");
+
+    /**
+     * Deletes the test files after each test to ensure a clean state for
+     * subsequent tests.
+     *
+     * @throws IOException if the file can't be deleted.
+     */
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(TEST_FILE_PATH);
+        Files.deleteIfExists(Path.of(TEST_FILE_PATH + ".sealed"));
+    }
+
+    private static Journal<Event> open(final FsyncPolicy policy) throws IOException {
+        return new Journal<>(TEST_FILE_PATH, Event.class, policy, Duration.ofMillis(10));
+    }
+
+    private static Event event(final int i) {
+        LocalDateTime start = LocalDateTime.of(2024, 10, 7, 10, 0).plusHours(i);
+        return new Event("Event " + i, "Description", start, start.plusHours(1));
+    }
+
+    private static List<Event> replay() throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (Journal<Event> journal = open(FsyncPolicy.NEVER)) {
+            journal.replay(events::add);
+        }
+        return events;
+    }
+
+    /**
+     * Tests appending records with every {@link FsyncPolicy} and replaying
+     * them after the journal is reopened.
+     *
+     * @throws Exception if the journal can't be written or read.
+     */
+    @Test
+    public void testAppendAndReplay() throws Exception {
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            List<Event> expected = new ArrayList<>();
+            try (Journal<Event> journal = open(policy)) {
+                assertEquals(0, journal.replay(e -> { }));
+                for (int i = 0; i < 10; i++) {
+                    expected.add(event(i));
+                    journal.append(expected.get(i)).get();
+                }
+            }
+
+            List<Event> events = replay();
+            assertEquals(expected, events);
+            for (int i = 0; i < expected.size(); i++)
+                assertEquals(expected.get(i).getId(), events.get(i).getId());
+
+            Files.delete(TEST_FILE_PATH);
+        }
+    }
+
+    /**
+     * Tests that records appended from many threads at once are all written,
+     * sharing group commits.
+     *
+     * @throws Exception if the journal can't be written or read.
+     */
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        final int threads = 8;
+        final int records = 200;
+        List<Thread> writers = new ArrayList<>();
+        try (Journal<Event> journal = open(FsyncPolicy.ALWAYS)) {
+            for (int t = 0; t < threads; t++) {
+                final int offset = t * records;
+                writers.add(Thread.ofPlatform().start(() -> {
+                    List<CompletableFuture<Void>> written = new ArrayList<>();
+                    for (int i = 0; i < records; i++)
+                        written.add(journal.append(event(offset + i)));
+                    written.forEach(CompletableFuture::join);
+                }));
+            }
+            for (Thread writer : writers) writer.join();
+        }
+
+        assertEquals(threads * records, replay().size());
+    }
+
+    /**
+     * Tests that a record that was only partly written is dropped when the
+     * journal is replayed, and that new records are appended after the last
+     * complete one.
+     *
+     * @throws Exception if the journal can't be written or read.
+     */
+    @Test
+    public void testTornRecordIsTruncated() throws Exception {
+        try (Journal<Event> journal = open(FsyncPolicy.ALWAYS)) {
+            journal.append(event(0)).get();
+            journal.append(event(1)).get();
+        }
+        long size = Files.size(TEST_FILE_PATH);
+        Files.write(TEST_FILE_PATH, "{\"title\":\"Ev".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (Journal<Event> journal = open(FsyncPolicy.ALWAYS)) {
+            assertEquals(2, journal.replay(e -> { }));
+            assertEquals(size, journal.size());
+            journal.append(event(2)).get();
+        }
+
+        assertEquals(List.of(event(0), event(1), event(2)), replay());
+    }
+
+    /**
+     * Tests rotating the journal, verifying that sealed records are replayed
+     * before newer ones until they are discarded, and that a second rotation
+     * keeps the records of the first one.
+     *
+     * @throws Exception if the journal can't be written or read.
+     */
+    @Test
+    public void testRotate() throws Exception {
+        try (Journal<Event> journal = open(FsyncPolicy.ALWAYS)) {
+            journal.append(event(0)).get();
+            journal.rotate();
+            assertEquals(0, journal.size());
+            journal.append(event(1)).get();
+            journal.rotate();
+            journal.append(event(2)).get();
+        }
+        assertEquals(List.of(event(0), event(1), event(2)), replay());
+
+        try (Journal<Event> journal = open(FsyncPolicy.ALWAYS)) {
+            journal.discardSealed();
+        }
+        assertEquals(List.of(event(2)), replay());
+        assertFalse(Files.exists(Path.of(TEST_FILE_PATH + ".sealed")));
+    }
+
+    /**
+     * Tests that appending to a closed journal fails.
+     *
+     * @throws Exception if the journal can't be opened.
+     */
+    @Test
+    public void testAppendAfterClose() throws Exception {
+        Journal<Event> journal = open(FsyncPolicy.ALWAYS);
+        journal.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> journal.append(event(0)).get());
+        assertTrue(e.getCause() instanceof IOException);
+    }
+}
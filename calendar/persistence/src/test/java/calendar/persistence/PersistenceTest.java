@@ -3,14 +3,21 @@ package calendar.persistence;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -242,4 +249,97 @@ public class PersistenceTest {
                 .size(), 3);
 
     }
+
+    /**
+     * Tests that {@code null} is written as {@code null}, both to a string and
+     * to a stream.
+     *
+     * @throws IOException if an I/O error occurs during write.
+     */
+    @Test
+    public void testNullToJSON() throws IOException {
+        assertEquals("null", Persistence.toJSON(null));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Persistence.writeTo(null, outputStream);
+        assertEquals("null", outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tests writing an {@link Event} to a stream and reading it back from a
+     * stream, verifying the event survives the round trip and that neither
+     * stream is closed by {@link Persistence}.
+     *
+     * @throws IOException if an I/O error occurs during write or read.
+     */
+    @Test
+    public void testWriteToAndReadFromStream() throws IOException {
+        Event event = new Event("Title", "Description", LocalDateTime.now(),
+                LocalDateTime.now().plusHours(1));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                fail("The output stream should not be closed");
+            }
+        };
+        Persistence.writeTo(event, outputStream);
+        assertEquals(Persistence.toJSON(event),
+                outputStream.toString(StandardCharsets.UTF_8));
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(
+                outputStream.toByteArray()) {
+            @Override
+            public void close() {
+                fail("The input stream should not be closed");
+            }
+        };
+        Event readEvent = Persistence.readFrom(Event.class, inputStream);
+        assertEquals(event, readEvent);
+        assertEquals(event.getId(), readEvent.getId());
+    }
+
+    /**
+     * Tests that reading the same type from many threads at once, which shares
+     * one cached reader, gives every thread the right result.
+     *
+     * @throws Exception if a thread fails or is interrupted.
+     */
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final int threads = 8;
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+            events.add(new Event("Event " + i, "", LocalDateTime.now(),
+                    LocalDateTime.now().plusHours(i)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Event>> results = new ArrayList<>();
+            for (Event event : events) {
+                String json = Persistence.toJSON(event);
+                results.add(executor.submit(
+                        () -> Persistence.fromJSON(Event.class, json)));
+            }
+            for (int i = 0; i < threads; i++)
+                assertEquals(events.get(i), results.get(i).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that writing over an existing file replaces it in one step,
+     * leaving no temporary file behind.
+     *
+     * @throws IOException if an I/O error occurs during write or read.
+     */
+    @Test
+    public void testWriteReplacesFile() throws IOException {
+        Persistence.write(new RestUser("first", "password"), TEST_FILE_PATH);
+        Persistence.write(new RestUser("second", "password"), TEST_FILE_PATH);
+
+        assertEquals("second", Persistence.read(RestUser.class, TEST_FILE_PATH).getUsername());
+        assertFalse(new File(TEST_FILE_PATH + ".tmp").exists());
+    }
 }
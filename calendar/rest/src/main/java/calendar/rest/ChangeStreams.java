@@ -0,0 +1,225 @@
+package calendar.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import calendar.persistence.Persistence;
+import calendar.types.Change;
+import calendar.types.RestCalendar;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * The {@code ChangeStreams} class pushes the changes made to calendars to the
+ * clients that watch them, as Server-Sent Events over a long-lived response.
+ *
+ * <p>
+ * Every stream is served by its own virtual thread, which sleeps until the
+ * {@link RestAPI} signals that its calendar changed, so an idle stream costs
+ * no more than a parked thread and an open connection, whichever executor
+ * handles the other requests. When woken, the stream reads what changed from
+ * the calendar's change log, so changes made while a client is slow are sent
+ * together rather than queued up. A client that falls so far behind that the
+ * log no longer has its changes is sent a "reset" event instead, telling it to
+ * fetch the calendar again.
+ * </p>
+ *
+ * <p>
+ * Each change is sent as a "change" event with the {@link Change} as JSON, and
+ * the version after it as the event ID. A comment is sent when nothing has
+ * changed for {@value #HEARTBEAT_PROPERTY} seconds, so streams whose client
+ * went away are noticed and closed.
+ * </p>
+ */
+public final class ChangeStreams {
+
+    /** The system property used to set the time between heartbeats. */
+    public static final String HEARTBEAT_PROPERTY = "calendar.stream.heartbeat";
+
+    /** The default time between heartbeats, in seconds. */
+    public static final long DEFAULT_HEARTBEAT = 15;
+
+    /** Status code for {@code success}. */
+    private static final int OK = 200;
+
+    /** Response length telling the server to send the body in chunks. */
+    private static final long CHUNKED = 0;
+
+    /** A client watching a calendar. */
+    private static final class Stream {
+        /** Released when the calendar changes, or the stream should end. */
+        private final Semaphore signal = new Semaphore(0);
+        /** Whether the stream should end. */
+        private volatile boolean ended;
+
+        void wake() {
+            // A single permit is enough to catch up on every change
+            if (signal.availablePermits() == 0) signal.release();
+        }
+    }
+
+    /** The open streams, by the ID of the calendar they watch. */
+    private final Map<UUID, Set<Stream>> streams = new ConcurrentHashMap<>();
+
+    /** The prefix of the event IDs, so they only match on this server. */
+    private final String epoch;
+
+    /** The time between heartbeats, in nanoseconds. */
+    private final long heartbeat;
+
+    /**
+     * Creates a set of change streams without any open streams.
+     *
+     * @param epoch     the prefix of the event IDs, as in the versions of
+     *                  change feeds
+     * @param heartbeat the time between heartbeats on a stream where nothing
+     *                  changes
+     */
+    public ChangeStreams(final String epoch, final Duration heartbeat) {
+        this.epoch = epoch;
+        this.heartbeat = heartbeat.toNanos();
+    }
+
+    /**
+     * Creates a set of change streams, with as much time between heartbeats as
+     * the {@value #HEARTBEAT_PROPERTY} system property says.
+     *
+     * @param  epoch the prefix of the event IDs
+     * @return       a new {@code ChangeStreams}
+     */
+    public static ChangeStreams fromSystemProperties(final String epoch) {
+        return new ChangeStreams(epoch, Duration.ofSeconds(
+                Long.getLong(HEARTBEAT_PROPERTY, DEFAULT_HEARTBEAT)));
+    }
+
+    /**
+     * Starts streaming the changes made to a calendar after the given version
+     * to a client. The response headers are sent straight away, and the
+     * stream is served by a new virtual thread, so this returns at once.
+     *
+     * @param  t           the HttpExchange object representing the HTTP
+     *                     request and response context
+     * @param  calendar    the calendar to watch
+     * @param  since       the version to send the changes after
+     * @throws IOException if an I/O error occurs while sending the headers
+     */
+    public void open(final HttpExchange t,
+            final RestCalendar calendar,
+            final long since) throws IOException {
+        t.getResponseHeaders().set("Content-Type",
+                                   "text/event-stream; charset=utf-8");
+        t.getResponseHeaders().set("Cache-Control", "no-cache");
+        t.sendResponseHeaders(OK, CHUNKED);
+
+        Stream stream = new Stream();
+        streams.computeIfAbsent(calendar.getCalendarId(),
+                                id -> ConcurrentHashMap.newKeySet())
+                .add(stream);
+
+        // Catch up on changes made before the stream was registered
+        stream.wake();
+        Thread.ofVirtual().name("stream-" + calendar.getCalendarId())
+                .start(() -> serve(t, calendar, since, stream));
+    }
+
+    /**
+     * Wakes the streams watching a calendar, so they send what changed.
+     *
+     * @param calendarId the ID of the calendar that changed
+     */
+    public void changed(final UUID calendarId) {
+        Set<Stream> watching = streams.get(calendarId);
+        if (watching != null) watching.forEach(Stream::wake);
+    }
+
+    /**
+     * Ends the streams watching a calendar, such as when it is removed.
+     *
+     * @param calendarId the ID of the calendar
+     */
+    public void end(final UUID calendarId) {
+        Set<Stream> watching = streams.remove(calendarId);
+        if (watching == null) return;
+        for (Stream stream : watching) {
+            stream.ended = true;
+            stream.wake();
+        }
+    }
+
+    /**
+     * Ends every open stream, such as when the server shuts down.
+     */
+    public void close() {
+        streams.keySet().forEach(this::end);
+    }
+
+    private void serve(final HttpExchange t,
+            final RestCalendar calendar,
+            final long since,
+            final Stream stream) {
+        long version = since;
+        try (OutputStream o = t.getResponseBody()) {
+            write(o, ": connected\n\n");
+            while (!stream.ended) {
+                if (!stream.signal.tryAcquire(heartbeat,
+                                              TimeUnit.NANOSECONDS)) {
+                    write(o, ": heartbeat\n\n");
+                    continue;
+                }
+                if (stream.ended) break;
+
+                Optional<List<Change>> changes = calendar.getChanges(version);
+                if (changes.isEmpty()) {
+                    // Too far behind, the client has to fetch everything
+                    version = calendar.getVersion();
+                    write(o, event("reset", version, "{}"));
+                    continue;
+                }
+                for (Change change : changes.get()) {
+                    version = change.getVersion();
+                    write(o, event("change",
+                                   version,
+                                   Persistence.toJSON(change)));
+                }
+            }
+        } catch (IOException e) {
+            // The client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            streams.computeIfPresent(calendar.getCalendarId(), (id, set) -> {
+                set.remove(stream);
+                return set.isEmpty() ? null : set;
+            });
+            t.close();
+        }
+    }
+
+    private String event(final String name,
+            final long version,
+            final String data) {
+        // Every line of the data gets its own field, the client joins them
+        StringBuilder event = new StringBuilder()
+                .append("id: ").append(epoch).append('-').append(version)
+                .append("\nevent: ").append(name).append('\n');
+        data.lines().forEach(line -> event.append("data: ").append(line)
+                .append('\n'));
+        return event.append('\n').toString();
+    }
+
+    private static void write(final OutputStream o, final String text)
+            throws IOException {
+        o.write(text.getBytes(StandardCharsets.UTF_8));
+        o.flush();
+    }
+}
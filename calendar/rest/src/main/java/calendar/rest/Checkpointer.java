@@ -0,0 +1,172 @@
+package calendar.rest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import calendar.persistence.Journal;
+import calendar.persistence.Persistence;
+import calendar.types.Mutation;
+import calendar.types.UserStore;
+
+/**
+ * The {@code Checkpointer} class saves the user data of the {@link RestAPI} in
+ * the background, so the journal of changes since the last save stays short.
+ *
+ * <p>
+ * A checkpoint seals the journal, copies the {@link UserStore}, saves the copy,
+ * and then discards the sealed part of the journal. The copy is taken one
+ * calendar at a time, each only locked for as long as it takes to copy its
+ * list of events, so requests are never held up by the save. Changes made
+ * while the copy is taken may or may not end up in it, but they are all in the
+ * journal after the seal, and replaying a change that is already saved does
+ * nothing, so the saved data and the journal together are always complete.
+ * </p>
+ *
+ * <p>
+ * A checkpoint is made when the journal has grown past
+ * {@value #SIZE_PROPERTY} bytes, or when {@value #INTERVAL_PROPERTY} seconds
+ * have passed since the last one, whichever comes first.
+ * </p>
+ */
+public final class Checkpointer {
+
+    /** The system property used to set the time between checkpoints. */
+    public static final String INTERVAL_PROPERTY =
+            "calendar.checkpoint.interval";
+
+    /**
+     * The system property used to set the size the journal can grow to before
+     * a checkpoint.
+     */
+    public static final String SIZE_PROPERTY = "calendar.checkpoint.size";
+
+    /** The default time between checkpoints, in seconds. */
+    public static final long DEFAULT_INTERVAL = 300;
+
+    /** The default size of the journal that triggers a checkpoint, in bytes. */
+    public static final long DEFAULT_SIZE = 16 * 1024 * 1024;
+
+    /** How often the journal size is checked, in milliseconds. */
+    private static final long POLL_INTERVAL = 1000;
+
+    /** The store that is saved. */
+    private final UserStore store;
+
+    /** The journal of changes to the store. */
+    private final Journal<Mutation> journal;
+
+    /** The path of the file the store is saved to. */
+    private final Path path;
+
+    /** The longest time between checkpoints, in nanoseconds. */
+    private final long interval;
+
+    /** The size of the journal that triggers a checkpoint. */
+    private final long size;
+
+    /** The thread checking whether a checkpoint is due. */
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> Thread
+                    .ofPlatform().name("checkpointer").daemon().unstarted(r));
+
+    /** The time of the last checkpoint, in nanoseconds. */
+    private long lastCheckpoint = System.nanoTime();
+
+    /**
+     * Creates a checkpointer for the given store and journal. Checkpoints are
+     * only made automatically once {@link #start()} is called.
+     *
+     * @param store    the {@link UserStore} to save
+     * @param journal  the {@link Journal} of changes to the store
+     * @param path     the path of the file the store is saved to
+     * @param interval the longest time between checkpoints
+     * @param size     the size in bytes the journal can grow to before a
+     *                 checkpoint
+     */
+    public Checkpointer(final UserStore store,
+            final Journal<Mutation> journal,
+            final Path path,
+            final Duration interval,
+            final long size) {
+        this.store = store;
+        this.journal = journal;
+        this.path = path;
+        this.interval = interval.toNanos();
+        this.size = size;
+    }
+
+    /**
+     * Creates a checkpointer configured through the {@value #INTERVAL_PROPERTY}
+     * and {@value #SIZE_PROPERTY} system properties.
+     *
+     * @param  store   the {@link UserStore} to save
+     * @param  journal the {@link Journal} of changes to the store
+     * @param  path    the path of the file the store is saved to
+     * @return         a new {@code Checkpointer}
+     */
+    public static Checkpointer fromSystemProperties(final UserStore store,
+            final Journal<Mutation> journal,
+            final Path path) {
+        return new Checkpointer(store,
+                                journal,
+                                path,
+                                Duration.ofSeconds(Long.getLong(
+                                        INTERVAL_PROPERTY, DEFAULT_INTERVAL)),
+                                Long.getLong(SIZE_PROPERTY, DEFAULT_SIZE));
+    }
+
+    /**
+     * Starts checking in the background whether a checkpoint is due.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::poll,
+                                         POLL_INTERVAL,
+                                         POLL_INTERVAL,
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checking whether a checkpoint is due, and waits for a running
+     * checkpoint to finish.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Saves the store and discards the part of the journal the save makes
+     * unnecessary. If saving fails, the journal is kept as it is.
+     *
+     * @throws IOException if the journal can't be sealed, or the store can't
+     *                     be saved
+     */
+    public synchronized void checkpoint() throws IOException {
+        journal.rotate();
+        Persistence.write(new UserStore(store), path.toString());
+        journal.discardSealed();
+        lastCheckpoint = System.nanoTime();
+    }
+
+    /**
+     * Makes a checkpoint if the journal is too large or the last one is too
+     * long ago.
+     */
+    private void poll() {
+        try {
+            if (journal.size() == 0) return;
+            if (journal.size() >= size
+                    || System.nanoTime() - lastCheckpoint >= interval)
+                checkpoint();
+        } catch (IOException e) {
+            System.err.println("Failed to save userStore with error message: "
+                    + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package calendar.rest;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code ExecutionMode} enum decides how the {@link RestAPI} server runs
+ * the exchanges it receives.
+ *
+ * <p>
+ * Without an executor the {@code HttpServer} handles every exchange on its
+ * single dispatcher thread, so one slow client blocks everybody else. Both
+ * modes below hand each exchange off to another thread instead.
+ * </p>
+ *
+ * The current modes are:
+ * <ul>
+ * <li>{@link #VIRTUAL} - One virtual thread per request. This is the
+ * default.</li>
+ * <li>{@link #PLATFORM} - A bounded pool of platform threads.</li>
+ * </ul>
+ */
+public enum ExecutionMode {
+    /**
+     * Runs every exchange on its own virtual thread, so thousands of slow
+     * connections can be held open without tying up a platform thread each.
+     */
+    VIRTUAL,
+    /**
+     * Runs the exchanges on a fixed size pool of platform threads, for when
+     * the number of concurrently handled requests should be capped.
+     */
+    PLATFORM;
+
+    /** The system property used to pick the execution mode. */
+    public static final String MODE_PROPERTY = "calendar.executor";
+
+    /** The system property used to size the {@link #PLATFORM} pool. */
+    public static final String THREADS_PROPERTY = "calendar.threads";
+
+    /**
+     * Creates the executor that matches this mode.
+     *
+     * @param  threads the number of threads in the pool, only used by
+     *                 {@link #PLATFORM}
+     * @return         a new {@link ExecutorService} for the server
+     */
+    public ExecutorService createExecutor(final int threads) {
+        return switch (this) {
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case PLATFORM -> Executors.newFixedThreadPool(Math.max(1, threads));
+        };
+    }
+
+    /**
+     * Creates the executor configured through the {@value #MODE_PROPERTY} and
+     * {@value #THREADS_PROPERTY} system properties.
+     *
+     * <p>
+     * The mode defaults to {@link #VIRTUAL}, and the pool size defaults to the
+     * number of available processors.
+     * </p>
+     *
+     * @return                          a new {@link ExecutorService} for the
+     *                                  server
+     * @throws IllegalArgumentException if the configured mode is unknown
+     */
+    public static ExecutorService fromSystemProperties() {
+        ExecutionMode mode = valueOf(System
+                .getProperty(MODE_PROPERTY, VIRTUAL.name())
+                .toUpperCase(Locale.ROOT));
+        int threads = Integer.getInteger(THREADS_PROPERTY,
+                                         Runtime.getRuntime()
+                                                 .availableProcessors());
+        return mode.createExecutor(threads);
+    }
+}
@@ -1,26 +1,50 @@
 package calendar.rest;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
+import calendar.persistence.FsyncPolicy;
+import calendar.persistence.Journal;
 import calendar.persistence.Persistence;
+import calendar.types.BatchOperation;
+import calendar.types.BatchResult;
+import calendar.types.Change;
+import calendar.types.ChangeFeed;
+import calendar.types.Lockable;
+import calendar.types.Mutation;
+import calendar.types.MutationType;
 import calendar.types.RestUser;
 import calendar.types.RestCalendar;
 import calendar.types.User;
 import calendar.types.UserStore;
 import calendar.types.Event;
+import calendar.types.EventCodec;
 import calendar.types.EventType;
 
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import javafx.scene.paint.Color;
@@ -37,10 +61,13 @@ import javafx.scene.paint.Color;
  * <ul>
  * <li><b>/users</b> - for managing users, including creation and password
  * validation</li>
+ * <li><b>/login</b> - for starting and ending sessions, so later requests can
+ * send a session token instead of the password</li>
  * <li><b>/calendar</b> - for managing user-specific calendars, supporting
  * calendar creation, retrieval, and deletion</li>
  * <li><b>/event</b> - for managing events within user calendars, supporting
  * creation, retrieval, modification, and deletion of events</li>
+ * <li><b>/batch</b> - for making many event changes in one request</li>
  * </ul>
  *
  * <p>
@@ -55,28 +82,74 @@ import javafx.scene.paint.Color;
  * operations</li>
  * <li><b>409 Conflict</b> - for conflicting resources, such as duplicate
  * usernames</li>
+ * <li><b>500 Internal Server Error</b> - for changes that could not be
+ * written to the journal</li>
  * </ul>
  *
  * <p>
- * The server listens on a static port and uses a simple JSON-based persistence
- * model for user data. User data is persisted in a JSON file, which is loaded
- * at server start-up and saved during shutdown.
+ * The server listens on a configurable port and uses a simple JSON-based
+ * persistence model for user data. User data is persisted in a JSON file,
+ * which is loaded at server start-up and saved in the background by a
+ * {@link Checkpointer} and during shutdown. Every change in between is
+ * appended to a {@link Journal} before the request is answered, and the
+ * journal is replayed on top of the JSON file at start-up, so no change is
+ * lost if the server dies. How often the journal is synced to disk is chosen
+ * through {@link FsyncPolicy}.
+ *
+ * <p>
+ * Requests are handled concurrently by the executor chosen through
+ * {@link ExecutionMode}, by default one virtual thread per request.
  */
 public final class RestAPI {
     private RestAPI() {
 
     }
 
+    /** Thrown when a change could not be written to the {@link #journal}. */
+    private static final class JournalException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        JournalException(final Throwable cause) {
+            super("Failed to write to the journal", cause);
+        }
+    }
+
     /** The class all the info from the json-file goes into. */
     private static UserStore userStore;
 
-    /** The portnumber the restAPI opens at. */
+    /** The sessions of the users that have logged in. */
+    private static SessionStore sessions;
+
+    /** The journal every change to {@link #userStore} is recorded in. */
+    private static Journal<Mutation> journal;
+
+    /** The streams pushing changes to the clients watching calendars. */
+    private static ChangeStreams streams;
+
+    /** The system property used to set the port the restAPI opens at. */
+    public static final String PORT_PROPERTY = "calendar.port";
+
+    /** The system property used to set the file the user data is saved to. */
+    public static final String DATA_PROPERTY = "calendar.data";
+
+    /** The system property used to set the file of the journal. */
+    public static final String JOURNAL_PROPERTY = "calendar.journal";
+
+    /** The default path of the file the user data is saved to. */
+    private static final String DATA_FILE_PATH = "rest/userdata.json";
+
+    /** The default path of the journal of changes since the last save. */
+    private static final String JOURNAL_FILE_PATH = "rest/userdata.journal";
+
+    /** The default portnumber the restAPI opens at. */
     private static final int PORT = 8000;
 
     /** Status code for {@code success}. */
     private static final int OK = 200;
     /** Status code for {@code request succeeded}. */
     private static final int CREATED = 201;
+    /** Status code for {@code resource not modified}. */
+    private static final int NOT_MODIFIED = 304;
 
     /**
      * Status code for {@code server cannot or will not process the request}.
@@ -88,10 +161,51 @@ public final class RestAPI {
     private static final int NOT_FOUND = 404;
     /** Status code for {@code request conflict}. */
     private static final int CONFLICT = 409;
+    /** Status code for {@code server failed to handle the request}. */
+    private static final int INTERNAL_SERVER_ERROR = 500;
 
     /** Variable used for comparing path lengths. */
     private static final int EXPECTED_PARAMETERS = 3;
 
+    /**
+     * The path length of "/calendar/{calendarId}/changes" and
+     * "/calendar/{calendarId}/stream".
+     */
+    private static final int CHANGES_PARAMETERS = 4;
+
+    /** The most operations a batch can hold. */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /** Seconds to wait for running exchanges to finish during shutdown. */
+    private static final int SHUTDOWN_DELAY = 2;
+
+    /** Response length telling the server to send the body in chunks. */
+    private static final long CHUNKED = 0;
+
+    /** Response length telling the server there is no body. */
+    private static final long NO_BODY = -1;
+
+    /** The smallest plain text body that is worth compressing, in bytes. */
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    /** The size of the buffer used when compressing a body. */
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    /**
+     * The start time of this server, put in every entity tag and change feed
+     * version. Versions of calendars start over when the server restarts, so
+     * versions from an earlier run never match.
+     */
+    private static final String TAG_EPOCH =
+            Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /**
+     * The system property that makes the server send responses without
+     * waiting for more data, instead of holding back the body until the
+     * client acknowledges the headers.
+     */
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
     /**
      * The main entry point of the API server. It initializes the user data from
      * a JSON file, defines the RESTful endpoints, and starts the HTTP server.
@@ -100,10 +214,12 @@ public final class RestAPI {
      * Endpoints supported by the API server:
      * <ul>
      * <li><b>/users</b>: POST (create user), GET (retrieve user info)</li>
+     * <li><b>/login</b>: POST (start a session), DELETE (end a session)</li>
      * <li><b>/calendar</b>: POST (create calendar), DELETE (remove calendar),
      * GET (retrieve calendar events)</li>
      * <li><b>/event</b>: POST (create event), DELETE (remove event), PUT
      * (update event)</li>
+     * <li><b>/batch</b>: POST (create, update and remove many events)</li>
      * </ul>
      *
      * @param  args        command-line arguments (not used)
@@ -112,7 +228,8 @@ public final class RestAPI {
      */
     public static void main(final String[] args) throws IOException {
         // Make sure file exists
-        Path filepath = Path.of("rest/userdata.json");
+        Path filepath =
+                Path.of(System.getProperty(DATA_PROPERTY, DATA_FILE_PATH));
         if (Files.notExists(filepath) || Files.size(filepath) == 0)
             Files.write(filepath, "null".getBytes());
 
@@ -121,26 +238,67 @@ public final class RestAPI {
         if (userStore == null)
             userStore = new UserStore(new HashMap<>(), new HashMap<>());
 
-        // Define server
-        HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        // Replay changes made since the database was last saved
+        journal = new Journal<>(Path.of(System.getProperty(JOURNAL_PROPERTY,
+                                                           JOURNAL_FILE_PATH)),
+                                Mutation.class,
+                                FsyncPolicy.fromSystemProperties(),
+                                FsyncPolicy.intervalFromSystemProperties());
+        journal.replay(mutation -> mutation.applyTo(userStore));
+
+        sessions = SessionStore.fromSystemProperties();
+        streams = ChangeStreams.fromSystemProperties(TAG_EPOCH);
+
+        // Define server, sending small responses straight away
+        if (System.getProperty(NODELAY_PROPERTY) == null)
+            System.setProperty(NODELAY_PROPERTY, "true");
+        HttpServer server = HttpServer.create(
+                new InetSocketAddress(Integer.getInteger(PORT_PROPERTY, PORT)),
+                0);
+        ExecutorService executor = ExecutionMode.fromSystemProperties();
+        server.setExecutor(executor);
 
         // Create endpoints
-        server.createContext("/users", RestAPI::userContext);
-        server.createContext("/calendar", RestAPI::calendarContext);
-        server.createContext("/event", RestAPI::eventContext);
+        server.createContext("/users", journaled(RestAPI::userContext));
+        server.createContext("/login", RestAPI::loginContext);
+        server.createContext("/calendar", journaled(RestAPI::calendarContext));
+        server.createContext("/event", journaled(RestAPI::eventContext));
+        server.createContext("/batch", RestAPI::batchContext);
 
         // Start server
         server.start();
 
+        // Save database in the background
+        Checkpointer checkpointer =
+                Checkpointer.fromSystemProperties(userStore, journal, filepath);
+        checkpointer.start();
+
         // Save database
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            streams.close();
+            server.stop(SHUTDOWN_DELAY);
+            executor.shutdown();
             try {
-                Persistence.write(userStore, filepath.toString());
+                executor.awaitTermination(SHUTDOWN_DELAY, TimeUnit.SECONDS);
+                checkpointer.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            try {
+                checkpointer.checkpoint();
             } catch (IOException e) {
                 System.err
                         .println("Failed to save userStore with error message: "
                                 + e.getMessage());
             }
+
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close journal: "
+                        + e.getMessage());
+            }
         }));
     }
 
@@ -171,7 +329,8 @@ public final class RestAPI {
      * </li>
      * <li><b>GET requests</b>:
      * <ul>
-     * <li>Include a password in the request headers to authenticate.</li>
+     * <li>Include a password, or the token of a session of the user, in the
+     * request headers to authenticate.</li>
      * <li>If the user does not exist, responds with HTTP 404 Not Found.</li>
      * <li>If the password is incorrect, responds with HTTP 401
      * Unauthorized.</li>
@@ -216,14 +375,6 @@ public final class RestAPI {
 
         // User creation
         if (t.getRequestMethod().equals("POST")) {
-            // Username already exists
-            if (userStore.hasUsername(username)) {
-                sendResponse(t,
-                             CONFLICT,
-                             "User '" + username + "' already exists");
-                return;
-            }
-
             // Get password
             Optional<String> password = Optional
                     .ofNullable(t.getRequestHeaders().getFirst("password"));
@@ -234,11 +385,18 @@ public final class RestAPI {
                 return;
             }
 
-            // Create user
-            userStore.addUser(new RestUser(username, password.get()));
+            // Create user, unless the username is already taken
+            RestUser user = new RestUser(username, password.get());
+            if (!commit(Mutation.addUser(user), userStore, user)) {
+                sendResponse(t,
+                             CONFLICT,
+                             "User '" + username + "' already exists");
+                return;
+            }
             sendResponse(t,
                          CREATED,
                          "User '" + username + "' created successfully");
+            return;
         }
 
         // User retreival
@@ -251,18 +409,162 @@ public final class RestAPI {
             return;
         }
 
-        // Validate password
+        // Validate session or password
+        Optional<String> token =
+                Optional.ofNullable(t.getRequestHeaders().getFirst("token"));
         Optional<String> password =
                 Optional.ofNullable(t.getRequestHeaders().getFirst("password"));
-        if (password.isEmpty() || !user.get().checkPassword(password.get())) {
+        boolean authorized = token.isPresent()
+                ? token.flatMap(sessions::validate)
+                        .map(user.get().getUserId()::equals).orElse(false)
+                : password.map(user.get()::checkPassword).orElse(false);
+        if (!authorized) {
             sendResponse(t, UNAUTHORIZED, "Wrong password");
             return;
         }
 
         // Serialze and send user data
-        sendResponse(t, OK, Persistence.toJSON(new User(user.get())));
+        sendJSON(t, OK, new User(user.get()));
     };
 
+    /**
+     * Handles HTTP requests for the "/login" endpoint, supporting starting and
+     * ending sessions.
+     * <p>
+     * Supported operations:
+     * <ul>
+     * <li>POST - Check the password of a user once, and start a session for
+     * them. The response body is the session token, which can be sent in the
+     * "token" header of later requests instead of the username and
+     * password.</li>
+     * <li>DELETE - End the session given in the "token" header.</li>
+     * </ul>
+     * Unsupported operations (GET, PATCH, PUT) respond with a "Not found"
+     * status.
+     *
+     * <p>
+     * Request Requirements:
+     * <ul>
+     * <li><b>Path Format</b>: POST requests must have the path
+     * "/login/{username}", DELETE requests the path "/login".</li>
+     * <li><b>POST requests</b>: Include the password in the request headers as
+     * "password".</li>
+     * <li><b>DELETE requests</b>: Include the session token in the request
+     * headers as "token".</li>
+     * </ul>
+     *
+     * <p>
+     * Response Status Codes:
+     * <ul>
+     * <li><b>201 Created</b> - If a session is started.</li>
+     * <li><b>200 OK</b> - If a session is ended.</li>
+     * <li><b>400 Bad Request</b> - If the path is wrong, or the password or
+     * token is missing.</li>
+     * <li><b>401 Unauthorized</b> - If the user does not exist, the password
+     * is wrong, or there is no such session.</li>
+     * <li><b>404 Not Found</b> - If the operation is not supported.</li>
+     * </ul>
+     *
+     * @param  t           the {@link HttpExchange} object representing the HTTP
+     *                     request and response context
+     * @throws IOException if an error occurs while sending a response
+     */
+    private static void loginContext(final HttpExchange t) throws IOException {
+        String[] path = t.getRequestURI().getPath().toString().split("/");
+
+        // Session ending
+        if (t.getRequestMethod().equals("DELETE")) {
+            Optional<String> token = Optional
+                    .ofNullable(t.getRequestHeaders().getFirst("token"));
+            if (path.length != 2 || token.isEmpty()) {
+                sendResponse(t, BAD_REQUEST, "Token required");
+                return;
+            }
+            if (!sessions.remove(token.get())) {
+                sendResponse(t, UNAUTHORIZED, "Invalid or expired session");
+                return;
+            }
+            sendResponse(t, OK, "Logged out");
+            return;
+        }
+
+        if (!t.getRequestMethod().equals("POST")) {
+            sendResponse(t, NOT_FOUND, "Not found");
+            return;
+        }
+
+        // Validate path
+        if (path.length != EXPECTED_PARAMETERS) {
+            sendResponse(t, BAD_REQUEST, "Wrong number of arguments");
+            return;
+        }
+
+        // Password not provided
+        Optional<String> password =
+                Optional.ofNullable(t.getRequestHeaders().getFirst("password"));
+        if (password.isEmpty()) {
+            sendResponse(t, BAD_REQUEST, "Password is required");
+            return;
+        }
+
+        // Wrong credentials
+        Optional<RestUser> user =
+                userStore.getUserId(path[2]).flatMap(userStore::getUser);
+        if (!user.map(u -> u.checkPassword(password.get())).orElse(false)) {
+            sendResponse(t, UNAUTHORIZED, "Wrong credentials");
+            return;
+        }
+
+        sendResponse(t, CREATED, sessions.create(user.get().getUserId()));
+    }
+
+    /**
+     * Finds the user making a request, either from the session token in the
+     * "token" header, or from the "username" and "password" headers. If the
+     * user can't be found, an error response is sent.
+     *
+     * @param  t           the {@link HttpExchange} object representing the HTTP
+     *                     request and response context
+     * @return             an {@code Optional} containing the user, or an empty
+     *                     {@code Optional} if a response has already been sent
+     * @throws IOException if an error occurs while sending a response
+     */
+    private static Optional<RestUser> authenticate(final HttpExchange t)
+            throws IOException {
+        // Session token
+        Optional<String> token =
+                Optional.ofNullable(t.getRequestHeaders().getFirst("token"));
+        if (token.isPresent()) {
+            Optional<RestUser> user = sessions.validate(token.get())
+                    .flatMap(userStore::getUser);
+            if (user.isEmpty())
+                sendResponse(t, UNAUTHORIZED, "Invalid or expired session");
+            return user;
+        }
+
+        // Get credentials
+        Optional<String> password =
+                Optional.ofNullable(t.getRequestHeaders().getFirst("password"));
+        Optional<String> username =
+                Optional.ofNullable(t.getRequestHeaders().getFirst("username"));
+
+        // Credentials not provided
+        if (password.isEmpty() || username.isEmpty()) {
+            sendResponse(t, BAD_REQUEST, "Credentials required");
+            return Optional.empty();
+        }
+
+        // Wrong credentials
+        Optional<RestUser> user =
+                userStore.getUserId(username.get()).flatMap(userStore::getUser);
+        if (!user.map(u -> u.checkPassword(password.get())).orElse(false)) {
+            sendResponse(t, UNAUTHORIZED, "Wrong credentials");
+            return Optional.empty();
+        }
+
+        return user;
+    }
+
     /**
      * Handles HTTP requests for the "/calendar" endpoint, supporting calendar
      * creation, deletion, and event retrieval.
@@ -286,10 +588,15 @@ public final class RestAPI {
      * <li>POST requests should have a path format of "/calendar".</li>
      * <li>DELETE and GET requests should have a path format of
      * "/calendar/{calendarId}".</li>
+     * <li>GET requests for the changes to a calendar should have a path
+     * format of "/calendar/{calendarId}/changes", optionally with a "since"
+     * query parameter.</li>
+     * <li>GET requests for a stream of the changes to a calendar should have
+     * a path format of "/calendar/{calendarId}/stream".</li>
      * </ul>
      * </li>
-     * <li><b>Credentials</b>: Include "username" and "password" in the request
-     * headers to authenticate.</li>
+     * <li><b>Credentials</b>: Include a session "token", or "username" and
+     * "password", in the request headers to authenticate.</li>
      * </ul>
      *
      * <p>
@@ -298,8 +605,10 @@ public final class RestAPI {
      * <li><b>201 Created</b> - If a calendar is created successfully.</li>
      * <li><b>200 OK</b> - If events are retrieved or a calendar is deleted
      * successfully.</li>
-     * <li><b>400 Bad Request</b> - If required parameters, such as credentials
-     * or dates, are missing or invalid.</li>
+     * <li><b>304 Not Modified</b> - If the calendar is unchanged since the
+     * version in the "If-None-Match" header.</li>
+     * <li><b>400 Bad Request</b> - If required parameters, such as credentials,
+     * dates or versions, are missing or invalid.</li>
      * <li><b>401 Unauthorized</b> - If the provided credentials are
      * incorrect.</li>
      * <li><b>404 Not Found</b> - If the calendar does not exist or the path is
@@ -315,6 +624,33 @@ public final class RestAPI {
      * to retrieve events occurring after this time.</li>
      * </ul>
      *
+     * <p>
+     * Events are sent with the version of the calendar as their "ETag". A
+     * client that sends it back in the "If-None-Match" header is answered with
+     * an empty "304 Not Modified" response while the calendar is unchanged.
+     * </p>
+     *
+     * <p>
+     * Events are sent as JSON, or in the binary format of {@link EventCodec}
+     * to clients that list {@value EventCodec#MEDIA_TYPE} in their "Accept"
+     * header.
+     * </p>
+     *
+     * <p>
+     * The changes endpoint answers with a {@link ChangeFeed} of the events
+     * added, edited and removed since the version in the "since" parameter,
+     * taken from the version of an earlier feed. If those changes are no
+     * longer known, or no version is given, the feed is a reset holding every
+     * event in the calendar.
+     * </p>
+     *
+     * <p>
+     * The stream endpoint keeps the response open, and pushes every change to
+     * the calendar as it is made, as Server-Sent Events. A client that
+     * reconnects with the "Last-Event-ID" header gets the changes it missed.
+     * See {@link ChangeStreams}.
+     * </p>
+     *
      * @param  t           the {@link HttpExchange} object representing the HTTP
      *                     request and response context
      * @throws IOException if an error occurs while sending a response
@@ -329,30 +665,18 @@ public final class RestAPI {
         // Validate path
         String[] path = t.getRequestURI().getPath().toString().split("/");
         if (!(path.length == EXPECTED_PARAMETERS
+                || (path.length == CHANGES_PARAMETERS
+                        && (path[EXPECTED_PARAMETERS].equals("changes")
+                                || path[EXPECTED_PARAMETERS].equals("stream"))
+                        && t.getRequestMethod().equals("GET"))
                 || (path.length == 2 && t.getRequestMethod().equals("POST")))) {
             sendResponse(t, BAD_REQUEST, "Wrong number of arguments");
             return;
         }
 
-        // Get credentials
-        Optional<String> password =
-                Optional.ofNullable(t.getRequestHeaders().getFirst("password"));
-        Optional<String> username =
-                Optional.ofNullable(t.getRequestHeaders().getFirst("username"));
-
-        // Credentials not provided
-        if (password.isEmpty() || username.isEmpty()) {
-            sendResponse(t, BAD_REQUEST, "Credentials required");
-            return;
-        }
-
-        // Wrong credentials
-        Optional<RestUser> user =
-                userStore.getUserId(username.get()).flatMap(userStore::getUser);
-        if (!user.map(u -> u.checkPassword(password.get())).orElse(false)) {
-            sendResponse(t, UNAUTHORIZED, "Wrong credentials");
-            return;
-        }
+        // Authenticate
+        Optional<RestUser> user = authenticate(t);
+        if (user.isEmpty()) return;
 
         // Calendar creation
         if (t.getRequestMethod().equals("POST")) {
@@ -360,7 +684,13 @@ public final class RestAPI {
                     Optional.ofNullable(t.getRequestHeaders().getFirst("name"));
             RestCalendar calendar =
                     new RestCalendar(name.orElse("Unnamed calendar"));
-            user.get().addCalendar(calendar);
+            if (!commit(Mutation.addCalendar(user.get().getUserId(),
+                                             calendar),
+                        user.get(),
+                        calendar)) {
+                sendResponse(t, NOT_FOUND, "User not found");
+                return;
+            }
             sendResponse(t,
                          CREATED,
                          "Calendar with id: '" + calendar.getCalendarId()
@@ -370,17 +700,40 @@ public final class RestAPI {
 
         // Get Calendar
         UUID calendarId = UUID.fromString(path[2]);
-        Optional<RestCalendar> calendar = user.get().getCalendars().stream()
-                .filter(c -> c.getCalendarId().equals(calendarId)).findFirst();
+        Optional<RestCalendar> calendar = user.get().getCalendar(calendarId);
 
         // Calendar does not exist
         if (calendar.isEmpty()) {
             sendResponse(t, NOT_FOUND, "Calendar not found");
+            return;
+        }
+
+        // Changes since the client last synced
+        if (path.length == CHANGES_PARAMETERS
+                && path[EXPECTED_PARAMETERS].equals("changes")) {
+            sendChanges(t, calendar.get());
+            return;
+        }
+
+        // Changes as they are made, from where an earlier stream ended
+        if (path.length == CHANGES_PARAMETERS) {
+            Optional<Long> lastEventId = Optional
+                    .ofNullable(t.getRequestHeaders().getFirst("Last-Event-ID"))
+                    .flatMap(RestAPI::parseVersion);
+            streams.open(t,
+                         calendar.get(),
+                         lastEventId.orElseGet(calendar.get()::getVersion));
+            return;
         }
 
         // Calendar deletion
         if (t.getRequestMethod().equals("DELETE")) {
-            user.get().removeCalendar(calendar.get());
+            if (!commit(Mutation.removeCalendar(user.get().getUserId(),
+                                                calendarId),
+                        user.get())) {
+                sendResponse(t, NOT_FOUND, "Calendar not found");
+                return;
+            }
             sendResponse(t,
                          OK,
                          "Calendar with id: '" + calendar.get().getCalendarId()
@@ -402,16 +755,151 @@ public final class RestAPI {
             return;
         }
 
+        // Unchanged since the client last fetched it. The version is read
+        // before the events, so it is never newer than the events sent.
+        String tag = entityTag(calendar.get());
+        t.getResponseHeaders().set("ETag", tag);
+        if (matches(t, tag)) {
+            t.sendResponseHeaders(NOT_MODIFIED, NO_BODY);
+            t.close();
+            return;
+        }
+
         // Get events
-        List<Event> events = calendar.get().getEvents().stream()
-                .filter(event -> before.map(event.getStartTime()::isBefore)
-                        .orElse(true)
-                        && after.map(event.getEndTime()::isAfter).orElse(true))
-                .toList();
+        List<Event> events = calendar.get().getEvents(before, after);
 
-        sendResponse(t, OK, Persistence.toJSON(events));
+        sendEvents(t, OK, events);
     };
 
+    /**
+     * Gets the entity tag of the current version of a calendar. The tag is
+     * weak, as the events are the same whether or not they are compressed.
+     *
+     * @param  calendar the calendar
+     * @return          the entity tag, quoted
+     */
+    private static String entityTag(final RestCalendar calendar) {
+        return "W/\"" + versionOf(calendar.getVersion()) + "\"";
+    }
+
+    /**
+     * Gets the version of a calendar as sent to clients, which only matches
+     * versions sent by this run of the server.
+     *
+     * @param  version the version of the calendar
+     * @return         the version, prefixed with {@link #TAG_EPOCH}
+     */
+    private static String versionOf(final long version) {
+        return TAG_EPOCH + "-" + version;
+    }
+
+    /**
+     * Parses a version sent to a client by {@link #versionOf(long)}.
+     *
+     * @param  version the version, as sent to the client
+     * @return         an {@code Optional} containing the version of the
+     *                 calendar, or an empty {@code Optional} if it is malformed
+     *                 or from an earlier run of the server
+     */
+    private static Optional<Long> parseVersion(final String version) {
+        if (!version.matches(TAG_EPOCH + "-[0-9]{1,18}"))
+            return Optional.empty();
+        return Optional.of(Long.parseLong(version
+                .substring(TAG_EPOCH.length() + 1)));
+    }
+
+    /**
+     * Sends the changes made to a calendar since the version in the "since"
+     * query parameter, or every event in the calendar if those changes are no
+     * longer known.
+     *
+     * @param  t           the HttpExchange object representing the HTTP
+     *                     request and response context
+     * @param  calendar    the calendar
+     * @throws IOException if an I/O error occurs while sending the response
+     */
+    private static void sendChanges(final HttpExchange t,
+            final RestCalendar calendar) throws IOException {
+        Optional<String> since = queryParameter(t, "since");
+        if (since.isPresent()
+                && !since.get().matches("[0-9a-z]+-[0-9]{1,18}")) {
+            sendResponse(t, BAD_REQUEST, "Wrong version for since");
+            return;
+        }
+
+        // Only the changes since a version from this run are known
+        Optional<Long> sinceVersion = since.flatMap(RestAPI::parseVersion);
+        Optional<List<Change>> changes =
+                sinceVersion.flatMap(calendar::getChanges);
+        if (changes.isPresent()) {
+            long version = changes.get().isEmpty()
+                    ? sinceVersion.get()
+                    : changes.get().getLast().getVersion();
+            sendJSON(t,
+                     OK,
+                     new ChangeFeed(versionOf(version), false, changes.get()));
+            return;
+        }
+
+        // Start the client over with every event. The version is read before
+        // the events, so changes made in between are sent again next time.
+        long version = calendar.getVersion();
+        List<Change> events = calendar.getEvents().stream()
+                .map(event -> Change.added(version, event)).toList();
+        sendJSON(t, OK, new ChangeFeed(versionOf(version), true, events));
+    }
+
+    /**
+     * Gets the value of a parameter in the query of the request URI.
+     *
+     * @param  t    the HttpExchange object representing the HTTP request and
+     *              response context
+     * @param  name the name of the parameter
+     * @return      an {@code Optional} containing the decoded value of the
+     *              first parameter with the name, or an empty
+     *              {@code Optional} if there is none
+     */
+    private static Optional<String> queryParameter(final HttpExchange t,
+            final String name) {
+        String query = t.getRequestURI().getRawQuery();
+        if (query == null) return Optional.empty();
+
+        for (String parameter : query.split("&")) {
+            String[] parts = parameter.split("=", 2);
+            if (URLDecoder.decode(parts[0], StandardCharsets.UTF_8)
+                    .equals(name))
+                return Optional.of(parts.length < 2
+                        ? ""
+                        : URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Checks whether any tag in the "If-None-Match" request headers matches the
+     * given entity tag, comparing them weakly.
+     *
+     * @param  t   the HttpExchange object representing the HTTP request and
+     *             response context
+     * @param  tag the entity tag of the current version
+     * @return     {@code true} if the client has the current version
+     */
+    private static boolean matches(final HttpExchange t, final String tag) {
+        List<String> headers = t.getRequestHeaders().get("If-None-Match");
+        if (headers == null) return false;
+
+        String opaqueTag = tag.replaceFirst("^W/", "");
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                String trimmed = candidate.trim();
+                if (trimmed.equals("*")) return true;
+                if (trimmed.replaceFirst("^W/", "").equals(opaqueTag))
+                    return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Handles HTTP requests for the "/event" endpoint, providing operations for
      * event creation, deletion, and editing.
@@ -438,8 +926,8 @@ public final class RestAPI {
      * "/calendar/{calendarId}/event/{eventId}".</li>
      * </ul>
      * </li>
-     * <li><b>Credentials</b>: Include "username" and "password" in the request
-     * headers to authenticate.</li>
+     * <li><b>Credentials</b>: Include a session "token", or "username" and
+     * "password", in the request headers to authenticate.</li>
      * <li><b>Event Properties</b> (for POST and PUT):
      * <ul>
      * <li><b>start</b> and <b>end</b> (required for POST, optional for PUT) -
@@ -497,34 +985,18 @@ public final class RestAPI {
             return;
         }
 
-        // Get credentials
-        Optional<String> password =
-                Optional.ofNullable(t.getRequestHeaders().getFirst("password"));
-        Optional<String> username =
-                Optional.ofNullable(t.getRequestHeaders().getFirst("username"));
-
-        // Credentials not provided
-        if (password.isEmpty() || username.isEmpty()) {
-            sendResponse(t, BAD_REQUEST, "Credentials required");
-            return;
-        }
-
-        // Wrong credentials
-        Optional<RestUser> user =
-                userStore.getUserId(username.get()).flatMap(userStore::getUser);
-        if (!user.map(u -> u.checkPassword(password.get())).orElse(false)) {
-            sendResponse(t, UNAUTHORIZED, "Wrong credentials");
-            return;
-        }
+        // Authenticate
+        Optional<RestUser> user = authenticate(t);
+        if (user.isEmpty()) return;
 
         // Get Calendar
         UUID calendarId = UUID.fromString(path[2]);
-        Optional<RestCalendar> calendar = user.get().getCalendars().stream()
-                .filter(c -> c.getCalendarId().equals(calendarId)).findFirst();
+        Optional<RestCalendar> calendar = user.get().getCalendar(calendarId);
 
         // Calendar does not exist
         if (calendar.isEmpty()) {
             sendResponse(t, NOT_FOUND, "Calendar not found");
+            return;
         }
 
         // Options
@@ -579,7 +1051,13 @@ public final class RestAPI {
                                     endTime.get(),
                                     color.orElse(Color.BLUE),
                                     type.orElse(EventType.REGULAR));
-            calendar.get().addEvent(event);
+            if (!commit(Mutation.addEvent(user.get().getUserId(),
+                                          calendarId,
+                                          event),
+                        calendar.get())) {
+                sendResponse(t, NOT_FOUND, "Calendar not found");
+                return;
+            }
             sendResponse(t,
                          CREATED,
                          "Event with id: '" + event.getId()
@@ -589,17 +1067,23 @@ public final class RestAPI {
 
         // Get event
         UUID eventId = UUID.fromString(path[EXPECTED_PARAMETERS]);
-        Optional<Event> event = calendar.get().getEvents().stream()
-                .filter(e -> e.getId().equals(eventId)).findFirst();
+        Optional<Event> event = calendar.get().getEvent(eventId);
 
         // Event does not exist
         if (event.isEmpty()) {
             sendResponse(t, NOT_FOUND, "Event not found");
+            return;
         }
 
         // Event deletion
         if (t.getRequestMethod().equals("DELETE")) {
-            calendar.get().removeEvent(event.get());
+            if (!commit(Mutation.removeEvent(user.get().getUserId(),
+                                             calendarId,
+                                             eventId),
+                        calendar.get())) {
+                sendResponse(t, NOT_FOUND, "Event not found");
+                return;
+            }
             sendResponse(t,
                          OK,
                          "Event with id: '" + event.get().getId()
@@ -617,8 +1101,13 @@ public final class RestAPI {
                           type.orElse(event.get().getType()),
                           event.get().getId());
 
-        calendar.get().removeEvent(event.get());
-        calendar.get().addEvent(newEvent);
+        if (!commit(Mutation.editEvent(user.get().getUserId(),
+                                       calendarId,
+                                       newEvent),
+                    calendar.get())) {
+            sendResponse(t, NOT_FOUND, "Event not found");
+            return;
+        }
 
         sendResponse(t,
                      OK,
@@ -626,9 +1115,330 @@ public final class RestAPI {
                              + "' succesfully edited");
     };
 
+    /**
+     * Handles HTTP requests for the "/batch" endpoint, which makes many event
+     * changes in a single request.
+     *
+     * <p>
+     * The body is a JSON array of {@link BatchOperation}s, which can add, edit
+     * and remove events in any of the user's calendars. The operations on each
+     * calendar are made together, in order, and recorded as one entry in the
+     * journal: either all of them are made, or none are. The response is a
+     * JSON array with a {@link BatchResult} for each operation, in the same
+     * order, holding the status code and message it would have been answered
+     * with on its own. Operations that were not made because another operation
+     * on the same calendar failed get 409 Conflict.
+     * </p>
+     *
+     * <p>
+     * Request Requirements:
+     * <ul>
+     * <li><b>Path Format</b>: POST requests should have a path format of
+     * "/batch".</li>
+     * <li><b>Credentials</b>: Include a session "token", or "username" and
+     * "password", in the request headers to authenticate.</li>
+     * <li><b>Events</b>: Added and edited events are sent whole, and must have
+     * an ID and a start and end time. A missing title, description, color or
+     * type gets the same default as with the "/event" endpoint.</li>
+     * </ul>
+     *
+     * <p>
+     * Response Status Codes:
+     * <ul>
+     * <li><b>200 OK</b> - If the batch was read, whatever the outcome of each
+     * operation.</li>
+     * <li><b>400 Bad Request</b> - If the credentials are missing, or the body
+     * is not an array of at most {@value #MAX_BATCH_SIZE} operations.</li>
+     * <li><b>401 Unauthorized</b> - If the provided credentials are
+     * incorrect.</li>
+     * <li><b>404 Not Found</b> - If the method is not POST.</li>
+     * </ul>
+     *
+     * @param  t           the {@link HttpExchange} object representing the HTTP
+     *                     request and response context
+     * @throws IOException if an error occurs while sending a response
+     */
+    private static void batchContext(final HttpExchange t) throws IOException {
+        if (!t.getRequestMethod().equals("POST")) {
+            sendResponse(t, NOT_FOUND, "Not found");
+            return;
+        }
+
+        // Validate path
+        String[] path = t.getRequestURI().getPath().toString().split("/");
+        if (path.length != 2) {
+            sendResponse(t, BAD_REQUEST, "Wrong number of arguments");
+            return;
+        }
+
+        // Authenticate
+        Optional<RestUser> user = authenticate(t);
+        if (user.isEmpty()) return;
+
+        // Read operations
+        BatchOperation[] operations;
+        try (InputStream body = t.getRequestBody()) {
+            operations = Persistence.readFrom(BatchOperation[].class, body);
+        } catch (IOException e) {
+            operations = null;
+        }
+        if (operations == null) {
+            sendResponse(t, BAD_REQUEST, "Body must be a list of operations");
+            return;
+        }
+        if (operations.length > MAX_BATCH_SIZE) {
+            sendResponse(t,
+                         BAD_REQUEST,
+                         "A batch can hold at most " + MAX_BATCH_SIZE
+                                 + " operations");
+            return;
+        }
+
+        // Check each operation, and group them by calendar
+        BatchResult[] results = new BatchResult[operations.length];
+        Map<UUID, List<Integer>> calendars = new LinkedHashMap<>();
+        for (int i = 0; i < operations.length; i++) {
+            BatchOperation operation = operations[i];
+            Optional<String> error = checkOperation(operation);
+            if (error.isPresent())
+                results[i] = new BatchResult(BAD_REQUEST, error.get());
+            if (operation != null && operation.getCalendarId() != null)
+                calendars.computeIfAbsent(operation.getCalendarId(),
+                                          id -> new ArrayList<>())
+                        .add(i);
+        }
+
+        // Make the operations on each calendar together
+        for (Map.Entry<UUID, List<Integer>> calendar : calendars.entrySet())
+            commitBatch(user.get(),
+                        calendar.getKey(),
+                        calendar.getValue(),
+                        operations,
+                        results);
+
+        sendJSON(t, OK, Arrays.asList(results));
+    }
+
+    /**
+     * Checks that an operation in a batch is complete and valid on its own.
+     *
+     * @param  operation the operation
+     * @return           an {@code Optional} containing the reason the
+     *                   operation is invalid, or an empty {@code Optional} if
+     *                   it is valid
+     */
+    private static Optional<String> checkOperation(
+            final BatchOperation operation) {
+        if (operation == null || operation.getType() == null)
+            return Optional.of("Operation type is required");
+        if (operation.getCalendarId() == null)
+            return Optional.of("Calendar ID is required");
+        if (operation.getEventId() == null)
+            return Optional.of("Event ID is required");
+
+        switch (operation.getType()) {
+            case ADD_EVENT, EDIT_EVENT -> {
+                Event event = operation.getEvent();
+                if (event.getStartTime() == null || event.getEndTime() == null)
+                    return Optional.of("Event start and end time are required");
+                if (event.getStartTime().isAfter(event.getEndTime()))
+                    return Optional
+                            .of("Event end time can't be before start time");
+                return Optional.empty();
+            }
+            case REMOVE_EVENT -> {
+                return Optional.empty();
+            }
+            default -> {
+                return Optional.of("Wrong operation type");
+            }
+        }
+    }
+
+    /**
+     * Makes the operations of a batch on one calendar together, and fills in
+     * their results. If any operation can't be made, none are. If the
+     * operations could not be written to the journal, they are all given an
+     * internal server error, and the other calendars of the batch are still
+     * committed.
+     *
+     * @param user       the user that sent the batch
+     * @param calendarId the ID of the calendar
+     * @param indices    the indices of the operations on the calendar, in
+     *                   order
+     * @param operations every operation in the batch
+     * @param results    the results of every operation in the batch, where
+     *                   the operations that failed the checks already have
+     *                   theirs
+     */
+    private static void commitBatch(final RestUser user,
+            final UUID calendarId,
+            final List<Integer> indices,
+            final BatchOperation[] operations,
+            final BatchResult[] results) {
+        BatchResult skipped = new BatchResult(CONFLICT,
+                "Not made, another operation on the calendar failed");
+
+        Optional<RestCalendar> calendar = user.getCalendar(calendarId);
+        if (calendar.isEmpty()) {
+            indices.forEach(i -> results[i] = new BatchResult(NOT_FOUND,
+                    "Calendar not found"));
+            return;
+        }
+        if (indices.stream().anyMatch(i -> results[i] != null)) {
+            indices.stream().filter(i -> results[i] == null)
+                    .forEach(i -> results[i] = skipped);
+            return;
+        }
+
+        List<Mutation> changes = indices.stream()
+                .map(i -> withDefaults(operations[i])
+                        .toMutation(user.getUserId()))
+                .toList();
+        Mutation batch = Mutation.batch(user.getUserId(), calendarId, changes);
+        boolean made;
+        try {
+            made = commit(batch, calendar.get());
+        } catch (JournalException e) {
+            // The other calendars of the batch are still answered
+            BatchResult failed = new BatchResult(INTERNAL_SERVER_ERROR,
+                    "Failed to save the change");
+            indices.forEach(i -> results[i] = failed);
+            return;
+        }
+        if (made) {
+            for (int i : indices) {
+                BatchOperation operation = operations[i];
+                String id = "Event with id: '" + operation.getEventId() + "'";
+                results[i] = switch (operation.getType()) {
+                    case ADD_EVENT -> new BatchResult(CREATED,
+                            id + " successfully created");
+                    case REMOVE_EVENT -> new BatchResult(OK,
+                            id + " successfully deleted");
+                    default -> new BatchResult(OK, id + " successfully edited");
+                };
+            }
+            return;
+        }
+
+        // Tell which operation could not be made
+        OptionalInt conflict = calendar.get()
+                .atomically(() -> batch.findConflict(calendar.get()));
+        for (int k = 0; k < indices.size(); k++) {
+            int i = indices.get(k);
+            if (conflict.isPresent() && conflict.getAsInt() == k) {
+                results[i] = operations[i].getType() == MutationType.ADD_EVENT
+                        ? new BatchResult(CONFLICT, "Event already exists")
+                        : new BatchResult(NOT_FOUND, "Event not found");
+            } else {
+                results[i] = skipped;
+            }
+        }
+    }
+
+    /**
+     * Fills in the fields an added or edited event can leave out, with the
+     * same defaults as the "/event" endpoint.
+     *
+     * @param  operation the operation
+     * @return           the operation, with a complete event
+     */
+    private static BatchOperation withDefaults(
+            final BatchOperation operation) {
+        Event event = operation.getEvent();
+        if (event == null) return operation;
+
+        Event complete = new Event(
+                Optional.ofNullable(event.getTitle()).orElse("Untitled event"),
+                Optional.ofNullable(event.getDescription()).orElse(""),
+                event.getStartTime(),
+                event.getEndTime(),
+                Optional.ofNullable(event.getColor()).orElse(Color.BLUE),
+                Optional.ofNullable(event.getType())
+                        .orElse(EventType.REGULAR),
+                event.getId());
+        return operation.getType() == MutationType.ADD_EVENT
+                ? BatchOperation.addEvent(operation.getCalendarId(), complete)
+                : BatchOperation.editEvent(operation.getCalendarId(), complete);
+    }
+
+    /**
+     * Applies a change to the {@link #userStore} and records it in the
+     * {@link #journal}, then waits until the record is written.
+     *
+     * <p>
+     * The change is applied and recorded while holding the locks of every
+     * object it touches, so the journal sees the changes to an object in the
+     * same order as the object itself. For new objects, this includes the new
+     * object, so nothing can be recorded for it before its creation is.
+     * </p>
+     *
+     * @param  mutation    the change to make
+     * @param  targets     the objects the change touches, from the outermost
+     *                     to the innermost
+     * @return             {@code true} if the change was made, {@code false} if
+     *                     it did not apply, such as when its target is gone
+     * @throws JournalException if the change could not be written to the
+     *                          journal. The change is still made in memory,
+     *                          and is saved by the next checkpoint.
+     */
+    private static boolean commit(final Mutation mutation,
+            final Lockable... targets) throws JournalException {
+        CompletableFuture<Void> written = record(mutation, targets, 0);
+        if (written == null) return false;
+
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw new JournalException(e.getCause());
+        }
+
+        // Push the change to the clients watching the calendar
+        if (mutation.getType() == MutationType.REMOVE_CALENDAR)
+            streams.end(mutation.getCalendarId());
+        else if (mutation.getCalendarId() != null)
+            streams.changed(mutation.getCalendarId());
+        return true;
+    }
+
+    /**
+     * Wraps a handler, so a change that could not be written to the journal
+     * is answered with {@value #INTERNAL_SERVER_ERROR} instead of no response
+     * at all.
+     *
+     * @param  handler the handler, which has not sent a response when it
+     *                 throws a {@link JournalException}
+     * @return         the wrapped handler
+     */
+    private static HttpHandler journaled(final HttpHandler handler) {
+        return t -> {
+            try {
+                handler.handle(t);
+            } catch (JournalException e) {
+                sendResponse(t, INTERNAL_SERVER_ERROR,
+                             "Failed to save the change");
+            }
+        };
+    }
+
+    private static CompletableFuture<Void> record(final Mutation mutation,
+            final Lockable[] targets,
+            final int index) {
+        if (index < targets.length)
+            return targets[index]
+                    .atomically(() -> record(mutation, targets, index + 1));
+        return mutation.applyTo(userStore) ? journal.append(mutation) : null;
+    }
+
     /**
      * Sends an HTTP response with the specified status and message.
      *
+     * <p>
+     * The message is sent as UTF-8 text, with its length in bytes. Messages
+     * long enough to be worth it are compressed with gzip if the client
+     * accepts it, and an empty message is sent without a body.
+     * </p>
+     *
      * @param  t           the HttpExchange object representing the HTTP request
      *                     and response context
      * @param  status      the HTTP status code to send in the response
@@ -638,9 +1448,171 @@ public final class RestAPI {
     protected static void sendResponse(final HttpExchange t,
             final int status,
             final String message) throws IOException {
-        t.sendResponseHeaders(status, message.length());
-        OutputStream o = t.getResponseBody();
-        o.write(message.getBytes());
-        o.close();
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        t.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+
+        if (body.length == 0) {
+            t.sendResponseHeaders(status, NO_BODY);
+            t.close();
+            return;
+        }
+
+        if (body.length >= GZIP_MIN_SIZE) {
+            t.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (acceptsGzip(t)) {
+                try (OutputStream o = openCompressedBody(t, status)) {
+                    o.write(body);
+                }
+                return;
+            }
+        }
+
+        t.sendResponseHeaders(status, body.length);
+        try (OutputStream o = t.getResponseBody()) {
+            o.write(body);
+        }
+    }
+
+    /**
+     * Sends an HTTP response with the specified status and the given object
+     * serialized as JSON.
+     *
+     * <p>
+     * The JSON is streamed straight into the response body as UTF-8, using
+     * chunked transfer encoding, so the payload is never built up in memory
+     * first. It is compressed with gzip on the way if the client accepts it.
+     * </p>
+     *
+     * @param  t           the HttpExchange object representing the HTTP request
+     *                     and response context
+     * @param  status      the HTTP status code to send in the response
+     * @param  object      the object to send as JSON in the response
+     * @throws IOException if an I/O error occurs while sending the response
+     */
+    protected static void sendJSON(final HttpExchange t,
+            final int status,
+            final Object object) throws IOException {
+        t.getResponseHeaders().set("Content-Type",
+                                   "application/json; charset=utf-8");
+        t.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        try (OutputStream o = openBody(t, status)) {
+            Persistence.writeTo(object, o);
+        }
+    }
+
+    /**
+     * Sends an HTTP response with the specified status and a list of events,
+     * in the format the client asks for.
+     *
+     * <p>
+     * Clients that accept {@value EventCodec#MEDIA_TYPE} get the events in the
+     * compact binary format of {@link EventCodec}, and other clients get JSON,
+     * as with {@link #sendJSON(HttpExchange, int, Object)}.
+     * </p>
+     *
+     * @param  t           the HttpExchange object representing the HTTP request
+     *                     and response context
+     * @param  status      the HTTP status code to send in the response
+     * @param  events      the events to send in the response
+     * @throws IOException if an I/O error occurs while sending the response
+     */
+    protected static void sendEvents(final HttpExchange t,
+            final int status,
+            final List<Event> events) throws IOException {
+        boolean binary = accepts(t, "Accept", EventCodec.MEDIA_TYPE);
+        t.getResponseHeaders().set("Content-Type",
+                                   binary
+                                           ? EventCodec.MEDIA_TYPE
+                                           : "application/json; charset=utf-8");
+        t.getResponseHeaders().set("Vary", "Accept, Accept-Encoding");
+
+        try (OutputStream o = openBody(t, status)) {
+            if (binary) {
+                EventCodec.write(events, o);
+            } else {
+                Persistence.writeTo(events, o);
+            }
+        }
+    }
+
+    /**
+     * Sends the response headers for a body sent in chunks, compressed with
+     * gzip if the client accepts it, and opens the body.
+     *
+     * @param  t           the HttpExchange object representing the HTTP request
+     *                     and response context
+     * @param  status      the HTTP status code to send in the response
+     * @return             the stream into the response body, which must be
+     *                     closed to finish the response
+     * @throws IOException if an I/O error occurs while sending the headers
+     */
+    private static OutputStream openBody(final HttpExchange t,
+            final int status) throws IOException {
+        if (acceptsGzip(t)) return openCompressedBody(t, status);
+        t.sendResponseHeaders(status, CHUNKED);
+        return t.getResponseBody();
+    }
+
+    /**
+     * Checks whether the client accepts responses compressed with gzip,
+     * through the "Accept-Encoding" request header.
+     *
+     * @param  t the HttpExchange object representing the HTTP request and
+     *           response context
+     * @return   {@code true} if the client accepts gzip
+     */
+    private static boolean acceptsGzip(final HttpExchange t) {
+        return accepts(t, "Accept-Encoding", "gzip");
+    }
+
+    /**
+     * Checks whether the client accepts a value through a request header that
+     * lists values with optional qualities, like "Accept" or
+     * "Accept-Encoding".
+     *
+     * @param  t      the HttpExchange object representing the HTTP request and
+     *                response context
+     * @param  header the name of the request header
+     * @param  value  the value to look for, such as a coding or media type
+     * @return        {@code true} if the header lists the value, with a
+     *                quality above zero
+     */
+    private static boolean accepts(final HttpExchange t,
+            final String header,
+            final String value) {
+        List<String> headers = t.getRequestHeaders().get(header);
+        if (headers == null) return false;
+
+        for (String line : headers) {
+            for (String entry : line.split(",")) {
+                String[] parts = entry.split(";");
+                if (!parts[0].trim().equalsIgnoreCase(value)) continue;
+                // A quality of zero means the client refuses the value
+                for (int i = 1; i < parts.length; i++)
+                    if (parts[i].replace(" ", "").matches("q=0(\\.0*)?"))
+                        return false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the response headers for a body compressed with gzip, sent in
+     * chunks, and opens the body.
+     *
+     * @param  t           the HttpExchange object representing the HTTP request
+     *                     and response context
+     * @param  status      the HTTP status code to send in the response
+     * @return             the stream compressing into the response body, which
+     *                     must be closed to finish the response
+     * @throws IOException if an I/O error occurs while sending the headers
+     */
+    private static OutputStream openCompressedBody(final HttpExchange t,
+            final int status) throws IOException {
+        t.getResponseHeaders().set("Content-Encoding", "gzip");
+        t.sendResponseHeaders(status, CHUNKED);
+        return new GZIPOutputStream(t.getResponseBody(), GZIP_BUFFER_SIZE);
     }
 }
@@ -0,0 +1,134 @@
+package calendar.rest;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code SessionStore} class keeps track of the users that have logged in
+ * to the {@link RestAPI}, so they can send a session token with every request
+ * instead of their password.
+ *
+ * <p>
+ * A token is a random string that can't be guessed, and maps straight to the
+ * ID of the user it was given to, so checking a token is a single lookup in a
+ * {@link ConcurrentHashMap}. A session expires when it has not been used for
+ * {@value #TTL_PROPERTY} seconds. Expired sessions are removed when they are
+ * next used, and swept out every now and then when new sessions are created.
+ * </p>
+ */
+public final class SessionStore {
+
+    /** The system property used to set how long an unused session lasts. */
+    public static final String TTL_PROPERTY = "calendar.session.ttl";
+
+    /** The default time an unused session lasts, in seconds. */
+    public static final long DEFAULT_TTL = 3600;
+
+    /** The number of random bytes in a token. */
+    private static final int TOKEN_BYTES = 32;
+
+    /** A session, with the user it belongs to and when it expires. */
+    private static final class Session {
+        /** The ID of the user the session belongs to. */
+        private final UUID userId;
+        /** The time the session expires, in nanoseconds. */
+        private volatile long expiresAt;
+
+        Session(final UUID userId, final long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** The source of the random tokens. */
+    private final SecureRandom random = new SecureRandom();
+
+    /** The open sessions, by token. */
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** How long an unused session lasts, in nanoseconds. */
+    private final long ttl;
+
+    /** The time the next sweep of expired sessions is due, in nanoseconds. */
+    private volatile long nextSweep;
+
+    /**
+     * Creates an empty session store.
+     *
+     * @param ttl how long a session lasts when it is not used
+     */
+    public SessionStore(final Duration ttl) {
+        this.ttl = ttl.toNanos();
+        this.nextSweep = System.nanoTime() + this.ttl;
+    }
+
+    /**
+     * Creates an empty session store, where sessions last as long as the
+     * {@value #TTL_PROPERTY} system property says.
+     *
+     * @return a new {@code SessionStore}
+     */
+    public static SessionStore fromSystemProperties() {
+        return new SessionStore(Duration
+                .ofSeconds(Long.getLong(TTL_PROPERTY, DEFAULT_TTL)));
+    }
+
+    /**
+     * Starts a new session for the given user.
+     *
+     * @param  userId the ID of the user that logged in
+     * @return        the token of the new session
+     */
+    public String create(final UUID userId) {
+        long now = System.nanoTime();
+        if (now - nextSweep >= 0) {
+            nextSweep = now + ttl;
+            sessions.values().removeIf(s -> now - s.expiresAt >= 0);
+        }
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(bytes);
+        sessions.put(token, new Session(userId, now + ttl));
+        return token;
+    }
+
+    /**
+     * Finds the user a session belongs to, and keeps the session alive for
+     * another full period.
+     *
+     * @param  token the token of the session
+     * @return       an {@code Optional} containing the ID of the user, or an
+     *               empty {@code Optional} if there is no such session or it
+     *               has expired
+     */
+    public Optional<UUID> validate(final String token) {
+        Session session = sessions.get(token);
+        if (session == null) return Optional.empty();
+
+        long now = System.nanoTime();
+        if (now - session.expiresAt >= 0) {
+            sessions.remove(token, session);
+            return Optional.empty();
+        }
+
+        session.expiresAt = now + ttl;
+        return Optional.of(session.userId);
+    }
+
+    /**
+     * Ends a session, so its token can no longer be used.
+     *
+     * @param  token the token of the session
+     * @return       {@code true} if the session existed
+     */
+    public boolean remove(final String token) {
+        return sessions.remove(token) != null;
+    }
+}
@@ -0,0 +1,159 @@
+package calendar.types;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The {@code BatchOperation} class represents one event change in a batch
+ * sent to the REST API, which makes many changes in a single request.
+ *
+ * <p>
+ * An operation adds, edits or removes an event in a calendar, and its
+ * {@link #getType() type} is {@link MutationType#ADD_EVENT},
+ * {@link MutationType#EDIT_EVENT} or {@link MutationType#REMOVE_EVENT}. Added
+ * and edited events are sent whole, and an edit replaces the event with the
+ * same ID. Removed events are only sent by ID.
+ * </p>
+ *
+ * <p>
+ * Only the fields that the type needs are set, the rest are {@code null} and
+ * left out of the JSON.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class BatchOperation {
+
+    /** The kind of change. */
+    @JsonProperty
+    private final MutationType type;
+
+    /** The ID of the calendar the event is in. */
+    @JsonProperty
+    private final UUID calendarId;
+
+    /** The ID of the event that is removed. */
+    @JsonProperty
+    private final UUID eventId;
+
+    /** The event that is added, or the new version of an edited event. */
+    @JsonProperty
+    private final Event event;
+
+    /**
+     * Full constructor for the {@code BatchOperation} class, used for
+     * deserialization. Use the static factory methods to create new
+     * operations.
+     *
+     * @param type       the kind of change
+     * @param calendarId the ID of the calendar the event is in
+     * @param eventId    the ID of the event that is removed
+     * @param event      the event that is added or edited
+     */
+    @JsonCreator
+    private BatchOperation(@JsonProperty("type") final MutationType type,
+            @JsonProperty("calendarId") final UUID calendarId,
+            @JsonProperty("eventId") final UUID eventId,
+            @JsonProperty("event") final Event event) {
+        this.type = type;
+        this.calendarId = calendarId;
+        this.eventId = eventId;
+        this.event = event;
+    }
+
+    /**
+     * Creates an operation that adds an event to a calendar.
+     *
+     * @param  calendarId the ID of the calendar that gets the event
+     * @param  event      the {@link Event} to add
+     * @return            the new {@code BatchOperation}
+     */
+    public static BatchOperation addEvent(final UUID calendarId,
+            final Event event) {
+        return new BatchOperation(MutationType.ADD_EVENT, calendarId, null,
+                event);
+    }
+
+    /**
+     * Creates an operation that replaces an event in a calendar with a new
+     * version, with the same ID.
+     *
+     * @param  calendarId the ID of the calendar that holds the event
+     * @param  event      the new version of the {@link Event}
+     * @return            the new {@code BatchOperation}
+     */
+    public static BatchOperation editEvent(final UUID calendarId,
+            final Event event) {
+        return new BatchOperation(MutationType.EDIT_EVENT, calendarId, null,
+                event);
+    }
+
+    /**
+     * Creates an operation that removes an event from a calendar.
+     *
+     * @param  calendarId the ID of the calendar that holds the event
+     * @param  eventId    the ID of the event to remove
+     * @return            the new {@code BatchOperation}
+     */
+    public static BatchOperation removeEvent(final UUID calendarId,
+            final UUID eventId) {
+        return new BatchOperation(MutationType.REMOVE_EVENT, calendarId,
+                eventId, null);
+    }
+
+    /**
+     * Gets the kind of change this operation makes.
+     *
+     * @return the {@link MutationType} of this operation
+     */
+    public MutationType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the calendar the event is in.
+     *
+     * @return the {@link UUID} of the calendar
+     */
+    public UUID getCalendarId() {
+        return calendarId;
+    }
+
+    /**
+     * Gets the ID of the event this operation changes.
+     *
+     * @return the {@link UUID} of the event, or {@code null} if it is missing
+     */
+    public UUID getEventId() {
+        if (type == MutationType.REMOVE_EVENT) return eventId;
+        return event == null ? null : event.getId();
+    }
+
+    /**
+     * Gets the event that is added, or the new version of an edited event.
+     *
+     * @return the {@link Event}, or {@code null} if the event is removed
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Creates the mutation that makes this operation's change.
+     *
+     * @param  userId the ID of the user that owns the calendar
+     * @return        the new {@link Mutation}
+     */
+    public Mutation toMutation(final UUID userId) {
+        return switch (type) {
+            case ADD_EVENT -> Mutation.addEvent(userId, calendarId, event);
+            case EDIT_EVENT -> Mutation.editEvent(userId, calendarId, event);
+            case REMOVE_EVENT -> Mutation.removeEvent(userId, calendarId,
+                                                      eventId);
+            default -> throw new IllegalStateException(
+                    "Not an event operation: " + type);
+        };
+    }
+}
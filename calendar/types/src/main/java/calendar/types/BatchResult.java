@@ -0,0 +1,75 @@
+package calendar.types;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The {@code BatchResult} class represents the outcome of one
+ * {@link BatchOperation} in a batch sent to the REST API.
+ *
+ * <p>
+ * The outcome has the status code and message the operation would have been
+ * answered with if it had been sent on its own, such as {@code 201} when an
+ * event is created and {@code 404} when an edited event doesn't exist.
+ * Operations that were not made because another operation on the same
+ * calendar failed get {@code 409}.
+ * </p>
+ */
+public final class BatchResult {
+
+    /** Status code group for {@code Successful responses}. */
+    private static final int SUCCESSFUL_RESPONSES = 200;
+
+    /** Status code group for {@code Redirection messages}. */
+    private static final int REDIRECTION_MESSAGES = 300;
+
+    /** The status code of the operation. */
+    @JsonProperty
+    private final int status;
+
+    /** The message describing the outcome. */
+    @JsonProperty
+    private final String message;
+
+    /**
+     * Creates the outcome of an operation.
+     *
+     * @param status  the status code of the operation
+     * @param message the message describing the outcome
+     */
+    @JsonCreator
+    public BatchResult(@JsonProperty("status") final int status,
+            @JsonProperty("message") final String message) {
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * Gets the status code of the operation.
+     *
+     * @return the status code, as for a single request
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the message describing the outcome.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Checks whether the operation was made.
+     *
+     * @return {@code true} if the status code is a success
+     */
+    @JsonIgnore
+    public boolean isSuccess() {
+        return status >= SUCCESSFUL_RESPONSES && status < REDIRECTION_MESSAGES;
+    }
+}
@@ -0,0 +1,132 @@
+package calendar.types;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The {@code Change} class represents a single change to the events of a
+ * {@link RestCalendar}, as recorded in its change log.
+ *
+ * <p>
+ * Every change carries the {@link RestCalendar#getVersion() version} the
+ * calendar had after it was made. Applying a change to a copy of the events
+ * is idempotent: an added or edited event replaces any event with the same ID,
+ * and removing an event that is already gone does nothing.
+ * </p>
+ *
+ * <p>
+ * Removed events only carry their ID, so {@link #getEvent()} is {@code null}
+ * and left out of the JSON.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class Change {
+
+    /** The version of the calendar after the change. */
+    @JsonProperty
+    private final long version;
+
+    /** The kind of change. */
+    @JsonProperty
+    private final ChangeType type;
+
+    /** The ID of the event that changed. */
+    @JsonProperty
+    private final UUID eventId;
+
+    /** The event that was added, or the new version of an edited event. */
+    @JsonProperty
+    private final Event event;
+
+    /**
+     * Full constructor for the {@code Change} class, used for
+     * deserialization. Use the static factory methods to create new changes.
+     *
+     * @param version the version of the calendar after the change
+     * @param type    the kind of change
+     * @param eventId the ID of the event that changed
+     * @param event   the event that was added or edited
+     */
+    @JsonCreator
+    private Change(@JsonProperty("version") final long version,
+            @JsonProperty("type") final ChangeType type,
+            @JsonProperty("eventId") final UUID eventId,
+            @JsonProperty("event") final Event event) {
+        this.version = version;
+        this.type = type;
+        this.eventId = eventId;
+        this.event = event;
+    }
+
+    /**
+     * Creates a change that adds an event.
+     *
+     * @param  version the version of the calendar after the change
+     * @param  event   the event that was added
+     * @return         the change
+     */
+    public static Change added(final long version, final Event event) {
+        return new Change(version, ChangeType.ADDED, event.getId(), event);
+    }
+
+    /**
+     * Creates a change that replaces an event with a new version.
+     *
+     * @param  version the version of the calendar after the change
+     * @param  event   the new version of the event
+     * @return         the change
+     */
+    public static Change edited(final long version, final Event event) {
+        return new Change(version, ChangeType.EDITED, event.getId(), event);
+    }
+
+    /**
+     * Creates a change that removes an event.
+     *
+     * @param  version the version of the calendar after the change
+     * @param  eventId the ID of the event that was removed
+     * @return         the change
+     */
+    public static Change removed(final long version, final UUID eventId) {
+        return new Change(version, ChangeType.REMOVED, eventId, null);
+    }
+
+    /**
+     * Gets the version of the calendar after the change.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the kind of change.
+     *
+     * @return the type of the change
+     */
+    public ChangeType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the event that changed.
+     *
+     * @return the ID of the event
+     */
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Gets the event that was added, or the new version of an edited event.
+     *
+     * @return the event, or {@code null} if it was removed
+     */
+    public Event getEvent() {
+        return event;
+    }
+}
@@ -0,0 +1,83 @@
+package calendar.types;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The {@code ChangeFeed} class is the answer to a request for the changes to
+ * a calendar since a version the client already has.
+ *
+ * <p>
+ * When the changes since that version are still known, the feed holds just
+ * those changes, in the order they were made. Otherwise the client has to
+ * start over: the feed is marked as a {@link #isReset() reset}, and holds
+ * every event in the calendar as an added event.
+ * </p>
+ *
+ * <p>
+ * Either way, {@link #getVersion()} is the version to ask for the changes
+ * since next time. The server decides its format, and clients should treat it
+ * as an opaque string.
+ * </p>
+ */
+public final class ChangeFeed {
+
+    /** The version of the calendar the changes lead up to. */
+    @JsonProperty
+    private final String version;
+
+    /** Whether the client has to throw away its events before applying. */
+    @JsonProperty
+    private final boolean reset;
+
+    /** The changes, in the order they were made. */
+    @JsonProperty
+    private final List<Change> changes;
+
+    /**
+     * Creates a change feed.
+     *
+     * @param version the version of the calendar the changes lead up to
+     * @param reset   whether the changes replace every event the client has
+     * @param changes the changes, in the order they were made
+     */
+    @JsonCreator
+    public ChangeFeed(@JsonProperty("version") final String version,
+            @JsonProperty("reset") final boolean reset,
+            @JsonProperty("changes") final List<Change> changes) {
+        this.version = version;
+        this.reset = reset;
+        this.changes = List.copyOf(changes);
+    }
+
+    /**
+     * Gets the version of the calendar the changes lead up to, to ask for the
+     * changes since next time.
+     *
+     * @return the version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether the client has to throw away every event it has before
+     * applying the changes.
+     *
+     * @return {@code true} if the changes hold every event in the calendar
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Gets the changes, in the order they were made.
+     *
+     * @return an unmodifiable list of the changes
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,83 @@
+package calendar.types;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The {@code ChangeLog} class is a bounded log of the latest changes to the
+ * events of a {@link RestCalendar}, used to tell clients what changed since a
+ * version they already have without sending every event again.
+ *
+ * <p>
+ * When the log is full, the oldest change is dropped. Clients whose version is
+ * older than the dropped changes can't be told what changed, and have to fetch
+ * the whole calendar again.
+ * </p>
+ *
+ * <p>
+ * The log is not thread-safe on its own; {@link RestCalendar} only uses it
+ * while holding its lock.
+ * </p>
+ */
+final class ChangeLog {
+
+    /** The number of changes the log holds. */
+    private final int capacity;
+
+    /** The changes, from oldest to newest. */
+    private final Deque<Change> changes;
+
+    /** The oldest version the changes since are all in the log. */
+    private long oldest;
+
+    /**
+     * Creates an empty log, that knows every change since version zero.
+     *
+     * @param capacity the number of changes the log holds
+     */
+    ChangeLog(final int capacity) {
+        this.capacity = capacity;
+        this.changes = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Records a change, dropping the oldest change if the log is full.
+     *
+     * @param change the change, made after every change already in the log
+     */
+    void add(final Change change) {
+        if (changes.size() == capacity)
+            oldest = changes.removeFirst().getVersion();
+        changes.addLast(change);
+    }
+
+    /**
+     * Gets the changes made since a version.
+     *
+     * @param  since   the version to get the changes since
+     * @param  current the current version of the calendar
+     * @return         an {@code Optional} containing the changes made after
+     *                 {@code since}, oldest first, or an empty
+     *                 {@code Optional} if some of them were dropped, or
+     *                 {@code since} is newer than {@code current}
+     */
+    Optional<List<Change>> since(final long since, final long current) {
+        if (since < oldest || since > current) return Optional.empty();
+
+        // Walk back from the newest change until the version is reached
+        List<Change> after = new ArrayList<>();
+        Iterator<Change> iterator = changes.descendingIterator();
+        while (iterator.hasNext()) {
+            Change change = iterator.next();
+            if (change.getVersion() <= since) break;
+            after.add(change);
+        }
+        Collections.reverse(after);
+        return Optional.of(after);
+    }
+}
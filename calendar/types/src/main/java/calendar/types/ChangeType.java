@@ -0,0 +1,21 @@
+package calendar.types;
+
+/**
+ * The {@code ChangeType} enum represents the kind of change a {@link Change}
+ * records in the events of a {@link RestCalendar}.
+ *
+ * The current types are:
+ * <ul>
+ * <li>{@link #ADDED} - An event is added to the calendar.</li>
+ * <li>{@link #EDITED} - An event is replaced by a new version.</li>
+ * <li>{@link #REMOVED} - An event is removed from the calendar.</li>
+ * </ul>
+ */
+public enum ChangeType {
+    /** An event was added. */
+    ADDED,
+    /** An event was replaced by a new version with the same ID. */
+    EDITED,
+    /** An event was removed. */
+    REMOVED
+}
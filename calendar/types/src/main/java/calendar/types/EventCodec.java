@@ -0,0 +1,467 @@
+package calendar.types;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import javafx.scene.paint.Color;
+
+/**
+ * The {@code EventCodec} class converts lists of events to and from a compact
+ * binary format, an alternative to JSON for sending many events at once.
+ *
+ * <p>
+ * The REST API sends events in this format to clients that ask for
+ * {@value #MEDIA_TYPE} in their "Accept" header. Compared to the indented JSON
+ * it is a fraction of the size, and it is read without parsing any text.
+ * </p>
+ *
+ * <p>
+ * The format starts with four fixed bytes, the last of which is the version
+ * of the format, followed by the number of events and then each event:
+ * </p>
+ * <ul>
+ * <li>a byte of flags, telling which fields are set,</li>
+ * <li>the ID as two longs,</li>
+ * <li>the title and description as UTF-8, after their length,</li>
+ * <li>the start time as seconds since the epoch in UTC, and the end time as
+ * seconds after the start, each followed by its nanoseconds,</li>
+ * <li>the color as one byte per channel, or one float per channel if it can't
+ * be written as bytes exactly, and</li>
+ * <li>the type as its ordinal.</li>
+ * </ul>
+ *
+ * <p>
+ * Lengths, counts and times are written as variable-length integers, so small
+ * numbers take a single byte. Like the JSON, the opacity of the color is not
+ * kept.
+ * </p>
+ */
+public final class EventCodec {
+
+    /** The media type of the format, for the "Accept" and "Content-Type". */
+    public static final String MEDIA_TYPE = "application/x-calendar-events";
+
+    /** The bytes every encoded list starts with, ending with the version. */
+    private static final byte[] MAGIC = {(byte) 0xCA, 'E', 'V', 1};
+
+    /** Flag set when the event has an ID. */
+    private static final int HAS_ID = 1;
+
+    /** Flag set when the event has a title. */
+    private static final int HAS_TITLE = 1 << 1;
+
+    /** Flag set when the event has a description. */
+    private static final int HAS_DESCRIPTION = 1 << 2;
+
+    /** Flag set when the event has a start time. */
+    private static final int HAS_START = 1 << 3;
+
+    /** Flag set when the event has an end time. */
+    private static final int HAS_END = 1 << 4;
+
+    /** Flag set when the event has a color, written as floats. */
+    private static final int HAS_COLOR = 1 << 5;
+
+    /** Flag set when the event has a color, written as bytes. */
+    private static final int HAS_BYTE_COLOR = 1 << 6;
+
+    /** Flag set when the event has a type. */
+    private static final int HAS_TYPE = 1 << 7;
+
+    /** The largest value of a color channel written as a byte. */
+    private static final int CHANNEL_MAX = 255;
+
+    /** The bits of a byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** The number of bits in a byte. */
+    private static final int BYTE_BITS = 8;
+
+    /** The number of payload bits in each byte of a variable-length integer. */
+    private static final int VARINT_BITS = 7;
+
+    /** The payload bits of a byte of a variable-length integer. */
+    private static final int VARINT_MASK = 0x7F;
+
+    /** The bit set on every byte of a variable-length integer but the last. */
+    private static final int VARINT_MORE = 0x80;
+
+    /** The number of bits in a long. */
+    private static final int LONG_BITS = 64;
+
+    /** The size of the buffer events are written to before the stream. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The event types, by ordinal. */
+    private static final EventType[] TYPES = EventType.values();
+
+    private EventCodec() {
+    }
+
+    /**
+     * Writes a list of events to a stream. The stream is flushed, but not
+     * closed.
+     *
+     * @param  events      the events to write
+     * @param  out         the stream to write to
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void write(final List<Event> events, final OutputStream out)
+            throws IOException {
+        Writer writer = new Writer(out);
+        writer.bytes(MAGIC);
+        writer.varint(events.size());
+        for (Event event : events) writer.event(event);
+        writer.flush();
+    }
+
+    /**
+     * Writes a list of events to a byte array.
+     *
+     * @param  events the events to write
+     * @return        the encoded events
+     */
+    public static byte[] toBytes(final List<Event> events) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(events, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks whether a stream holds events in this format, without consuming
+     * any of it.
+     *
+     * @param  in                       the stream, which must support
+     *                                  {@link InputStream#mark(int)}
+     * @return                          {@code true} if the stream starts like
+     *                                  an encoded list of events
+     * @throws IOException              if an I/O error occurs while reading
+     * @throws IllegalArgumentException if the stream does not support marks
+     */
+    public static boolean isEncoded(final InputStream in) throws IOException {
+        if (!in.markSupported())
+            throw new IllegalArgumentException("Stream must support marks");
+
+        in.mark(MAGIC.length);
+        byte[] start = in.readNBytes(MAGIC.length);
+        in.reset();
+        return Arrays.equals(start, MAGIC);
+    }
+
+    /**
+     * Reads a list of events from a stream, which must hold nothing after
+     * them, as the stream is read ahead in blocks. The stream is left open.
+     *
+     * @param  in          the stream to read from
+     * @return             the events, in the order they were written
+     * @throws IOException if an I/O error occurs while reading, or the stream
+     *                     does not hold events in this format
+     */
+    public static List<Event> read(final InputStream in) throws IOException {
+        Reader reader = new Reader(in);
+        if (!Arrays.equals(reader.bytes(MAGIC.length), MAGIC))
+            throw new IOException("Not events, or an unknown version");
+
+        // The count is not trusted for the size of the list
+        long count = reader.varint();
+        List<Event> events = new ArrayList<>();
+        for (long i = 0; i < count; i++) events.add(reader.event());
+        return events;
+    }
+
+    /**
+     * Reads a list of events from a byte array.
+     *
+     * @param  bytes       the encoded events
+     * @return             the events, in the order they were written
+     * @throws IOException if the bytes don't hold events in this format
+     */
+    public static List<Event> fromBytes(final byte[] bytes)
+            throws IOException {
+        return read(new ByteArrayInputStream(bytes));
+    }
+
+    private static boolean isByte(final double channel) {
+        long value = Math.round(channel * CHANNEL_MAX);
+        return (float) (value / (double) CHANNEL_MAX) == (float) channel;
+    }
+
+    private static long epochSecond(final LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /** Writes the parts of the format, buffered. */
+    private static final class Writer {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        Writer(final OutputStream out) {
+            this.out = out;
+        }
+
+        void event(final Event event) throws IOException {
+            Color color = event.getColor();
+            boolean byteColor = color != null && isByte(color.getRed())
+                    && isByte(color.getGreen()) && isByte(color.getBlue());
+
+            int flags = 0;
+            if (event.getId() != null) flags |= HAS_ID;
+            if (event.getTitle() != null) flags |= HAS_TITLE;
+            if (event.getDescription() != null) flags |= HAS_DESCRIPTION;
+            if (event.getStartTime() != null) flags |= HAS_START;
+            if (event.getEndTime() != null) flags |= HAS_END;
+            if (color != null) flags |= byteColor ? HAS_BYTE_COLOR : HAS_COLOR;
+            if (event.getType() != null) flags |= HAS_TYPE;
+            write(flags);
+
+            if (event.getId() != null) {
+                fixed(event.getId().getMostSignificantBits());
+                fixed(event.getId().getLeastSignificantBits());
+            }
+            if (event.getTitle() != null) string(event.getTitle());
+            if (event.getDescription() != null) string(event.getDescription());
+
+            // The end is written relative to the start, which is usually close
+            long start = 0;
+            if (event.getStartTime() != null) {
+                start = epochSecond(event.getStartTime());
+                signed(start);
+                varint(event.getStartTime().getNano());
+            }
+            if (event.getEndTime() != null) {
+                signed(epochSecond(event.getEndTime()) - start);
+                varint(event.getEndTime().getNano());
+            }
+
+            if (byteColor) {
+                write((int) Math.round(color.getRed() * CHANNEL_MAX));
+                write((int) Math.round(color.getGreen() * CHANNEL_MAX));
+                write((int) Math.round(color.getBlue() * CHANNEL_MAX));
+            } else if (color != null) {
+                channel(color.getRed());
+                channel(color.getGreen());
+                channel(color.getBlue());
+            }
+
+            if (event.getType() != null) write(event.getType().ordinal());
+        }
+
+        void channel(final double value) throws IOException {
+            fixed(Float.floatToIntBits((float) value), Integer.BYTES);
+        }
+
+        void string(final String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            bytes(bytes);
+        }
+
+        void signed(final long value) throws IOException {
+            // Zigzag encoding, so small negative numbers stay short
+            varint((value << 1) ^ (value >> (LONG_BITS - 1)));
+        }
+
+        void varint(final long value) throws IOException {
+            long rest = value;
+            while ((rest & ~VARINT_MASK) != 0) {
+                write((int) (rest & VARINT_MASK) | VARINT_MORE);
+                rest >>>= VARINT_BITS;
+            }
+            write((int) rest);
+        }
+
+        void fixed(final long value) throws IOException {
+            fixed(value, Long.BYTES);
+        }
+
+        void fixed(final long value, final int size) throws IOException {
+            for (int shift = (size - 1) * BYTE_BITS; shift >= 0;
+                    shift -= BYTE_BITS)
+                write((int) (value >>> shift));
+        }
+
+        void bytes(final byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void write(final int value) throws IOException {
+            if (position == buffer.length) flushBuffer();
+            buffer[position++] = (byte) value;
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+
+        private void flushBuffer() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /** Reads the parts of the format, buffered. */
+    private static final class Reader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        Reader(final InputStream in) {
+            this.in = in;
+        }
+
+        Event event() throws IOException {
+            int flags = read();
+
+            UUID id = null;
+            if ((flags & HAS_ID) != 0) id = new UUID(fixed(), fixed());
+            String title = (flags & HAS_TITLE) != 0 ? string() : null;
+            String description =
+                    (flags & HAS_DESCRIPTION) != 0 ? string() : null;
+
+            long start = 0;
+            LocalDateTime startTime = null;
+            if ((flags & HAS_START) != 0) {
+                start = signed();
+                startTime = time(start, varint());
+            }
+            LocalDateTime endTime = null;
+            if ((flags & HAS_END) != 0)
+                endTime = time(start + signed(), varint());
+
+            Color color = null;
+            if ((flags & HAS_BYTE_COLOR) != 0) {
+                color = Color.rgb(read(), read(), read());
+            } else if ((flags & HAS_COLOR) != 0) {
+                color = Color.color(channel(), channel(), channel());
+            }
+
+            EventType type = null;
+            if ((flags & HAS_TYPE) != 0) {
+                int ordinal = read();
+                if (ordinal >= TYPES.length)
+                    throw new IOException("Unknown event type " + ordinal);
+                type = TYPES[ordinal];
+            }
+
+            return new Event(title,
+                             description,
+                             startTime,
+                             endTime,
+                             color,
+                             type,
+                             id);
+        }
+
+        private static LocalDateTime time(final long epochSecond,
+                final long nano) throws IOException {
+            try {
+                return LocalDateTime.ofEpochSecond(epochSecond,
+                                                   Math.toIntExact(nano),
+                                                   ZoneOffset.UTC);
+            } catch (ArithmeticException | DateTimeException e) {
+                throw new IOException("Invalid time", e);
+            }
+        }
+
+        private double channel() throws IOException {
+            float value = Float.intBitsToFloat((int) fixed(Integer.BYTES));
+            if (!(value >= 0 && value <= 1))
+                throw new IOException("Invalid color channel " + value);
+            return value;
+        }
+
+        String string() throws IOException {
+            long length = varint();
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("String too long");
+            // Most strings are decoded straight from the buffer
+            if (length <= limit - position) {
+                String value = new String(buffer, position, (int) length,
+                                          StandardCharsets.UTF_8);
+                position += (int) length;
+                return value;
+            }
+            return new String(bytes((int) length), StandardCharsets.UTF_8);
+        }
+
+        long signed() throws IOException {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < LONG_BITS; shift += VARINT_BITS) {
+                int b = read();
+                value |= (long) (b & VARINT_MASK) << shift;
+                if ((b & VARINT_MORE) == 0) return value;
+            }
+            throw new IOException("Integer too long");
+        }
+
+        long fixed() throws IOException {
+            return fixed(Long.BYTES);
+        }
+
+        long fixed(final int size) throws IOException {
+            long value = 0;
+            for (int i = 0; i < size; i++)
+                value = (value << BYTE_BITS) | read();
+            return value;
+        }
+
+        byte[] bytes(final int length) throws IOException {
+            // Grow as the bytes arrive, so a corrupt length doesn't allocate
+            ByteArrayOutputStream bytes =
+                    new ByteArrayOutputStream(Math.min(length, BUFFER_SIZE));
+            int remaining = length;
+            while (remaining > 0) {
+                if (position == limit) fill();
+                int chunk = Math.min(remaining, limit - position);
+                bytes.write(buffer, position, chunk);
+                position += chunk;
+                remaining -= chunk;
+            }
+            return bytes.toByteArray();
+        }
+
+        int read() throws IOException {
+            if (position == limit) fill();
+            return buffer[position++] & BYTE_MASK;
+        }
+
+        private void fill() throws IOException {
+            int read = in.read(buffer);
+            if (read < 0) throw new EOFException();
+            position = 0;
+            limit = read;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package calendar.types;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@code EventIndex} class is an interval tree over the events of a
+ * {@link RestCalendar}, used to find the events within a time range without
+ * looking at every event in the calendar.
+ *
+ * <p>
+ * The events are kept in a balanced (AVL) binary search tree ordered by start
+ * time, where every node also tracks the latest end time in its subtree. A
+ * range query can then skip every subtree that ends before the range starts,
+ * and everything to the right of the first event that starts after the range
+ * ends, so its cost depends on the number of events returned rather than the
+ * size of the calendar.
+ * </p>
+ *
+ * <p>
+ * The index is not thread-safe on its own; {@link RestCalendar} only uses it
+ * while holding its lock.
+ * </p>
+ */
+final class EventIndex {
+
+    /** The order of the events in the tree, by start time and then ID. */
+    private static final Comparator<Event> ORDER = Comparator
+            .comparing(Event::getStartTime)
+            .thenComparing(Event::getId);
+
+    /** The root of the tree, or {@code null} if it is empty. */
+    private Node root;
+
+    /** The number of events in the index. */
+    private int size;
+
+    /**
+     * A node in the tree, holding every event with the same start time and ID
+     * (usually just one).
+     */
+    private static final class Node {
+        /** The events stored in this node. */
+        private final List<Event> events = new ArrayList<>(1);
+        /** The left subtree, with the earlier events. */
+        private Node left;
+        /** The right subtree, with the later events. */
+        private Node right;
+        /** The height of the subtree rooted at this node. */
+        private int height = 1;
+        /** The latest end time in the subtree rooted at this node. */
+        private LocalDateTime maxEnd;
+
+        Node(final Event event) {
+            events.add(event);
+            maxEnd = event.getEndTime();
+        }
+
+        Event key() {
+            return events.get(0);
+        }
+    }
+
+    /**
+     * Adds an event to the index.
+     *
+     * @param event the {@link Event} to add
+     */
+    void add(final Event event) {
+        root = insert(root, event);
+        size++;
+    }
+
+    /**
+     * Removes an event from the index. The event is matched by identity, so
+     * only the exact instance that was added is removed.
+     *
+     * @param  event the {@link Event} to remove
+     * @return       {@code true} if the event was in the index
+     */
+    boolean remove(final Event event) {
+        int before = size;
+        root = delete(root, event);
+        return size < before;
+    }
+
+    /**
+     * Removes every event from the index.
+     */
+    void clear() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Gets the number of events in the index.
+     *
+     * @return the number of events
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds every event that overlaps the given range, which is every event
+     * that starts before {@code before} and ends after {@code after}.
+     *
+     * @param  after  the start of the range
+     * @param  before the end of the range
+     * @return        the matching events, ordered by start time
+     */
+    List<Event> query(final LocalDateTime after, final LocalDateTime before) {
+        List<Event> result = new ArrayList<>();
+        query(root, after, before, result);
+        return result;
+    }
+
+    private static void query(final Node node,
+            final LocalDateTime after,
+            final LocalDateTime before,
+            final List<Event> result) {
+        if (node == null || !node.maxEnd.isAfter(after)) return;
+
+        query(node.left, after, before, result);
+
+        // Everything from here on starts too late
+        if (!node.key().getStartTime().isBefore(before)) return;
+
+        for (Event event : node.events)
+            if (event.getEndTime().isAfter(after)) result.add(event);
+
+        query(node.right, after, before, result);
+    }
+
+    private Node insert(final Node node, final Event event) {
+        if (node == null) return new Node(event);
+
+        int cmp = ORDER.compare(event, node.key());
+        if (cmp < 0) node.left = insert(node.left, event);
+        else if (cmp > 0) node.right = insert(node.right, event);
+        else node.events.add(event);
+
+        return balance(node);
+    }
+
+    private Node delete(final Node node, final Event event) {
+        if (node == null) return null;
+
+        int cmp = ORDER.compare(event, node.key());
+        if (cmp < 0) {
+            node.left = delete(node.left, event);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, event);
+        } else {
+            if (!node.events.removeIf(e -> e == event)) return node;
+            size--;
+            if (!node.events.isEmpty()) return balance(node);
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+
+            // Replace the node with the first node of its right subtree
+            Node successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = deleteFirst(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+
+        return balance(node);
+    }
+
+    private static Node deleteFirst(final Node node) {
+        if (node.left == null) return node.right;
+        node.left = deleteFirst(node.left);
+        return balance(node);
+    }
+
+    private static int height(final Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(final Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+
+        LocalDateTime maxEnd = node.events.get(0).getEndTime();
+        for (Event event : node.events)
+            if (event.getEndTime().isAfter(maxEnd))
+                maxEnd = event.getEndTime();
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd))
+            maxEnd = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd))
+            maxEnd = node.right.maxEnd;
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node balance(final Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right))
+                node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left))
+                node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(final Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(final Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
@@ -0,0 +1,77 @@
+package calendar.types;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The {@code LocalCopy} class is what a client saves of a user between runs:
+ * the user with their calendars, and the events of the calendars it has kept
+ * up to date, so it can show them before the server answers.
+ *
+ * <p>
+ * The events of each calendar are saved with the version of the calendar they
+ * are at, so the client only has to ask the server for the changes since.
+ * </p>
+ */
+public final class LocalCopy {
+
+    /** The user, as last fetched from the server. */
+    @JsonProperty
+    private final User user;
+
+    /** The versions the events of each calendar are at, by calendar ID. */
+    @JsonProperty
+    private final Map<UUID, String> versions;
+
+    /** The events of each calendar, by calendar ID. */
+    @JsonProperty
+    private final Map<UUID, List<Event>> events;
+
+    /**
+     * Creates a local copy.
+     *
+     * @param user     the user, or {@code null} if it was never fetched
+     * @param versions the versions the events of each calendar are at, by
+     *                 calendar ID
+     * @param events   the events of each calendar, by calendar ID
+     */
+    @JsonCreator
+    public LocalCopy(@JsonProperty("user") final User user,
+            @JsonProperty("versions") final Map<UUID, String> versions,
+            @JsonProperty("events") final Map<UUID, List<Event>> events) {
+        this.user = user;
+        this.versions = versions == null ? Map.of() : Map.copyOf(versions);
+        this.events = events == null ? Map.of() : Map.copyOf(events);
+    }
+
+    /**
+     * Gets the user, as last fetched from the server.
+     *
+     * @return the user, or {@code null} if it was never fetched
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Gets the versions the events of each calendar are at.
+     *
+     * @return an unmodifiable map of the versions, by calendar ID
+     */
+    public Map<UUID, String> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Gets the events of each calendar.
+     *
+     * @return an unmodifiable map of the events, by calendar ID
+     */
+    public Map<UUID, List<Event>> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,27 @@
+package calendar.types;
+
+import java.util.function.Supplier;
+
+/**
+ * The {@code Lockable} interface is implemented by the parts of the user
+ * database that guard their own state with a lock.
+ *
+ * <p>
+ * It lets a caller make a change and do something that has to happen in the
+ * same order as the change, like recording it in a journal, as one step that
+ * no other writer of the same object can interleave with.
+ * </p>
+ */
+public interface Lockable {
+
+    /**
+     * Runs the given action while holding the write lock of this object. The
+     * lock is reentrant, so the action can call the methods of this object
+     * that change it.
+     *
+     * @param  <T>    the type of the result of the action
+     * @param  action the action to run
+     * @return        the result of the action
+     */
+    <T> T atomically(Supplier<T> action);
+}
@@ -0,0 +1,335 @@
+package calendar.types;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The {@code Mutation} class represents a single change to a
+ * {@link UserStore}, such as a new user or an edited event.
+ *
+ * <p>
+ * Mutations are what the REST API records in its journal. Every change is made
+ * by applying a mutation, both while the server is running and when the journal
+ * is replayed at startup, so the two always end up with the same result.
+ * </p>
+ *
+ * <p>
+ * Applying a mutation is idempotent. Users, calendars and events are looked up
+ * by their IDs, and a mutation that has already been applied, or whose target
+ * no longer exists, leaves the store as it is. This lets the journal be
+ * replayed on top of a snapshot that already contains some of its changes.
+ * </p>
+ *
+ * <p>
+ * Only the fields that the {@link MutationType} needs are set, the rest are
+ * {@code null} and left out of the JSON.
+ * </p>
+ *
+ * <p>
+ * A {@link MutationType#BATCH batch} groups event changes to one calendar, so
+ * they are recorded as one entry and made all together. If any of them can't
+ * be made, such as an edit of an event that is gone, none of them are.
+ * </p>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class Mutation {
+
+    /** The kind of change. */
+    @JsonProperty
+    private final MutationType type;
+
+    /** The ID of the user that is changed. */
+    @JsonProperty
+    private final UUID userId;
+
+    /** The ID of the calendar that is changed or removed. */
+    @JsonProperty
+    private final UUID calendarId;
+
+    /** The ID of the event that is removed. */
+    @JsonProperty
+    private final UUID eventId;
+
+    /** The user that is added. */
+    @JsonProperty
+    private final RestUser user;
+
+    /** The calendar that is added. */
+    @JsonProperty
+    private final RestCalendar calendar;
+
+    /** The event that is added, or the new version of an edited event. */
+    @JsonProperty
+    private final Event event;
+
+    /**
+     * The event changes made together by a batch. Only batches set it, after
+     * they are constructed.
+     */
+    @JsonProperty
+    private List<Mutation> mutations;
+
+    /**
+     * Full constructor for the {@code Mutation} class, used for
+     * deserialization. Use the static factory methods to create new mutations.
+     *
+     * @param type       the kind of change
+     * @param userId     the ID of the user that is changed
+     * @param calendarId the ID of the calendar that is changed or removed
+     * @param eventId    the ID of the event that is removed
+     * @param user       the user that is added
+     * @param calendar   the calendar that is added
+     * @param event      the event that is added or edited
+     */
+    @JsonCreator
+    private Mutation(@JsonProperty("type") final MutationType type,
+            @JsonProperty("userId") final UUID userId,
+            @JsonProperty("calendarId") final UUID calendarId,
+            @JsonProperty("eventId") final UUID eventId,
+            @JsonProperty("user") final RestUser user,
+            @JsonProperty("calendar") final RestCalendar calendar,
+            @JsonProperty("event") final Event event) {
+        this.type = type;
+        this.userId = userId;
+        this.calendarId = calendarId;
+        this.eventId = eventId;
+        this.user = user;
+        this.calendar = calendar;
+        this.event = event;
+    }
+
+    /**
+     * Creates a mutation that adds a user to the store.
+     *
+     * @param  user the {@link RestUser} to add
+     * @return      the new {@code Mutation}
+     */
+    public static Mutation addUser(final RestUser user) {
+        return new Mutation(MutationType.ADD_USER, user.getUserId(), null, null,
+                user, null, null);
+    }
+
+    /**
+     * Creates a mutation that adds a calendar to a user.
+     *
+     * @param  userId   the ID of the user that gets the calendar
+     * @param  calendar the {@link RestCalendar} to add
+     * @return          the new {@code Mutation}
+     */
+    public static Mutation addCalendar(final UUID userId,
+            final RestCalendar calendar) {
+        return new Mutation(MutationType.ADD_CALENDAR, userId,
+                calendar.getCalendarId(), null, null, calendar, null);
+    }
+
+    /**
+     * Creates a mutation that removes a calendar from a user.
+     *
+     * @param  userId     the ID of the user that owns the calendar
+     * @param  calendarId the ID of the calendar to remove
+     * @return            the new {@code Mutation}
+     */
+    public static Mutation removeCalendar(final UUID userId,
+            final UUID calendarId) {
+        return new Mutation(MutationType.REMOVE_CALENDAR, userId, calendarId,
+                null, null, null, null);
+    }
+
+    /**
+     * Creates a mutation that adds an event to a calendar.
+     *
+     * @param  userId     the ID of the user that owns the calendar
+     * @param  calendarId the ID of the calendar that gets the event
+     * @param  event      the {@link Event} to add
+     * @return            the new {@code Mutation}
+     */
+    public static Mutation addEvent(final UUID userId,
+            final UUID calendarId,
+            final Event event) {
+        return new Mutation(MutationType.ADD_EVENT, userId, calendarId, null,
+                null, null, event);
+    }
+
+    /**
+     * Creates a mutation that removes an event from a calendar.
+     *
+     * @param  userId     the ID of the user that owns the calendar
+     * @param  calendarId the ID of the calendar that holds the event
+     * @param  eventId    the ID of the event to remove
+     * @return            the new {@code Mutation}
+     */
+    public static Mutation removeEvent(final UUID userId,
+            final UUID calendarId,
+            final UUID eventId) {
+        return new Mutation(MutationType.REMOVE_EVENT, userId, calendarId,
+                eventId, null, null, null);
+    }
+
+    /**
+     * Creates a mutation that replaces an event in a calendar with a new
+     * version. The event to replace is the one with the same ID as
+     * {@code event}.
+     *
+     * @param  userId     the ID of the user that owns the calendar
+     * @param  calendarId the ID of the calendar that holds the event
+     * @param  event      the new version of the {@link Event}
+     * @return            the new {@code Mutation}
+     */
+    public static Mutation editEvent(final UUID userId,
+            final UUID calendarId,
+            final Event event) {
+        return new Mutation(MutationType.EDIT_EVENT, userId, calendarId, null,
+                null, null, event);
+    }
+
+    /**
+     * Creates a mutation that makes several event changes to a calendar
+     * together, either all of them or none.
+     *
+     * @param  userId     the ID of the user that owns the calendar
+     * @param  calendarId the ID of the calendar the events are in
+     * @param  mutations  the event changes, made in order; each must add,
+     *                    edit or remove an event in the same calendar
+     * @return            the new {@code Mutation}
+     */
+    public static Mutation batch(final UUID userId,
+            final UUID calendarId,
+            final List<Mutation> mutations) {
+        Mutation batch = new Mutation(MutationType.BATCH, userId, calendarId,
+                null, null, null, null);
+        batch.mutations = List.copyOf(mutations);
+        return batch;
+    }
+
+    /**
+     * Gets the kind of change this mutation makes.
+     *
+     * @return the {@link MutationType} of this mutation
+     */
+    public MutationType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the user this mutation changes.
+     *
+     * @return the {@link UUID} of the user
+     */
+    public UUID getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the ID of the calendar this mutation changes or removes.
+     *
+     * @return the {@link UUID} of the calendar, or {@code null} if the
+     *         mutation adds a user
+     */
+    public UUID getCalendarId() {
+        return calendarId;
+    }
+
+    /**
+     * Applies this mutation to the given store.
+     *
+     * @param  store the {@link UserStore} to change
+     * @return       {@code true} if the store was changed, {@code false} if the
+     *               mutation was already applied or its target does not exist
+     */
+    public boolean applyTo(final UserStore store) {
+        if (type == MutationType.ADD_USER) return store.addUser(user);
+
+        Optional<RestUser> owner = store.getUser(userId);
+        return switch (type) {
+            case ADD_CALENDAR -> owner.map(u -> u.atomically(() -> {
+                if (u.getCalendar(calendarId).isPresent()) return false;
+                u.addCalendar(calendar);
+                return true;
+            })).orElse(false);
+            case REMOVE_CALENDAR -> owner.map(u -> u.removeCalendar(calendarId))
+                    .orElse(false);
+            default -> owner.flatMap(u -> u.getCalendar(calendarId))
+                    .map(this::applyTo)
+                    .orElse(false);
+        };
+    }
+
+    /**
+     * Finds the first event change in this mutation that can't be made to a
+     * calendar as it is now. For a batch, each change is checked against the
+     * calendar as the changes before it would leave it.
+     *
+     * <p>
+     * The calendar should be locked while this is called, so it doesn't
+     * change before the result is used.
+     * </p>
+     *
+     * @param  target the calendar the changes are made to
+     * @return        an {@code OptionalInt} containing the index of the first
+     *                change that can't be made, or an empty
+     *                {@code OptionalInt} if they all can
+     */
+    public OptionalInt findConflict(final RestCalendar target) {
+        List<Mutation> changes =
+                type == MutationType.BATCH ? mutations : List.of(this);
+        Set<UUID> added = new HashSet<>();
+        Set<UUID> removed = new HashSet<>();
+
+        for (int i = 0; i < changes.size(); i++) {
+            Mutation change = changes.get(i);
+            UUID id = change.type == MutationType.REMOVE_EVENT
+                    ? change.eventId
+                    : change.event.getId();
+            boolean exists = added.contains(id) || (!removed.contains(id)
+                    && target.getEvent(id).isPresent());
+
+            switch (change.type) {
+                case ADD_EVENT -> {
+                    if (exists) return OptionalInt.of(i);
+                    added.add(id);
+                    removed.remove(id);
+                }
+                case EDIT_EVENT -> {
+                    if (!exists) return OptionalInt.of(i);
+                }
+                case REMOVE_EVENT -> {
+                    if (!exists) return OptionalInt.of(i);
+                    removed.add(id);
+                    added.remove(id);
+                }
+                default -> {
+                    return OptionalInt.of(i);
+                }
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    private boolean applyTo(final RestCalendar target) {
+        return target.atomically(() -> switch (type) {
+            case BATCH -> {
+                if (findConflict(target).isPresent()) yield false;
+                mutations.forEach(mutation -> mutation.applyTo(target));
+                yield true;
+            }
+            case ADD_EVENT -> {
+                if (target.getEvent(event.getId()).isPresent()) yield false;
+                target.addEvent(event);
+                yield true;
+            }
+            case REMOVE_EVENT -> target.removeEvent(eventId);
+            case EDIT_EVENT -> target.getEvent(event.getId())
+                    .map(old -> target.replaceEvent(old, event))
+                    .orElse(false);
+            default -> false;
+        });
+    }
+}
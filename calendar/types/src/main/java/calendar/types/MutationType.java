@@ -0,0 +1,35 @@
+package calendar.types;
+
+/**
+ * The {@code MutationType} enum represents the kind of change a
+ * {@link Mutation} makes to a {@link UserStore}.
+ *
+ * The current types are:
+ * <ul>
+ * <li>{@link #ADD_USER} - A new user signs up.</li>
+ * <li>{@link #ADD_CALENDAR} - A user creates a calendar.</li>
+ * <li>{@link #REMOVE_CALENDAR} - A user deletes a calendar.</li>
+ * <li>{@link #ADD_EVENT} - An event is added to a calendar.</li>
+ * <li>{@link #REMOVE_EVENT} - An event is removed from a calendar.</li>
+ * <li>{@link #EDIT_EVENT} - An event in a calendar is replaced by a new
+ * version.</li>
+ * <li>{@link #BATCH} - Several events in a calendar are added, edited or
+ * removed together.</li>
+ * </ul>
+ */
+public enum MutationType {
+    /** Adds a user to the store. */
+    ADD_USER,
+    /** Adds a calendar to a user. */
+    ADD_CALENDAR,
+    /** Removes a calendar from a user. */
+    REMOVE_CALENDAR,
+    /** Adds an event to a calendar. */
+    ADD_EVENT,
+    /** Removes an event from a calendar. */
+    REMOVE_EVENT,
+    /** Replaces an event in a calendar with a new version. */
+    EDIT_EVENT,
+    /** Makes several event changes to a calendar, either all or none. */
+    BATCH
+}
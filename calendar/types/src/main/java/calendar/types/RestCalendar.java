@@ -1,10 +1,18 @@
 package calendar.types;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -23,8 +31,35 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * Instances of this class can be constructed with a user ID and/or a list of
  * events. If no user ID is provided, a random {@link UUID} is generated.
  * </p>
+ *
+ * <p>
+ * Each calendar guards its events with its own {@link ReadWriteLock}, so
+ * requests against different calendars never wait for each other, and any
+ * number of readers can look at the same calendar at once. Writers that need
+ * their change ordered with other writers of the same calendar make it through
+ * {@link #atomically(Supplier)}.
+ * </p>
+ *
+ * <p>
+ * The events are kept by ID, in the order they were added, so an event is
+ * looked up, edited or removed by its ID without going through the others.
+ * They are also kept in an {@link EventIndex}, so
+ * {@link #getEvents(Optional, Optional)} can answer time range queries in time
+ * proportional to the number of events returned.
+ * </p>
+ *
+ * <p>
+ * Every change to the events bumps the calendar's {@link #getVersion()
+ * version}, so clients can tell whether the calendar changed since they last
+ * fetched it. The latest changes are also kept in a bounded log, so
+ * {@link #getChanges(long)} can tell clients just what changed since a version
+ * they already have.
+ * </p>
  */
-public class RestCalendar {
+public class RestCalendar implements Lockable {
+
+    /** The number of changes kept in the change log of each calendar. */
+    public static final int CHANGE_LOG_SIZE = 256;
 
     /** The userid of the user that owns this calendar. */
     @JsonProperty
@@ -34,9 +69,32 @@ public class RestCalendar {
     @JsonProperty
     private String name;
 
-    /** The evensts that are conected to this calendar. */
-    @JsonProperty
-    private List<Event> events;
+    /**
+     * The events of this calendar by ID, in the order they were added. Events
+     * that share an ID (usually none) are kept together under it.
+     */
+    @JsonIgnore
+    private final Map<UUID, List<Event>> eventsById = new LinkedHashMap<>();
+
+    /** The number of events in this calendar. */
+    @JsonIgnore
+    private int eventCount;
+
+    /** The lock guarding the events of this calendar. */
+    @JsonIgnore
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The events of this calendar, indexed by time. */
+    @JsonIgnore
+    private final EventIndex eventIndex = new EventIndex();
+
+    /** The number of changes made to the events of this calendar. */
+    @JsonIgnore
+    private long version;
+
+    /** The latest changes made to the events of this calendar. */
+    @JsonIgnore
+    private final ChangeLog changeLog = new ChangeLog(CHANGE_LOG_SIZE);
 
     /**
      * Default constructor that creates a {@link RestCalendar} with a randomly
@@ -95,9 +153,24 @@ public class RestCalendar {
     public RestCalendar(@JsonProperty("userId") final UUID calendarId,
             @JsonProperty("name") final String name,
             @JsonProperty("events") final List<Event> events) {
-        this.events = new ArrayList<>(events);
         this.calendarId = calendarId;
         this.name = name;
+        events.forEach(this::add);
+    }
+
+    /**
+     * Creates a copy of the given calendar, with the same ID, name and events.
+     *
+     * <p>
+     * The events are copied while holding the calendar's read lock, so the
+     * copy shows the calendar as it was at one point in time, and can be read
+     * while the original keeps changing.
+     * </p>
+     *
+     * @param calendar the {@link RestCalendar} to copy
+     */
+    public RestCalendar(final RestCalendar calendar) {
+        this(calendar.calendarId, calendar.name, calendar.getEvents());
     }
 
     /**
@@ -123,8 +196,40 @@ public class RestCalendar {
      *
      * @return a new {@link ArrayList} containing the events
      */
+    @JsonProperty("events")
     public List<Event> getEvents() {
-        return new ArrayList<>(events);
+        lock.readLock().lock();
+        try {
+            List<Event> events = new ArrayList<>(eventCount);
+            eventsById.values().forEach(events::addAll);
+            return events;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the events in this calendar that overlap the given time range,
+     * ordered by start time.
+     *
+     * <p>
+     * An event is included if it starts before {@code before} and ends after
+     * {@code after}. A missing bound leaves that side of the range open.
+     * </p>
+     *
+     * @param  before an optional time the events must start before
+     * @param  after  an optional time the events must end after
+     * @return        a new {@link List} containing the matching events
+     */
+    public List<Event> getEvents(final Optional<LocalDateTime> before,
+            final Optional<LocalDateTime> after) {
+        lock.readLock().lock();
+        try {
+            return eventIndex.query(after.orElse(LocalDateTime.MIN),
+                               before.orElse(LocalDateTime.MAX));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -136,7 +241,29 @@ public class RestCalendar {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public Event getEvent(final int index) {
-        return events.get(index);
+        lock.readLock().lock();
+        try {
+            return eventAt(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the event with the specified ID.
+     *
+     * @param  eventId the ID of the event to retrieve
+     * @return         an {@code Optional} containing the {@link Event} if
+     *                 found, or an empty {@code Optional} if not found
+     */
+    public Optional<Event> getEvent(final UUID eventId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(eventsById.get(eventId))
+                    .map(events -> events.get(0));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -145,7 +272,15 @@ public class RestCalendar {
      * @param event the {@link Event} to be removed
      */
     public void removeEvent(final Event event) {
-        events.remove(event);
+        lock.writeLock().lock();
+        try {
+            // Equal events may have other IDs, so every event is looked at
+            eventsById.values().stream().flatMap(List::stream)
+                    .filter(event::equals).findFirst()
+                    .ifPresent(this::removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -155,7 +290,31 @@ public class RestCalendar {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public void removeEvent(final int index) {
-        events.remove(index);
+        lock.writeLock().lock();
+        try {
+            removed(eventAt(index));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the event with the specified ID from the calendar.
+     *
+     * @param  eventId the ID of the event to be removed
+     * @return         {@code true} if the event was removed, {@code false} if
+     *                 there is no such event in the calendar
+     */
+    public boolean removeEvent(final UUID eventId) {
+        lock.writeLock().lock();
+        try {
+            List<Event> events = eventsById.get(eventId);
+            if (events == null) return false;
+            removed(events.get(0));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -164,7 +323,50 @@ public class RestCalendar {
      * @param event the {@link Event} to be added
      */
     public void addEvent(final Event event) {
-        events.add(event);
+        lock.writeLock().lock();
+        try {
+            add(event);
+            changeLog.add(Change.added(++version, event));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces an event in the calendar with another one, as a single step.
+     * Readers see either the old or the new event, never both or neither.
+     *
+     * <p>
+     * The event to replace is found by its ID, so an equal event with another
+     * ID is never replaced by mistake.
+     * </p>
+     *
+     * @param  oldEvent the {@link Event} to be replaced
+     * @param  newEvent the {@link Event} to put in its place
+     * @return          {@code true} if the event was replaced, {@code false} if
+     *                  {@code oldEvent} is not in the calendar
+     */
+    public boolean replaceEvent(final Event oldEvent, final Event newEvent) {
+        lock.writeLock().lock();
+        try {
+            List<Event> events = eventsById.get(oldEvent.getId());
+            if (events == null) return false;
+            Event removed = events.get(0);
+            remove(removed);
+            add(newEvent);
+            version++;
+
+            // An event that gets a new ID is a removal and an addition
+            if (removed.getId().equals(newEvent.getId())) {
+                changeLog.add(Change.edited(version, newEvent));
+            } else {
+                changeLog.add(Change.removed(version, removed.getId()));
+                changeLog.add(Change.added(version, newEvent));
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -173,7 +375,100 @@ public class RestCalendar {
      * @return the number of events
      */
     public int eventCount() {
-        return events.size();
+        lock.readLock().lock();
+        try {
+            return eventCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the version of this calendar, which starts at zero and is bumped by
+     * every change to its events. Two reads of the events with the same
+     * version give the same events.
+     *
+     * <p>
+     * The version isn't saved with the calendar, so it starts over when the
+     * calendar is loaded.
+     * </p>
+     *
+     * @return the version of this calendar
+     */
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
+    /**
+     * Gets the changes made to the events of this calendar since the given
+     * version, oldest first.
+     *
+     * <p>
+     * Only the latest {@value #CHANGE_LOG_SIZE} changes are kept, and the log
+     * starts over with the version when the calendar is loaded, so a client
+     * whose version is older than that can't be told what changed.
+     * </p>
+     *
+     * @param  since a version of this calendar, as given by
+     *               {@link #getVersion()}
+     * @return       an {@code Optional} containing the changes made after
+     *               {@code since}, or an empty {@code Optional} if they are
+     *               no longer known, or {@code since} is newer than the
+     *               current version
+     */
+    public Optional<List<Change>> getChanges(final long since) {
+        lock.readLock().lock();
+        try {
+            return changeLog.since(since, version);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(final Event event) {
+        eventsById.computeIfAbsent(event.getId(), id -> new ArrayList<>(1))
+                .add(event);
+        eventIndex.add(event);
+        eventCount++;
+    }
+
+    private void remove(final Event event) {
+        // Matched by identity, as equal events may be different ones
+        List<Event> events = eventsById.get(event.getId());
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i) != event) continue;
+            events.remove(i);
+            break;
+        }
+        if (events.isEmpty()) eventsById.remove(event.getId());
+        eventIndex.remove(event);
+        eventCount--;
+    }
+
+    private void removed(final Event event) {
+        remove(event);
+        changeLog.add(Change.removed(++version, event.getId()));
+    }
+
+    private Event eventAt(final int index) {
+        if (index < 0 || index >= eventCount)
+            throw new IndexOutOfBoundsException(index);
+        return eventsById.values().stream().flatMap(List::stream)
+                .skip(index).findFirst().orElseThrow();
+    }
+
+    @Override
+    public <T> T atomically(final Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
 }
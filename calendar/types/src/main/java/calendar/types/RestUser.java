@@ -1,10 +1,14 @@
 package calendar.types;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -18,8 +22,18 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * serialized/deserialized using the Jackson library through annotations such as
  * {@link JsonCreator} and {@link JsonProperty}.
  * </p>
+ *
+ * <p>
+ * The calendars are kept by ID, in the order they were added, in an
+ * immutable index that is replaced as a whole when a calendar is added or
+ * removed. Calendars are rarely added or removed, but looked up on almost
+ * every request, so a lookup by ID is a single map lookup that never blocks,
+ * and {@link #getCalendars()} hands out the current list without copying it.
+ * Writers that need their change ordered with other writers of the same user
+ * make it through {@link #atomically(Supplier)}.
+ * </p>
  */
-public class RestUser {
+public class RestUser implements Lockable {
 
     /** The user id of the user. */
     @JsonProperty
@@ -33,14 +47,58 @@ public class RestUser {
     @JsonProperty
     private String password;
 
-    /** The list of calendars the user has. */
-    @JsonProperty
-    private List<RestCalendar> calendars;
+    /** The calendars the user has, by ID and in the order they were added. */
+    @JsonIgnore
+    private volatile CalendarIndex calendarIndex = CalendarIndex.EMPTY;
 
     /** The settings the user has. */
     @JsonProperty
     private UserSettings settings;
 
+    /** The lock serializing the writers that use {@link #atomically}. */
+    @JsonIgnore
+    private final Object lock = new Object();
+
+    /**
+     * An immutable set of calendars, both by ID and in the order they were
+     * added.
+     */
+    private static final class CalendarIndex {
+        /** The index without any calendars. */
+        private static final CalendarIndex EMPTY =
+                new CalendarIndex(new LinkedHashMap<>());
+
+        /** The calendars by ID, never changed after construction. */
+        private final Map<UUID, RestCalendar> byId;
+        /** The calendars in the order they were added. */
+        private final List<RestCalendar> ordered;
+
+        CalendarIndex(final LinkedHashMap<UUID, RestCalendar> byId) {
+            this.byId = byId;
+            this.ordered = List.copyOf(byId.values());
+        }
+
+        static CalendarIndex of(final List<RestCalendar> calendars) {
+            LinkedHashMap<UUID, RestCalendar> byId = new LinkedHashMap<>();
+            for (RestCalendar calendar : calendars)
+                byId.put(calendar.getCalendarId(), calendar);
+            return new CalendarIndex(byId);
+        }
+
+        CalendarIndex with(final RestCalendar calendar) {
+            LinkedHashMap<UUID, RestCalendar> copy = new LinkedHashMap<>(byId);
+            copy.put(calendar.getCalendarId(), calendar);
+            return new CalendarIndex(copy);
+        }
+
+        CalendarIndex without(final UUID calendarId) {
+            if (!byId.containsKey(calendarId)) return this;
+            LinkedHashMap<UUID, RestCalendar> copy = new LinkedHashMap<>(byId);
+            copy.remove(calendarId);
+            return new CalendarIndex(copy);
+        }
+    }
+
     /**
      * Constructs a new {@code User} with a randomly generated user ID, a
      * username, and a password. A new {@link Calendar} is also created and
@@ -53,7 +111,6 @@ public class RestUser {
         this.userId = UUID.randomUUID();
         this.username = username;
         this.password = password;
-        this.calendars = new ArrayList<>();
         this.settings = new UserSettings(userId);
     }
 
@@ -72,7 +129,6 @@ public class RestUser {
         this.userId = userId;
         this.username = username;
         this.password = password;
-        this.calendars = new ArrayList<>();
         this.settings = new UserSettings(userId);
         this.addCalendar(new RestCalendar(userId));
     }
@@ -101,10 +157,32 @@ public class RestUser {
         this.userId = userId;
         this.username = username;
         this.password = password;
-        this.calendars = new ArrayList<>(calendars);
+        this.calendarIndex = CalendarIndex.of(calendars);
         this.settings = settings;
     }
 
+    /**
+     * Creates a copy of the given user, where every calendar is copied with
+     * {@link RestCalendar#RestCalendar(RestCalendar)}.
+     *
+     * <p>
+     * Each calendar is copied as it was at one point in time, but calendars
+     * that change while the user is being copied may be copied at different
+     * points in time.
+     * </p>
+     *
+     * @param user the {@link RestUser} to copy
+     */
+    public RestUser(final RestUser user) {
+        this.userId = user.userId;
+        this.username = user.username;
+        this.password = user.password;
+        this.calendarIndex = CalendarIndex.of(user.getCalendars().stream()
+                .map(RestCalendar::new)
+                .toList());
+        this.settings = user.settings;
+    }
+
     /**
      * Gets the unique identifier for the user.
      *
@@ -144,12 +222,19 @@ public class RestUser {
     }
 
     /**
-     * Gets a copy of the list of calendars associated with the user.
+     * Gets the calendars associated with the user, in the order they were
+     * added.
+     *
+     * <p>
+     * The list is not copied. It is an unmodifiable snapshot, so calendars
+     * added or removed later do not show up in it.
+     * </p>
      *
-     * @return a new {@link ArrayList} containing the user's calendars
+     * @return an unmodifiable list of the user's calendars
      */
+    @JsonProperty("calendars")
     public List<RestCalendar> getCalendars() {
-        return new ArrayList<>(calendars);
+        return calendarIndex.ordered;
     }
 
     /**
@@ -161,7 +246,18 @@ public class RestUser {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public RestCalendar getCalendar(final int index) {
-        return calendars.get(index);
+        return calendarIndex.ordered.get(index);
+    }
+
+    /**
+     * Gets the calendar with the specified ID.
+     *
+     * @param  calendarId the ID of the calendar to retrieve
+     * @return            an {@code Optional} containing the {@link Calendar} if
+     *                    found, or an empty {@code Optional} if not found
+     */
+    public Optional<RestCalendar> getCalendar(final UUID calendarId) {
+        return Optional.ofNullable(calendarIndex.byId.get(calendarId));
     }
 
     /**
@@ -170,7 +266,7 @@ public class RestUser {
      * @param calendar the {@link Calendar} to remove
      */
     public void removeCalendar(final RestCalendar calendar) {
-        calendars.remove(calendar);
+        removeCalendar(calendar.getCalendarId());
     }
 
     /**
@@ -181,16 +277,37 @@ public class RestUser {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public void removeCalendar(final int index) {
-        calendars.remove(index);
+        synchronized (lock) {
+            removeCalendar(getCalendar(index).getCalendarId());
+        }
     }
 
     /**
-     * Adds a new calendar to the user's list of calendars.
+     * Removes the calendar with the specified ID from the user's list of
+     * calendars.
+     *
+     * @param  calendarId the ID of the calendar to remove
+     * @return            {@code true} if the calendar was removed,
+     *                    {@code false} if the user has no such calendar
+     */
+    public boolean removeCalendar(final UUID calendarId) {
+        synchronized (lock) {
+            CalendarIndex current = calendarIndex;
+            calendarIndex = current.without(calendarId);
+            return calendarIndex != current;
+        }
+    }
+
+    /**
+     * Adds a new calendar to the user's list of calendars. A calendar with the
+     * same ID as one the user already has takes its place.
      *
      * @param calendar the {@link Calendar} to add
      */
     public void addCalendar(final RestCalendar calendar) {
-        calendars.add(calendar);
+        synchronized (lock) {
+            calendarIndex = calendarIndex.with(calendar);
+        }
     }
 
     /**
@@ -199,6 +316,13 @@ public class RestUser {
      * @return the number of calendars
      */
     public int calendarCount() {
-        return calendars.size();
+        return calendarIndex.ordered.size();
+    }
+
+    @Override
+    public <T> T atomically(final Supplier<T> action) {
+        synchronized (lock) {
+            return action.get();
+        }
     }
 }
@@ -1,10 +1,13 @@
 package calendar.types;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -12,8 +15,21 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * mapping between user IDs and {@link User} objects. It provides methods for
  * adding, removing, and checking the existence of users by their username or
  * user ID.
+ *
+ * <p>
+ * The store is safe to use from several threads at once. Both mappings are
+ * {@link ConcurrentHashMap}s, so lookups never take a lock, and usernames are
+ * reserved atomically so two concurrent sign-ups can't claim the same name.
+ * Changes to a single user are guarded by that user and its calendars, not by
+ * the store.
+ * </p>
+ *
+ * <p>
+ * Writers that need their change ordered with other writers of the store, like
+ * when journaling new users, make it through {@link #atomically(Supplier)}.
+ * </p>
  */
-public class UserStore {
+public class UserStore implements Lockable {
 
     /** A map between the username and userID. */
     @JsonProperty
@@ -23,6 +39,10 @@ public class UserStore {
     @JsonProperty
     private Map<UUID, RestUser> userIdToUser;
 
+    /** The lock serializing the writers that use {@link #atomically}. */
+    @JsonIgnore
+    private final Object lock = new Object();
+
     /**
      * Constructs a new {@code UserStore} with the provided mappings of
      * usernames to user IDs and user IDs to users.
@@ -31,26 +51,61 @@ public class UserStore {
      *                         user IDs
      * @param userIdToUser     a {@code Map} of user IDs to {@code User} objects
      */
+    @JsonCreator
     public UserStore(
             @JsonProperty("usernameToUserId")
             final Map<String, UUID> usernameToUserId,
             @JsonProperty("userIdToUser")
             final Map<UUID, RestUser> userIdToUser) {
-        this.usernameToUserId = new HashMap<>(usernameToUserId);
-        this.userIdToUser = new HashMap<>(userIdToUser);
+        this.usernameToUserId = new ConcurrentHashMap<>(usernameToUserId);
+        this.userIdToUser = new ConcurrentHashMap<>(userIdToUser);
+    }
+
+    /**
+     * Creates a copy of the given store, where every user is copied with
+     * {@link RestUser#RestUser(RestUser)}, while the original keeps changing.
+     *
+     * <p>
+     * No lock is held on the store as a whole, so the copy is not a single
+     * point in time. Each calendar is copied whole, but changes made while the
+     * copy is taken may or may not be in it. Only users whose username was
+     * reserved are copied, so the copy never holds half-added users.
+     * </p>
+     *
+     * @param store the {@code UserStore} to copy
+     */
+    public UserStore(final UserStore store) {
+        this.usernameToUserId = new ConcurrentHashMap<>();
+        this.userIdToUser = new ConcurrentHashMap<>();
+        store.usernameToUserId.forEach((username, userId) -> {
+            RestUser user = store.userIdToUser.get(userId);
+            if (user == null) return;
+            usernameToUserId.put(username, userId);
+            userIdToUser.put(userId, new RestUser(user));
+        });
     }
 
     /**
      * Adds a new {@link User} to the store if the user does not already exist.
      *
+     * <p>
+     * The user is made reachable by ID first, and the username is reserved
+     * last, so a user found by name can always be resolved. If another thread
+     * reserved the same username in the meantime, the user is not added.
+     * </p>
+     *
      * @param  user the {@link User} to add
      * @return      {@code true} if the user was added, {@code false} if the
-     *              user already exists
+     *              user or the username already exists
      */
     public boolean addUser(final RestUser user) {
-        if (hasUser(user)) return false;
-        usernameToUserId.put(user.getUsername(), user.getUserId());
-        userIdToUser.put(user.getUserId(), user);
+        if (userIdToUser.putIfAbsent(user.getUserId(), user) != null)
+            return false;
+        if (usernameToUserId.putIfAbsent(user.getUsername(),
+                                         user.getUserId()) != null) {
+            userIdToUser.remove(user.getUserId(), user);
+            return false;
+        }
         return true;
     }
 
@@ -62,8 +117,7 @@ public class UserStore {
      *                  the user does not exist
      */
     public boolean removeUser(final String username) {
-        if (!hasUsername(username)) return false;
-        return removeUser(getUserId(username).get());
+        return getUserId(username).map(this::removeUser).orElse(false);
     }
 
     /**
@@ -74,8 +128,7 @@ public class UserStore {
      *                user does not exist
      */
     public boolean removeUser(final UUID userId) {
-        if (!hasUserId(userId)) return false;
-        return removeUser(getUser(userId).get());
+        return getUser(userId).map(this::removeUser).orElse(false);
     }
 
     /**
@@ -86,8 +139,8 @@ public class UserStore {
      *              user does not exist
      */
     public boolean removeUser(final RestUser user) {
-        if (!hasUser(user)) return false;
-        usernameToUserId.remove(user.getUsername());
+        if (!usernameToUserId.remove(user.getUsername(), user.getUserId()))
+            return false;
         userIdToUser.remove(user.getUserId());
         return true;
     }
@@ -145,4 +198,11 @@ public class UserStore {
     public Optional<RestUser> getUser(final UUID userId) {
         return Optional.ofNullable(userIdToUser.get(userId));
     }
+
+    @Override
+    public <T> T atomically(final Supplier<T> action) {
+        synchronized (lock) {
+            return action.get();
+        }
+    }
 }
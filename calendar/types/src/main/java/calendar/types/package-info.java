@@ -15,12 +15,23 @@
  * <li>{@link calendar.types.Calendar} - Represents the overall calendar
  * structure, containing all events, settings, and configurations relevant to
  * managing and viewing calendar data.</li>
+ * <li>{@link calendar.types.BatchOperation} and
+ * {@link calendar.types.BatchResult} - Describe the event changes sent
+ * together in one request, and how each of them went.</li>
+ * <li>{@link calendar.types.Change} and {@link calendar.types.ChangeFeed} -
+ * Describe the changes made to the events of a calendar since a version, so
+ * clients can keep a copy of it up to date.</li>
  * <li>{@link calendar.types.Event} - Defines individual events within the
  * calendar, including details such as the event's start time, end time,
  * description, and associated calendar.</li>
+ * <li>{@link calendar.types.EventCodec} - Writes and reads lists of events in
+ * a compact binary format, sent instead of JSON to clients that ask for it.
+ * </li>
  * <li>{@link calendar.types.EventType} - An enum to help differentiate between
  * various kinds of events, potentially allowing for different handling or
  * styling of each type.</li>
+ * <li>{@link calendar.types.LocalCopy} - What a client saves of a user and
+ * the events of their calendars between runs.</li>
  * <li>{@link calendar.types.User} - Represents a user within the calendar
  * system, containing information such as the user's name, contact details, and
  * preferences.</li>
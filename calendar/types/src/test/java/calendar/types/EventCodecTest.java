@@ -0,0 +1,162 @@
+package calendar.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Unit test class for testing the {@link EventCodec} class.
+ * <p>
+ * This class tests that events are read back exactly as they were written,
+ * including fields that are not set, and that bytes that are not a list of
+ * events are rejected.
+ */
+public class EventCodecTest {
+
+    private final Event event = new Event("title", "description",
+            LocalDateTime.of(2024, 10, 7, 10, 0),
+            LocalDateTime.of(2024, 10, 7, 12, 0));
+
+    /**
+     * Asserts that every field of the events is the same, as
+     * {@link Event#equals(Object)} only compares the IDs.
+     */
+    private void assertSame(final Event expected, final Event actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getStartTime(), actual.getStartTime());
+        assertEquals(expected.getEndTime(), actual.getEndTime());
+        assertEquals(expected.getColor(), actual.getColor());
+        assertEquals(expected.getType(), actual.getType());
+    }
+
+    /**
+     * Tests writing and reading events with every kind of value.
+     * <p>
+     * Verifies that titles outside ASCII, times before the epoch and with
+     * nanoseconds, and colors that don't fit in bytes are kept.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Event> events = List.of(event,
+                new Event("Møte 📅", "", LocalDateTime.of(1950, 1, 1, 0, 0, 0, 1),
+                        LocalDateTime.of(1950, 1, 2, 0, 0, 0, 999_999_999),
+                        Color.color(0.1234, 0.5, 0.75), EventType.ALL_DAY, UUID.randomUUID()),
+                new Event("red", "x".repeat(10_000), event.getStartTime(), event.getEndTime(),
+                        Color.rgb(255, 0, 17), EventType.REGULAR, UUID.randomUUID()));
+
+        List<Event> read = EventCodec.fromBytes(EventCodec.toBytes(events));
+        assertEquals(events.size(), read.size());
+        for (int i = 0; i < events.size(); i++) assertSame(events.get(i), read.get(i));
+
+        assertEquals(List.of(), EventCodec.fromBytes(EventCodec.toBytes(List.of())));
+    }
+
+    /**
+     * Tests writing and reading an event with no fields set.
+     */
+    @Test
+    public void testMissingFields() throws IOException {
+        Event empty = new Event(null, null, null, null, null, null, null);
+        Event read = EventCodec.fromBytes(EventCodec.toBytes(List.of(empty))).get(0);
+        assertNull(read.getId());
+        assertNull(read.getTitle());
+        assertNull(read.getDescription());
+        assertNull(read.getStartTime());
+        assertNull(read.getEndTime());
+        assertNull(read.getColor());
+        assertNull(read.getType());
+    }
+
+    /**
+     * Tests that many events are written compactly, and that a stream with
+     * more than fits in the write buffer is read back whole.
+     */
+    @Test
+    public void testManyEvents() throws IOException {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            events.add(new Event("Event " + i, "Description", event.getStartTime().plusHours(i),
+                    event.getEndTime().plusHours(i), Color.RED, EventType.REGULAR, UUID.randomUUID()));
+
+        byte[] bytes = EventCodec.toBytes(events);
+        // ID, flags, times, color, type and the two strings with their lengths
+        assertTrue(bytes.length < events.size() * 60);
+
+        InputStream in = new InputStream() {
+            private final InputStream bytesIn = new ByteArrayInputStream(bytes);
+
+            @Override
+            public int read() throws IOException {
+                return bytesIn.read();
+            }
+        };
+        List<Event> read = EventCodec.read(in);
+        assertEquals(events, read);
+        assertSame(events.get(999), read.get(999));
+    }
+
+    /**
+     * Tests telling encoded events from JSON, without consuming the stream.
+     */
+    @Test
+    public void testIsEncoded() throws IOException {
+        InputStream encoded = new ByteArrayInputStream(EventCodec.toBytes(List.of(event)));
+        assertTrue(EventCodec.isEncoded(encoded));
+        assertEquals(List.of(event), EventCodec.read(encoded));
+
+        InputStream json = new BufferedInputStream(new ByteArrayInputStream(
+                "[ ]".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(EventCodec.isEncoded(json));
+        assertEquals('[', json.read());
+        assertFalse(EventCodec.isEncoded(new ByteArrayInputStream(new byte[0])));
+
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.isEncoded(new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        }));
+    }
+
+    /**
+     * Tests that bytes that are not a whole list of events are rejected.
+     */
+    @Test
+    public void testInvalid() {
+        byte[] bytes = EventCodec.toBytes(List.of(event));
+
+        assertThrows(IOException.class,
+                () -> EventCodec.fromBytes("[]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class,
+                () -> EventCodec.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+
+        // A newer version of the format
+        byte[] newer = bytes.clone();
+        newer[3]++;
+        assertThrows(IOException.class, () -> EventCodec.fromBytes(newer));
+
+        // An event type that doesn't exist
+        byte[] type = bytes.clone();
+        type[type.length - 1] = 100;
+        assertThrows(IOException.class, () -> EventCodec.fromBytes(type));
+    }
+}
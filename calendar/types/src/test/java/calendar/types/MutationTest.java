@@ -0,0 +1,180 @@
+package calendar.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit test class for testing the {@link Mutation} class.
+ * <p>
+ * This class tests that every kind of mutation changes the store as expected,
+ * and that applying mutations again, like when a journal is replayed on top of
+ * a snapshot, leaves the store unchanged.
+ */
+public class MutationTest {
+    private UserStore store;
+    private RestUser user;
+    private RestCalendar calendar;
+    private Event event;
+
+    /**
+     * Sets up an empty store, and a user, calendar and event to add to it.
+     */
+    @BeforeEach
+    public void setUp() {
+        store = new UserStore(new HashMap<>(), new HashMap<>());
+        user = new RestUser("username", "password");
+        calendar = new RestCalendar("calendar");
+        event = new Event("title", "description",
+                LocalDateTime.of(2024, 10, 7, 10, 0),
+                LocalDateTime.of(2024, 10, 7, 12, 0));
+    }
+
+    /**
+     * Tests adding a user, a calendar and an event through mutations.
+     * <p>
+     * Verifies that each one is added, and that applying the same mutations
+     * again changes nothing.
+     */
+    @Test
+    public void testAdd() {
+        List<Mutation> mutations = List.of(
+                Mutation.addUser(user),
+                Mutation.addCalendar(user.getUserId(), calendar),
+                Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), event));
+
+        mutations.forEach(m -> assertTrue(m.applyTo(store)));
+        mutations.forEach(m -> assertFalse(m.applyTo(store)));
+
+        assertTrue(store.hasUser(user));
+        assertEquals(1, user.calendarCount());
+        assertEquals(List.of(event), calendar.getEvents());
+    }
+
+    /**
+     * Tests editing and removing an event through mutations.
+     * <p>
+     * Verifies that the event is found by its ID, and that mutations for an
+     * event that does not exist do nothing.
+     */
+    @Test
+    public void testEditAndRemoveEvent() {
+        Mutation.addUser(user).applyTo(store);
+        Mutation.addCalendar(user.getUserId(), calendar).applyTo(store);
+        Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), event).applyTo(store);
+
+        Event edited = new Event("edited", "description", event.getStartTime(),
+                event.getEndTime().plusHours(1), event.getColor(), event.getType(), event.getId());
+        assertTrue(Mutation.editEvent(user.getUserId(), calendar.getCalendarId(), edited)
+                .applyTo(store));
+        assertEquals("edited", calendar.getEvent(event.getId()).get().getTitle());
+
+        assertTrue(Mutation.removeEvent(user.getUserId(), calendar.getCalendarId(), event.getId())
+                .applyTo(store));
+        assertEquals(0, calendar.eventCount());
+
+        assertFalse(Mutation.removeEvent(user.getUserId(), calendar.getCalendarId(), event.getId())
+                .applyTo(store));
+        assertFalse(Mutation.editEvent(user.getUserId(), calendar.getCalendarId(), edited)
+                .applyTo(store));
+        assertEquals(0, calendar.eventCount());
+    }
+
+    /**
+     * Tests removing a calendar through a mutation.
+     * <p>
+     * Verifies that later mutations for the removed calendar, or for a user
+     * that does not exist, do nothing.
+     */
+    @Test
+    public void testRemoveCalendar() {
+        Mutation.addUser(user).applyTo(store);
+        Mutation.addCalendar(user.getUserId(), calendar).applyTo(store);
+
+        assertTrue(Mutation.removeCalendar(user.getUserId(), calendar.getCalendarId())
+                .applyTo(store));
+        assertEquals(0, user.calendarCount());
+
+        assertFalse(Mutation.removeCalendar(user.getUserId(), calendar.getCalendarId())
+                .applyTo(store));
+        assertFalse(Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), event)
+                .applyTo(store));
+        assertFalse(Mutation.addCalendar(UUID.randomUUID(), new RestCalendar())
+                .applyTo(store));
+    }
+
+    /**
+     * Tests replaying a sequence of mutations on top of a store that already
+     * contains some of them.
+     * <p>
+     * Verifies that the store ends up the same as when the sequence is applied
+     * once to an empty store.
+     */
+    @Test
+    public void testReplayIsIdempotent() {
+        RestCalendar removed = new RestCalendar("removed");
+        Event edited = new Event("edited", "", event.getStartTime(), event.getEndTime(),
+                event.getColor(), event.getType(), event.getId());
+        List<Mutation> mutations = List.of(
+                Mutation.addUser(user),
+                Mutation.addCalendar(user.getUserId(), calendar),
+                Mutation.addCalendar(user.getUserId(), removed),
+                Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), event),
+                Mutation.addEvent(user.getUserId(), removed.getCalendarId(), event),
+                Mutation.removeCalendar(user.getUserId(), removed.getCalendarId()),
+                Mutation.editEvent(user.getUserId(), calendar.getCalendarId(), edited));
+
+        mutations.forEach(m -> m.applyTo(store));
+        mutations.forEach(m -> m.applyTo(store));
+
+        assertEquals(List.of(calendar), user.getCalendars());
+        assertEquals(1, calendar.eventCount());
+        assertEquals("edited", calendar.getEvent(event.getId()).get().getTitle());
+    }
+
+    /**
+     * Tests applying a batch of event changes through a single mutation.
+     * <p>
+     * Verifies that the changes are made together, that a batch with a change
+     * that can't be made leaves the calendar unchanged and reports which
+     * change it was, and that applying the same batch again changes nothing.
+     */
+    @Test
+    public void testBatch() {
+        Event other = new Event("other", "", event.getStartTime(), event.getEndTime());
+        Event edited = new Event("edited", "", event.getStartTime(), event.getEndTime(),
+                event.getColor(), event.getType(), event.getId());
+        Mutation.addUser(user).applyTo(store);
+        Mutation.addCalendar(user.getUserId(), calendar).applyTo(store);
+        Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), other).applyTo(store);
+
+        Mutation failing = Mutation.batch(user.getUserId(), calendar.getCalendarId(), List.of(
+                Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), event),
+                Mutation.removeEvent(user.getUserId(), calendar.getCalendarId(), event.getId()),
+                Mutation.editEvent(user.getUserId(), calendar.getCalendarId(), edited)));
+        assertEquals(OptionalInt.of(2), failing.findConflict(calendar));
+        assertFalse(failing.applyTo(store));
+        assertEquals(List.of(other), calendar.getEvents());
+
+        Mutation batch = Mutation.batch(user.getUserId(), calendar.getCalendarId(), List.of(
+                Mutation.addEvent(user.getUserId(), calendar.getCalendarId(), event),
+                Mutation.editEvent(user.getUserId(), calendar.getCalendarId(), edited),
+                Mutation.removeEvent(user.getUserId(), calendar.getCalendarId(), other.getId())));
+        assertEquals(OptionalInt.empty(), batch.findConflict(calendar));
+        assertTrue(batch.applyTo(store));
+        assertEquals(1, calendar.eventCount());
+        assertEquals("edited", calendar.getEvent(event.getId()).get().getTitle());
+
+        assertFalse(batch.applyTo(store));
+        assertEquals(1, calendar.eventCount());
+    }
+}
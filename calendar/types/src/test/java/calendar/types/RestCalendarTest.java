@@ -10,7 +10,13 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
@@ -94,4 +100,158 @@ public class RestCalendarTest {
         assertNotEquals(eventList, cal2.getEvents());
         assertNotEquals(eventList.size(), cal2.eventCount());
     }
+
+    /**
+     * Tests replacing an event in a {@link RestCalendar}.
+     * <p>
+     * Verifies that the old event is swapped for the new one, and that nothing
+     * changes if the old event is not in the calendar.
+     */
+    @Test
+    public void testReplaceEvent() {
+        Event edited = new Event("edited", "description", LocalDateTime.of(2024, 10, 8, 10, 30),
+                LocalDateTime.of(2024, 10, 8, 12, 0));
+        RestCalendar cal = new RestCalendar(List.of(event));
+
+        assertTrue(cal.replaceEvent(event, edited));
+        assertEquals(List.of(edited), cal.getEvents());
+
+        assertFalse(cal.replaceEvent(event, edited));
+        assertEquals(1, cal.eventCount());
+    }
+
+    /**
+     * Tests that concurrent changes to a {@link RestCalendar} are not lost.
+     * <p>
+     * Several threads add events at the same time while others read, and
+     * every added event must end up in the calendar.
+     */
+    @Test
+    public void testConcurrentModification() throws InterruptedException {
+        RestCalendar cal = new RestCalendar();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        IntStream.range(0, 1000).forEach(i -> executor.execute(() -> {
+            cal.addEvent(new Event("title" + i, "", LocalDateTime.of(2024, 10, 7, 10, 30),
+                    LocalDateTime.of(2024, 10, 7, 11, 30)));
+            cal.getEvents();
+        }));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, cal.eventCount());
+        assertEquals(1000, cal.getEvents().size());
+    }
+
+    /**
+     * Tests the time range queries of {@link RestCalendar}.
+     * <p>
+     * Fills a calendar with random events, removes and edits some of them, and
+     * checks that every range query returns the same events as filtering the
+     * full event list, ordered by start time.
+     */
+    @Test
+    public void testGetEventsInRange() {
+        Random random = new Random(42);
+        LocalDateTime origin = LocalDateTime.of(2024, 1, 1, 0, 0);
+        RestCalendar cal = new RestCalendar();
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = origin.plusHours(random.nextInt(24 * 365));
+            cal.addEvent(new Event("title" + i, "", start, start.plusHours(random.nextInt(1, 24 * 10))));
+        }
+        for (int i = 0; i < 100; i++) cal.removeEvent(random.nextInt(cal.eventCount()));
+        for (int i = 0; i < 100; i++) {
+            Event old = cal.getEvent(random.nextInt(cal.eventCount()));
+            cal.replaceEvent(old, new Event(old.getTitle(), "edited", old.getStartTime().plusDays(3),
+                    old.getEndTime().plusDays(4), old.getColor(), old.getType(), old.getId()));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime after = origin.plusHours(random.nextInt(24 * 365));
+            LocalDateTime before = after.plusHours(random.nextInt(24 * 30));
+            List<Event> expected = cal.getEvents().stream()
+                    .filter(e -> e.getStartTime().isBefore(before) && e.getEndTime().isAfter(after))
+                    .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                    .toList();
+            List<Event> actual = cal.getEvents(Optional.of(before), Optional.of(after));
+
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+            for (int j = 1; j < actual.size(); j++)
+                assertFalse(actual.get(j).getStartTime().isBefore(actual.get(j - 1).getStartTime()));
+        }
+
+        assertEquals(cal.eventCount(), cal.getEvents(Optional.empty(), Optional.empty()).size());
+    }
+
+    /**
+     * Tests that every change to the events bumps the version, and that
+     * changes that don't apply leave it alone.
+     */
+    @Test
+    public void testVersion() {
+        RestCalendar cal = new RestCalendar(new ArrayList<>(List.of(event)));
+        assertEquals(0, cal.getVersion());
+
+        Event other = new Event("other", "", event.getStartTime(), event.getEndTime());
+        cal.addEvent(other);
+        assertEquals(1, cal.getVersion());
+
+        cal.replaceEvent(other, new Event("edited", "", other.getStartTime(), other.getEndTime(),
+                other.getColor(), other.getType(), other.getId()));
+        assertEquals(2, cal.getVersion());
+
+        assertFalse(cal.removeEvent(UUID.randomUUID()));
+        cal.removeEvent(new Event("missing", "", event.getStartTime(), event.getEndTime()));
+        assertEquals(2, cal.getVersion());
+
+        assertTrue(cal.removeEvent(other.getId()));
+        cal.removeEvent(0);
+        assertEquals(4, cal.getVersion());
+
+        assertEquals(0, new RestCalendar(cal).getVersion());
+    }
+
+    /**
+     * Tests that the changes since a version are kept in order, and that
+     * versions whose changes were dropped from the log, or that are newer than
+     * the calendar, get no changes.
+     */
+    @Test
+    public void testChanges() {
+        RestCalendar cal = new RestCalendar(new ArrayList<>(List.of(event)));
+        Event other = new Event("other", "", event.getStartTime(), event.getEndTime());
+        Event edited = new Event("edited", "", other.getStartTime(), other.getEndTime(),
+                other.getColor(), other.getType(), other.getId());
+        cal.addEvent(other);
+        cal.replaceEvent(other, edited);
+        cal.removeEvent(event.getId());
+
+        List<Change> changes = cal.getChanges(0).orElseThrow();
+        assertEquals(List.of(ChangeType.ADDED, ChangeType.EDITED, ChangeType.REMOVED),
+                changes.stream().map(Change::getType).toList());
+        assertEquals(List.of(1L, 2L, 3L), changes.stream().map(Change::getVersion).toList());
+        assertEquals(edited, changes.get(1).getEvent());
+        assertEquals(event.getId(), changes.get(2).getEventId());
+        assertEquals(null, changes.get(2).getEvent());
+
+        assertEquals(1, cal.getChanges(2).orElseThrow().size());
+        assertTrue(cal.getChanges(3).orElseThrow().isEmpty());
+        assertTrue(cal.getChanges(4).isEmpty());
+
+        // A new ID is a removal and an addition
+        Event moved = new Event("moved", "", event.getStartTime(), event.getEndTime());
+        cal.replaceEvent(edited, moved);
+        assertEquals(List.of(ChangeType.REMOVED, ChangeType.ADDED),
+                cal.getChanges(3).orElseThrow().stream().map(Change::getType).toList());
+
+        // The oldest changes are dropped once the log is full
+        for (int i = 0; i < RestCalendar.CHANGE_LOG_SIZE; i++)
+            cal.addEvent(new Event("filler", "", event.getStartTime(), event.getEndTime()));
+        assertTrue(cal.getChanges(0).isEmpty());
+        assertEquals(RestCalendar.CHANGE_LOG_SIZE,
+                cal.getChanges(cal.getVersion() - RestCalendar.CHANGE_LOG_SIZE)
+                        .orElseThrow().size());
+    }
 }
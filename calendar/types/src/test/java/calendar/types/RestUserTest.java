@@ -90,8 +90,39 @@ public class RestUserTest {
         // User does not mutate calendar list
         RestUser user2 = new RestUser(id, "username", "password", calendars, set);
         assertEquals(calendars, user2.getCalendars());
-        user2.addCalendar(cal1);
+        user2.addCalendar(cal2);
         assertNotEquals(calendars, user2.getCalendars());
+
+        // Calendar list can't be changed from outside
+        assertThrows(UnsupportedOperationException.class,
+                () -> user2.getCalendars().add(cal1));
+    }
+
+    /**
+     * Tests looking up and removing calendars by ID in {@link RestUser}.
+     * <p>
+     * Verifies that calendars are found by their ID, that adding a calendar
+     * with an ID the user already has replaces it in place, and that a list
+     * handed out earlier is not affected by later changes.
+     */
+    @Test
+    public void testCalendarsById() {
+        RestUser user = new RestUser(id, "username", "password", List.of(cal1, cal2), set);
+        List<RestCalendar> before = user.getCalendars();
+
+        assertEquals(cal1, user.getCalendar(cal1.getCalendarId()).get());
+        assertEquals(cal2, user.getCalendar(cal2.getCalendarId()).get());
+        assertTrue(user.getCalendar(UUID.randomUUID()).isEmpty());
+
+        RestCalendar replacement = new RestCalendar(cal1);
+        user.addCalendar(replacement);
+        assertEquals(List.of(replacement, cal2), user.getCalendars());
+
+        assertTrue(user.removeCalendar(cal1.getCalendarId()));
+        assertFalse(user.removeCalendar(cal1.getCalendarId()));
+        assertTrue(user.getCalendar(cal1.getCalendarId()).isEmpty());
+        assertEquals(List.of(cal2), user.getCalendars());
+        assertEquals(List.of(cal1, cal2), before);
     }
 
     /**
@@ -4,9 +4,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -158,4 +165,69 @@ public class UserStoreTest {
         assertTrue(store.hasUser(user2));
         assertFalse(store.hasUser(user3));
     }
+
+    /**
+     * Tests that concurrent sign-ups with the same username let exactly one
+     * user through.
+     * <p>
+     * Many threads race to add different users that share a username. Only one
+     * of them may win, and the username must resolve to the winner.
+     */
+    @Test
+    public void testConcurrentAddUser() throws Exception {
+        UserStore store = new UserStore(nameToId, idToUser);
+        List<RestUser> contenders = IntStream.range(0, 64)
+                .mapToObj(i -> new RestUser("taken", "passwd" + i)).toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = executor.invokeAll(contenders.stream()
+                .map(user -> (Callable<Boolean>) () -> store.addUser(user))
+                .toList());
+        executor.shutdown();
+
+        int added = 0;
+        RestUser winner = null;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).get()) {
+                added++;
+                winner = contenders.get(i);
+            }
+        }
+
+        assertEquals(1, added);
+        assertEquals(winner.getUserId(), store.getUserId("taken").get());
+        assertEquals(winner, store.getUser(winner.getUserId()).get());
+        for (RestUser user : contenders) {
+            if (user != winner) assertFalse(store.hasUserId(user.getUserId()));
+        }
+    }
+
+    /**
+     * Tests copying a {@link UserStore}.
+     * <p>
+     * Verifies that the copy holds the same users and events, and that
+     * changes made to the original afterwards do not show up in the copy.
+     */
+    @Test
+    public void testCopy() {
+        UserStore store = new UserStore(nameToId, idToUser);
+        RestCalendar calendar = new RestCalendar();
+        user1.addCalendar(calendar);
+        calendar.addEvent(new Event("title", "", LocalDateTime.now(), LocalDateTime.now()));
+
+        UserStore copy = new UserStore(store);
+        store.addUser(user3);
+        user1.addCalendar(new RestCalendar());
+        calendar.addEvent(new Event("later", "", LocalDateTime.now(), LocalDateTime.now()));
+
+        assertTrue(copy.hasUserId(user1.getUserId()));
+        assertTrue(copy.hasUsername(user2.getUsername()));
+        assertFalse(copy.hasUsername(user3.getUsername()));
+
+        RestUser copiedUser = copy.getUser(user1.getUserId()).get();
+        assertEquals(user1.getUsername(), copiedUser.getUsername());
+        assertEquals(1, copiedUser.calendarCount());
+        assertEquals(calendar.getCalendarId(), copiedUser.getCalendar(0).getCalendarId());
+        assertEquals(1, copiedUser.getCalendar(0).eventCount());
+    }
 }
@@ -9,19 +9,28 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.controlsfx.control.ToggleSwitch;
 
+import calendar.core.ClientMetrics;
+import calendar.core.LocalReplica;
 import calendar.core.RestHelper;
+import calendar.core.SceneController;
 import calendar.core.SceneCore;
+import calendar.core.WeekLayout;
+import calendar.core.WeekLayoutCache;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.HPos;
-import javafx.geometry.Pos;
 import javafx.geometry.VPos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -32,6 +41,9 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.GridPane;
@@ -47,13 +59,59 @@ import javafx.util.StringConverter;
 import calendar.types.Calendar;
 import calendar.types.Event;
 import calendar.types.EventType;
+import no.gorandalum.fluentresult.Result;
+import no.gorandalum.fluentresult.VoidResult;
 
 /**
  * The {@code CalendarController} class is a JavaFX controller responsible for
  * managing the calendar view. It handles user interactions for navigating
  * between weeks, adding events, and displaying events within a weekly grid.
+ * <p>
+ * Requests to the server are sent in the background, and their results are
+ * applied on the JavaFX application thread with {@link Platform#runLater},
+ * so the view stays responsive while waiting for the server.
+ * </p>
+ * <p>
+ * The controller subscribes to the changes of the selected calendar, so
+ * events added, edited or removed by other clients are drawn as soon as the
+ * server pushes them, without polling.
+ * </p>
+ * <p>
+ * On startup, the calendars and events saved in the local replica by the last
+ * run are drawn before the server is asked for anything, so the calendar shows
+ * up at once, even when the server is slow or down. The replica is then
+ * brought up to date in the background, and saved again.
+ * </p>
+ * <p>
+ * Where each event goes is worked out by a {@link WeekLayout} on a background
+ * thread, which puts overlapping events side by side, and the layouts of the
+ * last weeks drawn are kept in a {@link WeekLayoutCache}. The JavaFX thread
+ * only applies the layout once it is ready.
+ * </p>
+ * <p>
+ * The boxes of the events are kept in an {@link EventCellPool}, which only
+ * updates the boxes of the events that changed since the week was last drawn,
+ * and rebinds the others to the events of the next week, so neither redrawing
+ * nor paging through weeks rebuilds them.
+ * </p>
+ * <p>
+ * Weeks with more parts of events than {@link CanvasWeekRenderer#threshold()},
+ * counting a part for each day an event covers, are
+ * drawn on a canvas by a {@link CanvasWeekRenderer} instead, which draws them
+ * all in one pass.
+ * </p>
+ * <p>
+ * The scene is kept by {@link SceneCore} and shown again after signing out
+ * and in, so the per-user state is started in {@link #onShow()} rather than
+ * when the scene is loaded. The form for editing events is likewise loaded
+ * once and filled in again for each event that is clicked.
+ * </p>
+ * <p>
+ * Pressing Ctrl+Shift+M (Cmd+Shift+M on macOS) shows a {@link MetricsOverlay}
+ * with the time spent on each request and on drawing the week.
+ * </p>
  */
-public class CalendarController {
+public class CalendarController implements SceneController {
     /** Constant representing the number of hours in a day. */
     public static final int HOURS_IN_A_DAY = 24;
 
@@ -70,11 +128,91 @@ public class CalendarController {
     /** The default color of the color picker. */
     private static final String DEFAULT_EVENT_COLOR = "#EA454C";
 
+    /** Seconds to wait before subscribing again when a subscription ends. */
+    private static final long RESUBSCRIBE_DELAY = 5;
+
+    /** The keys that show and hide the metrics overlay. */
+    private static final KeyCombination METRICS_KEYS = new KeyCodeCombination(
+            KeyCode.M, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN);
+
+    /** The name the drawing of a week is recorded under in the metrics. */
+    private static final String RENDER_OPERATION = "render week";
+
+    /** The number of weeks whose layouts are kept. */
+    private static final int LAYOUT_CACHE_SIZE = 8;
+
+    /** Computes the layouts of the weeks, away from the JavaFX thread. */
+    private static final Executor LAYOUT_EXECUTOR =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform()
+                    .name("week-layout").daemon().factory());
+
+    /** The reusable boxes of the events in the calendar grid. */
+    private EventCellPool eventCells;
+
+    /** Draws the events in the calendar grid when there are many of them. */
+    private CanvasWeekRenderer eventCanvas;
+
+    /** The renderer of the events in the calendar grid in the last drawing. */
+    private EventRenderer eventRenderer;
+
+    /** The layouts of the weeks that were drawn last. */
+    private final WeekLayoutCache layouts =
+            new WeekLayoutCache(LAYOUT_CACHE_SIZE, LAYOUT_EXECUTOR);
+
+    /** The window of the form for editing events, once it is loaded. */
+    private Stage popupStage;
+
+    /** The controller of the form for editing events, once it is loaded. */
+    private PopupController popupController;
+
+    /** The layout that is drawn once it is computed. */
+    private CompletableFuture<WeekLayout> pendingLayout =
+            CompletableFuture.completedFuture(null);
+
+    /** The reusable boxes of the all-day events above the calendar grid. */
+    private EventCellPool allDayCells;
+
+    /**
+     * Shows where the time goes, toggled with {@link #METRICS_KEYS}, once it
+     * is first shown. It is a window, so it is made on the JavaFX thread and
+     * not while the scene is loaded.
+     */
+    private MetricsOverlay metricsOverlay;
+
     /**
      * A localdate to keep track of which week the user currently has displayed.
      */
     private LocalDate weekDate;
 
+    /**
+     * The request for the events of the displayed week, dropped when another
+     * week is displayed before it completes.
+     */
+    private CompletableFuture<Result<List<Event>, String>> pendingEvents =
+            CompletableFuture.completedFuture(Result.success(List.of()));
+
+    /**
+     * The subscription to the changes of the selected calendar, cancelled
+     * when another calendar is selected, and replaced when the user signs out.
+     */
+    private CompletableFuture<VoidResult<String>> subscription =
+            CompletableFuture.completedFuture(VoidResult.success());
+
+    /** Whether the local replica is being synced. */
+    private boolean syncing;
+
+    /** Whether the local replica is synced again once the sync ends. */
+    private boolean syncAgain;
+
+    /** The local replica that was synced since it was last saved, if any. */
+    private LocalReplica unsaved;
+
+    /**
+     * Whether a redraw for pushed changes is waiting on the JavaFX thread, so
+     * a burst of changes is only redrawn once.
+     */
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
     /** The header pane in the ui. */
     @FXML
     private Pane header;
@@ -179,6 +317,15 @@ public class CalendarController {
     @FXML
     private void initialize() {
         weekDate = LocalDate.now();
+        eventCells = new EventCellPool(calendarGrid, DAYS_IN_A_WEEK,
+                                       DEFAULT_EVENT_CLASS_NAME,
+                                       this::showEvent);
+        eventCanvas = new CanvasWeekRenderer(calendarGrid, DAYS_IN_A_WEEK,
+                                             HOURS_IN_A_DAY, this::showEvent);
+        eventRenderer = eventCells;
+        allDayCells = new EventCellPool(allDayGrid, DAYS_IN_A_WEEK,
+                                        DEFAULT_EVENT_CLASS_NAME,
+                                        this::showEvent);
 
         colorPicker.setValue(Color.valueOf(DEFAULT_EVENT_COLOR));
         colorPicker
@@ -200,15 +347,18 @@ public class CalendarController {
         calendarSelect.setOnHidden((javafx.event.Event e) -> {
             if (calendarSelect.getValue() == null) return;
             RestHelper.setCaledarId(calendarSelect.getValue().getCalendarId());
+            subscribe();
+            reconcile();
             update();
         });
-        calendarSelect.getItems().addAll(RestHelper.getUser()
-                .map(user -> user.getCalendars()).orElse(new ArrayList<>()));
-        calendarSelect.setValue(calendarSelect.getItems().stream().findFirst()
-                .orElse(null));
-        RestHelper.setCaledarId(calendarSelect.getValue().getCalendarId());
 
         Stream.of(rootPane).forEach(this::loseFocus);
+        rootPane.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (!METRICS_KEYS.match(e)) return;
+            if (metricsOverlay == null)
+                metricsOverlay = new MetricsOverlay(RestHelper.getMetrics());
+            metricsOverlay.toggle(rootPane.getScene().getWindow());
+        });
         Stream.of(startDateSelect, endDateSelect).forEach(this::datePicker);
         Stream.of(startTimeSelect, endTimeSelect).forEach(l -> l
                 .focusedProperty().addListener((obs, oldVal, newVal) -> {
@@ -227,7 +377,46 @@ public class CalendarController {
                     setTimeSelectorsVisibility(!newValue);
                 });
 
-        update();
+        updateDates();
+    }
+
+    /**
+     * Starts the calendar of the signed in user, each time the scene is shown.
+     * <p>
+     * What was left from the last user is cleared, and the current week is
+     * shown. The calendars and events saved in the local replica are drawn
+     * first, and then the user is fetched from the server, their calendars
+     * shown, and the changes of the selected calendar subscribed to.
+     * </p>
+     */
+    @Override
+    public void onShow() {
+        weekDate = LocalDate.now();
+        errorLabel.setText("");
+        calendarErrorLabel.setText("");
+        calendarSelect.getItems().clear();
+        calendarSelect.setValue(null);
+        layouts.clear();
+        drawEvents(List.of(), weekStart(), weekEnd());
+        updateDates();
+
+        // Show the calendars as they were last saved, before the server answers
+        RestHelper.getLocalReplica().consume(local -> local.getUser()
+                .ifPresent(user -> showCalendars(user.getCalendars())));
+        RestHelper.getUserAsync().thenAccept(result -> {
+            result.consume(user -> RestHelper.getLocalReplica()
+                    .consume(local -> {
+                        local.setUser(user);
+                        local.save();
+                    }));
+            Platform.runLater(() -> result.consume(user -> {
+                showCalendars(user.getCalendars());
+                if (calendarSelect.getValue() == null) return;
+                subscribe();
+                reconcile();
+                loadEvents();
+            }));
+        });
     }
 
     private void setTimeSelectorsVisibility(final boolean isVisible) {
@@ -358,20 +547,32 @@ public class CalendarController {
 
     @FXML
     private void signOut() {
+        // A stream that already ended must not be subscribed to again
+        subscription.cancel(true);
+        subscription = CompletableFuture.completedFuture(VoidResult.success());
+        syncAgain = false;
+        pendingEvents.cancel(true);
+        if (metricsOverlay != null) metricsOverlay.hide();
         SceneCore.setResizable(false);
         SceneCore.setScene("Login.fxml");
     }
 
     @FXML
     private void addNewCalendar() {
-        RestHelper.addCalendar(Optional.of(calendarName.getText()))
-                .consumeError(calendarErrorLabel::setText);
+        RestHelper.addCalendarAsync(Optional.of(calendarName.getText()))
+                .thenCompose(added -> RestHelper.getUserAsync()
+                        .thenAccept(result -> Platform.runLater(() -> {
+                            added.consumeError(calendarErrorLabel::setText);
+                            addNewCalendars(result
+                                    .map(user -> user.getCalendars())
+                                    .orElse(new ArrayList<>()));
+                        })));
+    }
 
+    private void addNewCalendars(final List<Calendar> calendars) {
         List<UUID> knownCalendars = calendarSelect.getItems().stream()
                 .map(cal -> cal.getCalendarId()).toList();
-        List<Calendar> cals = RestHelper.getUser()
-                .map(user -> user.getCalendars()).orElse(new ArrayList<>())
-                .stream()
+        List<Calendar> cals = calendars.stream()
                 .filter(cal -> !knownCalendars.contains(cal.getCalendarId()))
                 .toList();
         calendarSelect.getItems().addAll(cals);
@@ -448,124 +649,205 @@ public class CalendarController {
         });
     }
 
-    private void clearCalendar() {
-        calendarGrid.getChildren().removeIf(node -> node.getStyleClass()
-                .contains(DEFAULT_EVENT_CLASS_NAME));
-        allDayGrid.getChildren().removeIf(node -> node.getStyleClass()
-                .contains(DEFAULT_EVENT_CLASS_NAME));
-    }
-
     /**
      * Updates the ui.
+     * <p>
+     * The events of the displayed week are drawn from the local replica right
+     * away. They are then fetched in the background, or taken from the cache
+     * if the week was viewed recently, and drawn again once they arrive. The
+     * events of a week that is no longer displayed are never drawn.
+     * </p>
+     * <p>
+     * Each drawing only updates the boxes of the events that were added,
+     * removed, moved or edited since the last, so adding or editing one event
+     * only touches its own box.
+     * </p>
      */
     protected void update() {
         errorLabel.setText("");
-        clearCalendar();
         updateDates();
+        drawEvents(replicaEvents(weekStart(), weekEnd()), weekStart(),
+                   weekEnd());
+        loadEvents();
+    }
 
-        LocalDateTime startTime = LocalDateTime
-                .of(weekDate.with(DayOfWeek.MONDAY), LocalTime.MIN);
-        LocalDateTime endTime = LocalDateTime
-                .of(weekDate.with(DayOfWeek.SUNDAY), LocalTime.MAX);
-        List<Event> events = RestHelper
-                .getEvents(Optional.of(endTime), Optional.of(startTime))
-                .orElse(new ArrayList<>());
+    private LocalDateTime weekStart() {
+        return LocalDateTime.of(weekDate.with(DayOfWeek.MONDAY), LocalTime.MIN);
+    }
 
-        int allDayRow = 0;
+    private LocalDateTime weekEnd() {
+        return LocalDateTime.of(weekDate.with(DayOfWeek.SUNDAY), LocalTime.MAX);
+    }
 
-        for (Event event : events) {
+    /**
+     * Fills the calendar dropdown, keeping the selected calendar if it is still
+     * there, or else selecting the first. If another calendar is selected, its
+     * events are drawn from the local replica, until the server answers.
+     */
+    private void showCalendars(final List<Calendar> calendars) {
+        UUID selected = Optional.ofNullable(calendarSelect.getValue())
+                .map(Calendar::getCalendarId).orElse(null);
+        calendarSelect.getItems().setAll(calendars);
+        calendarSelect.setValue(calendars.stream()
+                .filter(cal -> cal.getCalendarId().equals(selected))
+                .findFirst()
+                .orElse(calendars.stream().findFirst().orElse(null)));
+        if (calendarSelect.getValue() == null
+                || calendarSelect.getValue().getCalendarId().equals(selected))
+            return;
 
-            LocalDateTime eventStartTime = event.getStartTime();
-            LocalDateTime eventEndTime = event.getEndTime();
+        RestHelper.setCaledarId(calendarSelect.getValue().getCalendarId());
+        drawEvents(replicaEvents(weekStart(), weekEnd()), weekStart(),
+                   weekEnd());
+    }
 
-            if (eventStartTime.isBefore(startTime)) eventStartTime = startTime;
-            if (eventEndTime.isAfter(endTime)) eventEndTime = endTime;
+    /**
+     * Gets the events of the selected calendar between two times from the local
+     * replica, without waiting for the server.
+     */
+    private List<Event> replicaEvents(final LocalDateTime startTime,
+            final LocalDateTime endTime) {
+        if (calendarSelect.getValue() == null) return List.of();
+        UUID selected = calendarSelect.getValue().getCalendarId();
+        return RestHelper.getLocalReplica()
+                .map(local -> local.getCalendar(selected)
+                        .getEvents(startTime, endTime))
+                .orElse(List.of());
+    }
 
-            int startDayIndex = eventStartTime.getDayOfWeek().getValue()
-                    - 1;
-            int endDayIndex = eventEndTime.getDayOfWeek().getValue()
-                    - 1;
+    /**
+     * Brings the local replica of the selected calendar up to date in the
+     * background, and saves it for the next start.
+     * <p>
+     * Only one sync runs at a time. Asking for another while one runs syncs
+     * once more after it, and the replica is saved once no sync is left, so
+     * a burst of changes is synced and saved once rather than for each
+     * change.
+     * </p>
+     */
+    private void reconcile() {
+        if (calendarSelect.getValue() == null) return;
+        if (syncing) {
+            syncAgain = true;
+            return;
+        }
 
-            if (event.getType().equals(EventType.ALL_DAY)) {
-                createEventRect(event,
-                                startDayIndex,
-                                allDayRow++,
-                                endDayIndex
-                                        - startDayIndex
-                                        + 1);
-                continue;
-            }
+        UUID selected = calendarSelect.getValue().getCalendarId();
+        RestHelper.getLocalReplica().consume(local -> {
+            syncing = true;
+            RestHelper.syncAsync(local.getCalendar(selected))
+                    .thenAccept(result -> Platform.runLater(() -> {
+                        syncing = false;
+                        result.runIfSuccess(() -> unsaved = local);
+                        if (syncAgain) {
+                            syncAgain = false;
+                            reconcile();
+                        }
+                        if (syncing || unsaved == null) return;
+
+                        LocalReplica synced = unsaved;
+                        unsaved = null;
+                        CompletableFuture.runAsync(synced::save);
+                    }));
+        });
+    }
 
-            int startRowIndex = eventStartTime.getHour();
-
-            int endRowIndex = eventEndTime.equals(endTime)
-                    ? HOURS_IN_A_DAY
-                    : eventEndTime.getHour();
-
-            // Single day Event
-            if (eventStartTime.toLocalDate()
-                    .equals(eventEndTime.toLocalDate())) {
-                createEventRect(event,
-                                startDayIndex,
-                                startRowIndex,
-                                endRowIndex
-                                        - startRowIndex);
-                continue;
-            }
+    private void loadEvents() {
+        LocalDateTime startTime = weekStart();
+        LocalDateTime endTime = weekEnd();
+
+        pendingEvents.cancel(true);
+        CompletableFuture<Result<List<Event>, String>> request =
+                RestHelper.getWeekAsync(weekDate);
+        pendingEvents = request;
+        // Without an answer, the events from the local replica stay drawn
+        request.thenAccept(result -> Platform.runLater(() -> {
+            if (request != pendingEvents) return;
+            result.consume(events -> drawEvents(events, startTime, endTime));
+        }));
+    }
 
-            // Multi day Event
-            for (int dayIndex =
-                    startDayIndex; dayIndex <= endDayIndex; dayIndex++) {
-                if (dayIndex != startDayIndex && dayIndex != endDayIndex) {
-                    createEventRect(event, dayIndex, 0, HOURS_IN_A_DAY);
-                    continue;
-                }
-                boolean isStartDay = dayIndex == startDayIndex;
-                createEventRect(event,
-                                dayIndex,
-                                isStartDay ? startRowIndex : 0,
-                                !isStartDay
-                                        ? endRowIndex
-                                        : (HOURS_IN_A_DAY
-                                                - startRowIndex));
-            }
-        }
-        Platform.runLater(() -> allDayScrollPane.setVvalue(1D));
+    /**
+     * Subscribes to the changes of the selected calendar, redrawing the
+     * displayed week whenever it changes. If the subscription ends, the
+     * controller subscribes again after a while, and redraws the week in case
+     * something changed in between.
+     */
+    private void subscribe() {
+        subscription.cancel(true);
+        CompletableFuture<VoidResult<String>> stream = RestHelper.subscribe(
+                changes -> refreshLater(), this::refreshLater);
+        subscription = stream;
+        stream.thenRunAsync(() -> Platform.runLater(() -> {
+            if (stream != subscription) return;
+            subscribe();
+            loadEvents();
+        }), CompletableFuture.delayedExecutor(RESUBSCRIBE_DELAY,
+                                              TimeUnit.SECONDS));
     }
 
-    private void createEventRect(final Event event,
-            final int columnIndex,
-            final int rowIndex,
-            final int length) {
-        if (length == 0) return;
-        VBox eventBox = new VBox();
-        eventBox.getStyleClass().add(DEFAULT_EVENT_CLASS_NAME);
-        eventBox.setStyle("-fx-background-color: #"
-                + event.getColor().toString().substring(2)
-                + " ;");
-        eventBox.getChildren().add(new Label(event.getTitle()));
-        eventBox.setAlignment(Pos.TOP_CENTER);
-        eventBox.setOnMouseClicked(mouseEvent -> {
-            popUpForm(event,
-                      event.getTitle(),
-                      event.getStartTime().toLocalDate(),
-                      event.getEndTime().toLocalDate(),
-                      event.getStartTime().getHour(),
-                      event.getEndTime().getHour())
-                    .show();
+    /**
+     * Redraws the displayed week on the JavaFX thread, unless a redraw is
+     * already waiting there, which then also covers the changes since.
+     */
+    private void refreshLater() {
+        if (!refreshPending.compareAndSet(false, true)) return;
+        Platform.runLater(() -> {
+            refreshPending.set(false);
+            reconcile();
+            loadEvents();
         });
+    }
+
+    /**
+     * Draws the events of a week, once their layout is computed in the
+     * background. Only the layout of the last events drawn is applied.
+     */
+    private void drawEvents(final List<Event> events,
+            final LocalDateTime startTime,
+            final LocalDateTime endTime) {
+        UUID calendarId = Optional.ofNullable(calendarSelect.getValue())
+                .map(Calendar::getCalendarId).orElse(null);
+        CompletableFuture<WeekLayout> layout =
+                layouts.get(calendarId, events, startTime, endTime);
+        pendingLayout = layout;
+        layout.thenAccept(computed -> Platform.runLater(() -> {
+            if (layout == pendingLayout) drawLayout(computed);
+        }));
+    }
 
-        switch (event.getType()) {
-            case EventType.REGULAR -> GridPane.setRowSpan(eventBox, length);
-            case EventType.ALL_DAY -> GridPane.setColumnSpan(eventBox, length);
-            default ->
-                throw new IllegalStateException("Not a valid EventType.");
+    private void drawLayout(final WeekLayout layout) {
+        long started = System.nanoTime();
+        // Dense weeks are drawn in one pass on a canvas instead of as boxes
+        EventRenderer renderer =
+                layout.getSegments().size() > CanvasWeekRenderer.threshold()
+                        ? eventCanvas
+                        : eventCells;
+        if (renderer != eventRenderer) {
+            eventRenderer.begin();
+            eventRenderer.commit();
+            eventRenderer = renderer;
         }
+        eventRenderer.begin();
+        layout.getSegments().forEach(eventRenderer::place);
+        eventRenderer.commit();
+        allDayCells.begin();
+        layout.getAllDaySegments().forEach(allDayCells::place);
+        allDayCells.commit();
+        Platform.runLater(() -> allDayScrollPane.setVvalue(1D));
+        RestHelper.getMetrics().record(RENDER_OPERATION,
+                                       ClientMetrics.Stage.RENDER,
+                                       System.nanoTime() - started);
+    }
 
-        GridPane targetGrid = event.getType().equals(EventType.REGULAR)
-                ? calendarGrid
-                : allDayGrid;
-        targetGrid.add(eventBox, columnIndex, rowIndex);
+    private void showEvent(final Event event) {
+        popUpForm(event,
+                  event.getTitle(),
+                  event.getStartTime().toLocalDate(),
+                  event.getEndTime().toLocalDate(),
+                  event.getStartTime().getHour(),
+                  event.getEndTime().getHour())
+                .show();
     }
 
     @FXML
@@ -598,16 +880,18 @@ public class CalendarController {
                                            LocalTime.of(end, 0)));
 
         RestHelper
-                .addEvent(Optional.of(eventNameField.getText()),
-                          Optional.of(eventDescriptionField.getText()
-                                  .replace("\n", " ")),
-                          startDateTime,
-                          endDateTime,
-                          Optional.of(colorPicker.getValue()),
-                          Optional.of(!allDaySwitch.isSelected()
-                                  ? EventType.REGULAR
-                                  : EventType.ALL_DAY))
-                .consumeError(errorLabel::setText).runIfSuccess(this::update);
+                .addEventAsync(Optional.of(eventNameField.getText()),
+                               Optional.of(eventDescriptionField.getText()
+                                       .replace("\n", " ")),
+                               startDateTime,
+                               endDateTime,
+                               Optional.of(colorPicker.getValue()),
+                               Optional.of(!allDaySwitch.isSelected()
+                                       ? EventType.REGULAR
+                                       : EventType.ALL_DAY))
+                .thenAccept(result -> Platform.runLater(() -> result
+                        .consumeError(errorLabel::setText)
+                        .runIfSuccess(this::update)));
     }
 
     @FXML
@@ -630,29 +914,31 @@ public class CalendarController {
             final int startTime,
             final int endTime) {
         try {
-            FXMLLoader loader =
-                    new FXMLLoader(getClass().getResource("Popup.fxml"));
-            VBox vbox = loader.load();
-            // vbox.setId("rootVBox");
-
-            // Get the controller and initialize it with necessary data
-            PopupController controller = loader.getController();
-
-            Stage stage = new Stage();
-            stage.setWidth(PopupController.WIDTH);
-            stage.setHeight(PopupController.HEIGHT);
-            stage.setX(SceneCore.getX());
-            stage.setY(SceneCore.getY());
-            stage.setScene(new Scene(vbox));
-            stage.initModality(Modality.APPLICATION_MODAL);
-            stage.setResizable(false);
+            // The form is only loaded once, and filled in for each event
+            if (popupStage == null) {
+                FXMLLoader loader =
+                        new FXMLLoader(getClass().getResource("Popup.fxml"));
+                VBox vbox = loader.load();
+                popupController = loader.getController();
+
+                Stage stage = new Stage();
+                stage.setWidth(PopupController.WIDTH);
+                stage.setHeight(PopupController.HEIGHT);
+                stage.setScene(new Scene(vbox));
+                stage.initModality(Modality.APPLICATION_MODAL);
+                stage.setResizable(false);
+
+                popupController.setStage(stage);
+                popupStage = stage;
+            }
 
-            controller.setStage(stage);
-            controller.initialize(event, this);
+            popupStage.setX(SceneCore.getX());
+            popupStage.setY(SceneCore.getY());
+            popupController.initialize(event, this);
 
-            stage.show();
+            popupStage.show();
 
-            return stage;
+            return popupStage;
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -0,0 +1,196 @@
+package calendar.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import calendar.core.WeekLayout;
+import calendar.types.Event;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.GridPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * The {@code CanvasWeekRenderer} class draws the events of a week on one
+ * {@link Canvas} laid over a grid, instead of a node for each event.
+ * <p>
+ * Weeks with hundreds of events are slow to draw as nodes, since every node
+ * has to be styled and laid out. The canvas draws all of them in one pass, and
+ * is only drawn again when a frame is committed or the grid is resized. Each
+ * part is drawn in its lane, and clicks are mapped back to the event drawn on
+ * top at that point.
+ * </p>
+ * <p>
+ * The grid must have columns of the same width and rows of the same height,
+ * as the canvas works out where each cell is from the size of the grid.
+ * </p>
+ */
+public class CanvasWeekRenderer implements EventRenderer {
+
+    /** The system property setting {@link #threshold()}. */
+    public static final String THRESHOLD_PROPERTY = "calendar.canvas.threshold";
+
+    /** The number of parts of events above which the canvas is used. */
+    public static final int DEFAULT_THRESHOLD = 150;
+
+    /** The radius of the corners of the events, as in the stylesheet. */
+    private static final double CORNER_RADIUS = 12;
+
+    /** The space between the top of an event and its title. */
+    private static final double TITLE_PADDING = 2;
+
+    /** The font of the titles, which are bold like the event boxes. */
+    private static final Font TITLE_FONT =
+            Font.font(Font.getDefault().getFamily(), FontWeight.BOLD,
+                      Font.getDefault().getSize());
+
+    /** The canvas the events are drawn on. */
+    private final Canvas canvas = new Canvas();
+
+    /** The number of columns of the grid. */
+    private final int columns;
+
+    /** The number of rows of the grid. */
+    private final int rows;
+
+    /** The parts of the events placed in the current frame, in order. */
+    private final List<WeekLayout.Segment> placed = new ArrayList<>();
+
+    /** The parts of the events drawn on the canvas, in order. */
+    private final List<WeekLayout.Segment> drawn = new ArrayList<>();
+
+    /**
+     * Creates a renderer drawing on a canvas laid over a grid.
+     *
+     * @param grid    the grid the canvas is laid over
+     * @param columns the number of columns of the grid
+     * @param rows    the number of rows of the grid
+     * @param onClick called with the event that is clicked
+     */
+    public CanvasWeekRenderer(final GridPane grid,
+            final int columns,
+            final int rows,
+            final Consumer<Event> onClick) {
+        this.columns = columns;
+        this.rows = rows;
+
+        // Cover the whole grid, without taking part in its layout
+        canvas.setManaged(false);
+        canvas.widthProperty().bind(grid.widthProperty());
+        canvas.heightProperty().bind(grid.heightProperty());
+        canvas.widthProperty().addListener(observable -> draw());
+        canvas.heightProperty().addListener(observable -> draw());
+        canvas.setOnMouseClicked(mouseEvent -> {
+            WeekLayout.Segment segment = segmentAt(mouseEvent.getX(),
+                                                   mouseEvent.getY());
+            if (segment != null) onClick.accept(segment.getEvent());
+        });
+        // Let clicks through to the grid while nothing is drawn
+        canvas.setMouseTransparent(true);
+        grid.getChildren().add(canvas);
+    }
+
+    /**
+     * Gets the number of parts of events in a week above which it should be
+     * drawn on a canvas, as set by the {@value #THRESHOLD_PROPERTY} system
+     * property. An event has a part for each day it covers.
+     *
+     * @return the number of parts, {@value #DEFAULT_THRESHOLD} by default
+     */
+    public static int threshold() {
+        return Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+    }
+
+    @Override
+    public void begin() {
+        placed.clear();
+    }
+
+    @Override
+    public void place(final WeekLayout.Segment segment) {
+        placed.add(segment);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The canvas is drawn again, unless both frames were empty.
+     * </p>
+     */
+    @Override
+    public void commit() {
+        if (placed.isEmpty() && drawn.isEmpty()) return;
+        drawn.clear();
+        drawn.addAll(placed);
+        placed.clear();
+        canvas.setMouseTransparent(drawn.isEmpty());
+        draw();
+    }
+
+    private double cellWidth() {
+        return canvas.getWidth() / columns;
+    }
+
+    private double cellHeight() {
+        return canvas.getHeight() / rows;
+    }
+
+    private void draw() {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        graphics.setFont(TITLE_FONT);
+        graphics.setTextAlign(TextAlignment.CENTER);
+        graphics.setTextBaseline(VPos.TOP);
+
+        for (WeekLayout.Segment segment : drawn) {
+            double x = left(segment);
+            double y = segment.getRow() * cellHeight();
+            double w = width(segment);
+            double h = segment.getRowSpan() * cellHeight();
+
+            graphics.setFill(segment.getEvent().getColor());
+            graphics.fillRoundRect(x, y, w, h, CORNER_RADIUS * 2,
+                                   CORNER_RADIUS * 2);
+
+            // Keep the title within its event
+            graphics.save();
+            graphics.beginPath();
+            graphics.rect(x, y, w, h);
+            graphics.clip();
+            graphics.setFill(Color.BLACK);
+            graphics.fillText(segment.getEvent().getTitle(), x + w / 2,
+                              y + TITLE_PADDING);
+            graphics.restore();
+        }
+    }
+
+    /** Gets where a part starts, in its lane of its columns. */
+    private double left(final WeekLayout.Segment segment) {
+        return segment.getColumn() * cellWidth()
+                + segment.getLane() * width(segment);
+    }
+
+    /** Gets the width of a part, which is its share of its columns. */
+    private double width(final WeekLayout.Segment segment) {
+        return segment.getColumnSpan() * cellWidth() / segment.getLanes();
+    }
+
+    private WeekLayout.Segment segmentAt(final double x, final double y) {
+        double height = cellHeight();
+        // The last part drawn is on top
+        for (int i = drawn.size() - 1; i >= 0; i--) {
+            WeekLayout.Segment segment = drawn.get(i);
+            double left = left(segment);
+            if (x >= left && x < left + width(segment)
+                    && y >= segment.getRow() * height
+                    && y < (segment.getRow() + segment.getRowSpan()) * height)
+                return segment;
+        }
+        return null;
+    }
+}
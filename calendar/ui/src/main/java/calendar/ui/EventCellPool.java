@@ -0,0 +1,254 @@
+package calendar.ui;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import calendar.core.WeekLayout;
+import calendar.types.Event;
+import javafx.beans.binding.DoubleBinding;
+import javafx.beans.binding.DoubleExpression;
+import javafx.geometry.HPos;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+
+/**
+ * The {@code EventCellPool} class keeps the boxes that show events in a grid,
+ * and reuses them for other events instead of building new ones.
+ * <p>
+ * The pool draws each frame of the {@link EventRenderer} by working out what
+ * changed since the last frame. A part of an event is known by the ID of
+ * the event and the column it starts in. A part that was already shown keeps
+ * its cell, and only what changed about it, like its title or its row, is
+ * updated. New parts take a free cell, and the cells of parts that are no
+ * longer placed are freed. So redrawing a week after one event changed only
+ * touches the cell of that event.
+ * </p>
+ * <p>
+ * A cell that shares its columns with overlapping events is narrowed to its
+ * lane and moved there, bound to the width of the grid so it follows it when
+ * the window is resized.
+ * </p>
+ * <p>
+ * Cells stay in the grid once they are added. Free cells are hidden and left
+ * out of the layout, so once the grid has as many cells as the busiest week
+ * needs, drawing a week adds and removes no nodes, and the cells keep their
+ * styles instead of having their CSS applied anew.
+ * </p>
+ */
+public class EventCellPool implements EventRenderer {
+
+    /** The ID of an event and the column a part of it starts in. */
+    private static final class Key {
+        /** The ID of the event. */
+        private final UUID eventId;
+        /** The column the part starts in. */
+        private final int column;
+
+        Key(final UUID eventId, final int column) {
+            this.eventId = eventId;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Key key
+                    && Objects.equals(eventId, key.eventId)
+                    && column == key.column;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(eventId, column);
+        }
+    }
+
+    /** A box showing one part of an event, which can be rebound. */
+    private static final class Cell extends VBox {
+        /** The title of the event. */
+        private final Label title = new Label();
+        /** The event shown, or {@code null} if the cell is free. */
+        private Event event;
+        /** The color of the background, kept to skip unchanged styles. */
+        private Color color;
+        /** The column of the cell in the grid. */
+        private int column = -1;
+        /** The row of the cell in the grid. */
+        private int row = -1;
+        /** The number of columns the cell spans. */
+        private int columnSpan = -1;
+        /** The number of rows the cell spans. */
+        private int rowSpan = -1;
+        /** The lane of the cell within its columns. */
+        private int lane;
+        /** The number of lanes its columns are split into. */
+        private int lanes = 1;
+
+        Cell(final String styleClass, final Consumer<Event> onClick) {
+            getStyleClass().add(styleClass);
+            setAlignment(Pos.TOP_CENTER);
+            getChildren().add(title);
+            // One handler per cell, which opens whatever event it shows
+            setOnMouseClicked(mouseEvent -> {
+                if (event != null) onClick.accept(event);
+            });
+        }
+
+        void bind(final WeekLayout.Segment segment,
+                final DoubleExpression columnWidth) {
+            Event shown = segment.getEvent();
+            int newColumn = segment.getColumn();
+            int newRow = segment.getRow();
+            int newColumnSpan = segment.getColumnSpan();
+            int newRowSpan = segment.getRowSpan();
+            event = shown;
+            title.setText(shown.getTitle());
+            if (!shown.getColor().equals(color)) {
+                color = shown.getColor();
+                setStyle("-fx-background-color: #"
+                        + color.toString().substring(2) + " ;");
+            }
+            boolean resized = newColumnSpan != columnSpan;
+            // Every constraint that is set lays out the grid again
+            if (newColumn != column || newRow != row
+                    || newColumnSpan != columnSpan || newRowSpan != rowSpan) {
+                column = newColumn;
+                row = newRow;
+                columnSpan = newColumnSpan;
+                rowSpan = newRowSpan;
+                GridPane.setConstraints(this, column, row, columnSpan,
+                                        rowSpan);
+            }
+            if (resized || segment.getLane() != lane
+                    || segment.getLanes() != lanes) {
+                lane = segment.getLane();
+                lanes = segment.getLanes();
+                share(columnWidth);
+            }
+            if (!isVisible()) {
+                setVisible(true);
+                setManaged(true);
+            }
+        }
+
+        /**
+         * Narrows the cell to its lane, and moves it there, or widens it to
+         * its columns again if it has them to itself.
+         */
+        private void share(final DoubleExpression columnWidth) {
+            maxWidthProperty().unbind();
+            translateXProperty().unbind();
+            if (lanes == 1) {
+                setMaxWidth(Double.MAX_VALUE);
+                setTranslateX(0);
+                return;
+            }
+            DoubleBinding laneWidth =
+                    columnWidth.multiply(columnSpan).divide(lanes);
+            GridPane.setHalignment(this, HPos.LEFT);
+            maxWidthProperty().bind(laneWidth);
+            translateXProperty().bind(laneWidth.multiply(lane));
+        }
+
+        void unbind() {
+            event = null;
+            setVisible(false);
+            setManaged(false);
+        }
+    }
+
+    /** The grid the cells are in. */
+    private final GridPane grid;
+
+    /** The style class of the cells. */
+    private final String styleClass;
+
+    /** The width of a column of the grid, which all columns share. */
+    private final DoubleExpression columnWidth;
+
+    /** Called with the event of a cell when it is clicked. */
+    private final Consumer<Event> onClick;
+
+    /** The cells showing the parts placed in the current frame. */
+    private Map<Key, Cell> shown = new HashMap<>();
+
+    /** The cells of the last frame that were not placed again yet. */
+    private Map<Key, Cell> previous = new HashMap<>();
+
+    /** The cells that show nothing. */
+    private final Deque<Cell> free = new ArrayDeque<>();
+
+    /**
+     * Creates an empty pool of cells in a grid.
+     *
+     * @param grid       the grid to add the cells to, which must have columns
+     *                   of the same width
+     * @param columns    the number of columns of the grid
+     * @param styleClass the style class of the cells
+     * @param onClick    called with the event of a cell when it is clicked
+     */
+    public EventCellPool(final GridPane grid,
+            final int columns,
+            final String styleClass,
+            final Consumer<Event> onClick) {
+        this.grid = grid;
+        this.columnWidth = grid.widthProperty().divide(columns);
+        this.styleClass = styleClass;
+        this.onClick = onClick;
+    }
+
+    @Override
+    public void begin() {
+        // Swap the maps instead of allocating new ones every frame
+        Map<Key, Cell> last = shown;
+        shown = previous;
+        previous = last;
+        shown.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the part was shown in the last frame, its cell is kept and only
+     * updated where it changed. Otherwise it takes a free cell, and a cell is
+     * only added to the grid if there is none.
+     * </p>
+     */
+    @Override
+    public void place(final WeekLayout.Segment segment) {
+        Key key = new Key(segment.getEvent().getId(), segment.getColumn());
+        Cell cell = previous.remove(key);
+        // An event listed twice is drawn once
+        if (cell == null) cell = shown.get(key);
+        if (cell == null) cell = free.poll();
+        if (cell == null) {
+            cell = new Cell(styleClass, onClick);
+            grid.getChildren().add(cell);
+        }
+        shown.put(key, cell);
+        cell.bind(segment, columnWidth);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cells of the parts that were shown in the last frame but not placed
+     * in this one are freed.
+     * </p>
+     */
+    @Override
+    public void commit() {
+        for (Cell cell : previous.values()) {
+            cell.unbind();
+            free.push(cell);
+        }
+        previous.clear();
+    }
+}
@@ -0,0 +1,42 @@
+package calendar.ui;
+
+import calendar.core.WeekLayout;
+
+/**
+ * The {@code EventRenderer} interface draws the events of a week in a grid
+ * of days and hours.
+ * <p>
+ * The events are drawn in frames. Between {@link #begin()} and
+ * {@link #commit()}, every part of an event that should be shown is
+ * {@link #place(WeekLayout.Segment) placed}, and parts that are not placed
+ * again are no longer shown. An empty frame clears the grid.
+ * </p>
+ * <p>
+ * Where each part goes is worked out beforehand by a {@link WeekLayout}, so
+ * a renderer only has to apply it. Parts that overlap others are drawn in
+ * their lane, in a share of the width of their columns.
+ * </p>
+ *
+ * @see EventCellPool
+ * @see CanvasWeekRenderer
+ */
+public interface EventRenderer {
+
+    /**
+     * Starts a new frame, in which every part of an event that should still be
+     * shown must be placed again.
+     */
+    void begin();
+
+    /**
+     * Shows a part of an event in the current frame.
+     *
+     * @param segment the part of the event, and where it goes
+     */
+    void place(WeekLayout.Segment segment);
+
+    /**
+     * Ends the current frame, showing what was placed in it.
+     */
+    void commit();
+}
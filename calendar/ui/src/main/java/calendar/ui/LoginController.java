@@ -5,6 +5,7 @@ import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import calendar.core.RestHelper;
+import calendar.core.SceneController;
 import calendar.core.SceneCore;
 import javafx.event.ActionEvent;
 
@@ -12,8 +13,12 @@ import javafx.event.ActionEvent;
  * The {@code LoginController} class is a JavaFX controller responsible for
  * handling user login interactions. It manages the login form, validates user
  * credentials, and switches scenes upon successful login or registration.
+ * <p>
+ * While the user types their credentials, the calendar scene is loaded in
+ * the background, so it shows up at once when they are signed in.
+ * </p>
  */
-public class LoginController {
+public class LoginController implements SceneController {
 
     /** The input for the username. */
     @FXML
@@ -47,6 +52,17 @@ public class LoginController {
         });
     }
 
+    /**
+     * Clears the password and any message from the last time the scene was
+     * shown, and starts loading the calendar scene in the background.
+     */
+    @Override
+    public void onShow() {
+        passwordField.clear();
+        messageLabel.setText("");
+        SceneCore.preload("Calendar.fxml");
+    }
+
     /**
      * Handles the login action when the login button is clicked. It validates
      * the credentials entered in the {@code usernameField} and
@@ -61,7 +77,7 @@ public class LoginController {
         RestHelper.setCredentials(usernameField.getText(),
                                   passwordField.getText());
 
-        RestHelper.getUser().consumeError(messageLabel::setText)
+        RestHelper.login().consumeError(messageLabel::setText)
                 .runIfSuccess(() -> {
                     SceneCore.setResizable(true);
                     SceneCore.setScene("Calendar.fxml");
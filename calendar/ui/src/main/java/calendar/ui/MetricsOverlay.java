@@ -0,0 +1,92 @@
+package calendar.ui;
+
+import calendar.core.ClientMetrics;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Label;
+import javafx.stage.Popup;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+/**
+ * The {@code MetricsOverlay} class shows the {@link ClientMetrics} of the
+ * application on top of a window, so it can be seen at once whether the time
+ * goes to the network, to reading the responses, or to drawing the calendar.
+ * <p>
+ * The overlay is refreshed every second while it is shown, and stops
+ * refreshing when it is hidden.
+ * </p>
+ */
+public class MetricsOverlay {
+
+    /** How often the overlay is refreshed while it is shown. */
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(1);
+
+    /** How far from the top left corner of the window the overlay is shown. */
+    private static final double OFFSET = 40;
+
+    /** The inline style of the overlay, which has no stylesheet of its own. */
+    private static final String STYLE = "-fx-font-family: monospace;"
+            + " -fx-font-size: 11px; -fx-text-fill: white;"
+            + " -fx-background-color: rgba(0, 0, 0, 0.75);"
+            + " -fx-padding: 8;";
+
+    /** The metrics that are shown. */
+    private final ClientMetrics metrics;
+
+    /** The popup the metrics are shown in. */
+    private final Popup popup = new Popup();
+
+    /** The text of the metrics. */
+    private final Label label = new Label();
+
+    /** Refreshes the text while the overlay is shown. */
+    private final Timeline refresh;
+
+    /**
+     * Creates a hidden overlay of some metrics.
+     *
+     * @param metrics the metrics to show
+     */
+    public MetricsOverlay(final ClientMetrics metrics) {
+        this.metrics = metrics;
+        label.setStyle(STYLE);
+        label.setMouseTransparent(true);
+        popup.getContent().add(label);
+
+        refresh = new Timeline(new KeyFrame(REFRESH_INTERVAL,
+                e -> label.setText(text())));
+        refresh.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /**
+     * Shows the overlay on top of a window if it is hidden, or hides it if it
+     * is shown.
+     *
+     * @param owner the window to show the overlay on top of
+     */
+    public void toggle(final Window owner) {
+        if (popup.isShowing()) {
+            hide();
+            return;
+        }
+        label.setText(text());
+        popup.show(owner, owner.getX() + OFFSET, owner.getY() + OFFSET);
+        refresh.play();
+    }
+
+    /**
+     * Hides the overlay, if it is shown.
+     */
+    public void hide() {
+        refresh.stop();
+        popup.hide();
+    }
+
+    private String text() {
+        String report = metrics.report();
+        if (report.isEmpty()) return "No requests yet";
+        return report.strip();
+    }
+}
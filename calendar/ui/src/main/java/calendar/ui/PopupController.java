@@ -10,6 +10,7 @@ import org.controlsfx.control.ToggleSwitch;
 import calendar.core.RestHelper;
 import calendar.types.Event;
 import calendar.types.EventType;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.ColorPicker;
@@ -100,6 +101,11 @@ public class PopupController {
      * to manage visibility of time selection inputs based on the all-day toggle
      * switch.
      * </p>
+     * <p>
+     * The popup is reused for every event, so it may be initialized many
+     * times. The inputs are only set up the first time, and any error from
+     * the last event is cleared.
+     * </p>
      *
      * @param event              the {@link Event} to be displayed and edited in
      *                           the popup
@@ -109,17 +115,25 @@ public class PopupController {
     public void initialize(final Event event,
             final CalendarController calendarController) {
         final int extraZeroLength = 10;
+        boolean firstTime = this.calendarController == null;
 
         this.event = event;
         this.calendarController = calendarController;
 
-        Stream.of(rootVBox).forEach(this::loseFocus);
-        Stream.of(startDateSelect, endDateSelect).forEach(this::datePicker);
-        Stream.of(startTimeSelect, endTimeSelect).forEach(l -> l
-                .focusedProperty().addListener((obs, oldVal, newVal) -> {
-                    if (!newVal) timeSelectLoseFocus(l);
-                }));
+        if (firstTime) {
+            Stream.of(rootVBox).forEach(this::loseFocus);
+            Stream.of(startDateSelect, endDateSelect).forEach(this::datePicker);
+            Stream.of(startTimeSelect, endTimeSelect).forEach(l -> l
+                    .focusedProperty().addListener((obs, oldVal, newVal) -> {
+                        if (!newVal) timeSelectLoseFocus(l);
+                    }));
+            allDay.selectedProperty()
+                    .addListener((observable, oldValue, newValue) -> {
+                        setTimeSelectorsVisibility(!newValue);
+                    });
+        }
 
+        errorLabel.setText("");
         eventNameField.setText(event.getTitle());
         eventDescriptionField.setText(event.getDescription());
         startDateSelect.setValue(event.getStartTime().toLocalDate());
@@ -138,10 +152,6 @@ public class PopupController {
         colorCircle.setFill(colorPicker.getValue());
         allDay.setSelected(event.getType() == EventType.ALL_DAY);
         setTimeSelectorsVisibility(!allDay.isSelected());
-        allDay.selectedProperty()
-                .addListener((observable, oldValue, newValue) -> {
-                    setTimeSelectorsVisibility(!newValue);
-                });
     }
 
     private void setTimeSelectorsVisibility(final boolean isVisible) {
@@ -242,25 +252,28 @@ public class PopupController {
                                            LocalTime.of(end, 0)));
 
         RestHelper
-                .editEvent(event.getId(),
-                           Optional.of(eventNameField.getText()),
-                           Optional.of(eventDescriptionField.getText()
-                                   .replace("\n", " ")),
-                           startDateTime,
-                           endDateTime,
-                           Optional.of(colorPicker.getValue()),
-                           Optional.of(!allDay.isSelected()
-                                   ? EventType.REGULAR
-                                   : EventType.ALL_DAY))
-                .consumeError(errorLabel::setText)
-                .runIfSuccess(calendarController::update)
-                .runIfSuccess(stage::close);
+                .editEventAsync(event.getId(),
+                                Optional.of(eventNameField.getText()),
+                                Optional.of(eventDescriptionField.getText()
+                                        .replace("\n", " ")),
+                                startDateTime,
+                                endDateTime,
+                                Optional.of(colorPicker.getValue()),
+                                Optional.of(!allDay.isSelected()
+                                        ? EventType.REGULAR
+                                        : EventType.ALL_DAY))
+                .thenAccept(result -> Platform.runLater(() -> result
+                        .consumeError(errorLabel::setText)
+                        .runIfSuccess(calendarController::update)
+                        .runIfSuccess(stage::close)));
     }
 
     @FXML
     private void handleDelete() {
-        RestHelper.removeEvent(event.getId()).consumeError(errorLabel::setText)
-                .runIfSuccess(calendarController::update)
-                .runIfSuccess(stage::close);
+        RestHelper.removeEventAsync(event.getId())
+                .thenAccept(result -> Platform.runLater(() -> result
+                        .consumeError(errorLabel::setText)
+                        .runIfSuccess(calendarController::update)
+                        .runIfSuccess(stage::close)));
     }
 }
@@ -3,6 +3,7 @@ package calendar.ui;
 import java.util.Optional;
 
 import calendar.core.RestHelper;
+import calendar.core.SceneController;
 import calendar.core.SceneCore;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
@@ -15,8 +16,12 @@ import javafx.scene.paint.Color;
  * handling user registration interactions. It manages the sign-up form,
  * validates user input, registers new users, and switches scenes upon
  * successful registration or login.
+ * <p>
+ * While the user fills in the form, the calendar scene is loaded in the
+ * background, so it shows up at once when they are signed up.
+ * </p>
  */
-public class SignUpController {
+public class SignUpController implements SceneController {
 
     /** The input for the username. */
     @FXML
@@ -53,6 +58,17 @@ public class SignUpController {
         });
     }
 
+    /**
+     * Clears the password and any message from the last time the scene was
+     * shown, and starts loading the calendar scene in the background.
+     */
+    @Override
+    public void onShow() {
+        passwordField.clear();
+        messageLabel.setText("");
+        SceneCore.preload("Calendar.fxml");
+    }
+
     /**
      * Handles the sign-up action when the sign-up button is clicked. It
      * validates the entered username and password, and attempts to register the
@@ -66,6 +82,7 @@ public class SignUpController {
                                   passwordField.getText());
         RestHelper.addUser().consumeError(messageLabel::setText)
                 .runIfSuccess(() -> {
+                    RestHelper.login().consumeError(messageLabel::setText);
                     RestHelper.addCalendar(Optional.of("Default")); // Temp
                     SceneCore.setResizable(true);
                     SceneCore.setScene("Calendar.fxml");
@@ -15,6 +15,13 @@
  * <li>{@link calendar.types.App} - The main entryway into the application.</li>
  * <li>{@link calendar.types.CalendarController} - The controllerclass for the
  * calendar scene.</li>
+ * <li>{@link calendar.ui.EventCellPool} - Reuses the boxes of the events
+ * drawn in the calendar.</li>
+ * <li>{@link calendar.ui.EventRenderer} and
+ * {@link calendar.ui.CanvasWeekRenderer} - Draw the events of a week, as
+ * boxes or, for dense weeks, on a canvas.</li>
+ * <li>{@link calendar.ui.MetricsOverlay} - Shows where the time of the
+ * requests and of drawing the calendar goes, on top of the calendar.</li>
  * <li>{@link calendar.types.LoginController} - The controllerclass for the
  * login scene.</li>
  * <li>{@link calendar.types.SignUpController} - The controllerclass for the
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +22,7 @@ import org.mockito.MockedStatic;
 import org.mockito.ArgumentMatchers;
 import org.testfx.framework.junit5.ApplicationTest;
 
+import calendar.core.ClientMetrics;
 import calendar.core.RestHelper;
 import calendar.types.Calendar;
 import calendar.types.User;
@@ -59,19 +61,34 @@ public class CalendarControllerTest extends ApplicationTest {
         try (
                 MockedStatic<RestHelper> mockedRestHelper =
                         mockStatic(RestHelper.class)) {
-            mockedRestHelper.when(RestHelper::getUser)
-                    .thenReturn(Result.success(user));
+            mockedRestHelper.when(RestHelper::getUserAsync)
+                    .thenReturn(CompletableFuture
+                            .completedFuture(Result.success(user)));
 
             mockedRestHelper
-                    .when(() -> RestHelper.getEvents(ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any()))
-                    .thenReturn(Result.success(new ArrayList<>()));
+                    .when(() -> RestHelper.getWeekAsync(ArgumentMatchers.any()))
+                    .thenReturn(CompletableFuture
+                            .completedFuture(Result.success(new ArrayList<>())));
+
+            mockedRestHelper
+                    .when(() -> RestHelper.subscribe(ArgumentMatchers.any(),
+                            ArgumentMatchers.any()))
+                    .thenReturn(new CompletableFuture<>());
+
+            mockedRestHelper.when(RestHelper::getLocalReplica)
+                    .thenReturn(Result.error("Credentials are not set"));
+
+            mockedRestHelper.when(RestHelper::getMetrics)
+                    .thenReturn(new ClientMetrics());
 
             // Load the FXML file and set up the controller
             FXMLLoader loader = new FXMLLoader(getClass()
                     .getResource("/calendar/ui/Calendar.fxml"));
             Pane mainNode = loader.load();
 
+            // Start it as SceneCore does, before the scene is set
+            loader.<CalendarController>getController().onShow();
+
             // Set up the scene with the main UI node
             Scene scene = new Scene(mainNode);
             stage.setScene(scene);
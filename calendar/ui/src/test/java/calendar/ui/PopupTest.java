@@ -10,6 +10,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -86,17 +87,19 @@ public class PopupTest extends ApplicationTest {
                 MockedStatic<RestHelper> mockedRestHelper =
                         mockStatic(RestHelper.class)) {
             mockedRestHelper
-                    .when(() -> RestHelper.editEvent(ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any(),
-                                                     ArgumentMatchers.any()))
-                    .thenReturn(VoidResult.success());
+                    .when(() -> RestHelper.editEventAsync(ArgumentMatchers.any(),
+                                                          ArgumentMatchers.any(),
+                                                          ArgumentMatchers.any(),
+                                                          ArgumentMatchers.any(),
+                                                          ArgumentMatchers.any(),
+                                                          ArgumentMatchers.any(),
+                                                          ArgumentMatchers.any()))
+                    .thenReturn(CompletableFuture
+                            .completedFuture(VoidResult.success()));
             mockedRestHelper
-                    .when(() -> RestHelper.removeEvent(ArgumentMatchers.any()))
-                    .thenReturn(VoidResult.success());
+                    .when(() -> RestHelper.removeEventAsync(ArgumentMatchers.any()))
+                    .thenReturn(CompletableFuture
+                            .completedFuture(VoidResult.success()));
 
             FXMLLoader loader = new FXMLLoader(getClass()
                     .getResource("/calendar/ui/Popup.fxml"));